@@ -0,0 +1,112 @@
+package symulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ConcurrentParkingLot;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Skalowanie ConcurrentParkingLot z liczbą bramek. Każdy wątek JMH jest bramką, która na przemian
+ * wpuszcza i wypuszcza własne pojazdy na wspólnym parkingu zajętym w połowie. Przepustowość
+ * (operacje na mikrosekundę, suma wszystkich wątków) dla 1, 2, 4 i 8 bramek pokazuje, jak blisko
+ * liniowego jest skalowanie; liczba bramek nie powinna przekraczać liczby rdzeni.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ConcurrentParkingLotBenchmark {
+    private static final int VEHICLES_PER_GATE = 1024;
+
+    /**
+     * Parking wspólny dla wszystkich bramek jednego pomiaru.
+     */
+    @State(Scope.Benchmark)
+    public static class Lot {
+        @Param({"100000"})
+        public int capacity;
+
+        ConcurrentParkingLot lot;
+        final AtomicInteger gates = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            lot = new ConcurrentParkingLot(capacity);
+            for (int i = 0; i < capacity / 2; i++) {
+                lot.enterVehicle(new Car(Fixtures.plate(i), Fixtures.START));
+            }
+        }
+    }
+
+    /**
+     * Własne pojazdy bramki: numery nie powtarzają się między bramkami.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        String[] plates;
+        boolean[] parked;
+        int next;
+        LocalDateTime exitTime;
+
+        @Setup(Level.Trial)
+        public void setUp(Lot lot) {
+            int gate = lot.gates.incrementAndGet();
+            plates = new String[VEHICLES_PER_GATE];
+            for (int i = 0; i < plates.length; i++) {
+                plates[i] = "G" + gate + "X" + i;
+            }
+            parked = new boolean[VEHICLES_PER_GATE];
+            exitTime = Fixtures.START.plusHours(2);
+        }
+
+        boolean step(ConcurrentParkingLot lot) {
+            int i = next++ & (VEHICLES_PER_GATE - 1);
+            if (parked[i]) {
+                parked[i] = false;
+                return lot.exitVehicle(plates[i], exitTime) != null;
+            }
+            parked[i] = lot.enterVehicle(new Car(plates[i], Fixtures.START));
+            return parked[i];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean gates1(Lot lot, Gate gate) {
+        return gate.step(lot.lot);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean gates2(Lot lot, Gate gate) {
+        return gate.step(lot.lot);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean gates4(Lot lot, Gate gate) {
+        return gate.step(lot.lot);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean gates8(Lot lot, Gate gate) {
+        return gate.step(lot.lot);
+    }
+}
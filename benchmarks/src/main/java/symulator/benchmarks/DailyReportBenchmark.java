@@ -0,0 +1,68 @@
+package symulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Koszt generowania raportu dziennego w zależności od liczby zakończonych sesji.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyReportBenchmark {
+
+    /** Liczba pojazdów, które wyjechały w ciągu dnia (równa pojemności parkingu). */
+    @Param({"20", "1000", "100000", "1000000"})
+    public int capacity;
+
+    private ParkingLot lot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lot = Fixtures.lot(capacity, 1.0);
+        LocalDateTime exitTime = Fixtures.START.plusHours(5);
+        for (int i = 0; i < capacity; i++) {
+            lot.exitVehicle(Fixtures.plate(i), exitTime);
+        }
+    }
+
+    @Benchmark
+    public String generateDailyReport() {
+        return lot.generateDailyReport();
+    }
+
+    /**
+     * Raport zapisywany strumieniowo, bez budowania całego tekstu w pamięci.
+     */
+    @Benchmark
+    public void writeDailyReport() throws IOException {
+        lot.writeDailyReport(Writer.nullWriter());
+    }
+
+    /**
+     * Samo podsumowanie dnia z bieżących sum.
+     */
+    @Benchmark
+    public double dailyTotals() {
+        return lot.getDailyTotals().getTotalIncome();
+    }
+}
@@ -0,0 +1,41 @@
+package symulator.benchmarks;
+
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wspólne przygotowanie danych dla benchmarków.
+ */
+final class Fixtures {
+    static final LocalDateTime START = LocalDateTime.of(2024, 6, 3, 8, 0);
+
+    private Fixtures() {
+    }
+
+    /**
+     * Numer rejestracyjny pojazdu o danym numerze porządkowym.
+     */
+    static String plate(int i) {
+        return "WA" + i;
+    }
+
+    /**
+     * Utwórz parking z zadaną zajętością; co czwarty pojazd jest vanem dostawczym.
+     *
+     * @param capacity  liczba miejsc.
+     * @param occupancy ułamek zajętych miejsc (0..1).
+     * @return wypełniony parking.
+     */
+    static ParkingLot lot(int capacity, double occupancy) {
+        ParkingLot lot = new ParkingLot(capacity);
+        int parked = (int) Math.round(capacity * occupancy);
+        for (int i = 0; i < parked; i++) {
+            LocalDateTime entry = START.plusSeconds(i % 3600);
+            lot.enterVehicle((i & 3) == 0 ? new DeliveryVan(plate(i), entry) : new Car(plate(i), entry));
+        }
+        return lot;
+    }
+}
@@ -0,0 +1,73 @@
+package symulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.Vehicle;
+
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cykl wjazd + wyjazd w trybie bez alokacji: pojazdy tworzone są w przygotowaniu i wielokrotnie
+ * parkowane, wyjazd używa czasu w sekundach epoki i widoku PaymentView, a kolumny raportu dnia
+ * są przydzielone z góry. Profiler GC powinien pokazywać ~0 B/op (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GarbageFreeExitBenchmark {
+    private static final int DAILY_SESSIONS = 1 << 20;
+
+    @Param({"1000", "100000"})
+    public int capacity;
+
+    private ParkingLot lot;
+    private Vehicle[] vehicles;
+    private String[] plates;
+    private ParkingLot.PaymentView payment;
+    private long exitSecond;
+    private int next;
+    private int sessions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lot = new ParkingLot(capacity);
+        lot.reserveDailyRecords(DAILY_SESSIONS);
+        vehicles = new Vehicle[capacity];
+        plates = new String[capacity];
+        for (int i = 0; i < capacity; i++) {
+            plates[i] = Fixtures.plate(i);
+            vehicles[i] = new Car(plates[i], Fixtures.START);
+        }
+        payment = new ParkingLot.PaymentView();
+        exitSecond = Fixtures.START.plusHours(3).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public long enterAndExit() {
+        int i = next;
+        next = i + 1 == capacity ? 0 : i + 1;
+        lot.enterVehicle(vehicles[i]);
+        lot.exitVehicle(plates[i], exitSecond, payment);
+        if (++sessions == DAILY_SESSIONS) {
+            lot.clearDailyReport(); // nowy dzień: kolumny zachowują pojemność
+            sessions = 0;
+        }
+        return payment.getFeeCents();
+    }
+}
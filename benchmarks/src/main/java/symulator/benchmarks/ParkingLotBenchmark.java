@@ -0,0 +1,93 @@
+package symulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki operacji ParkingLot w stanie ustalonym przy różnej pojemności i zajętości.
+ * Parking utrzymywany jest na stałym poziomie zajętości: cykl wjazd/wyjazd zwalnia miejsce, które zajął.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotBenchmark {
+
+    @Param({"20", "1000", "100000", "1000000"})
+    public int capacity;
+
+    @Param({"0.0", "0.5", "0.95"})
+    public double occupancy;
+
+    private ParkingLot lot;
+    private Car visitor;
+    private String parkedPlate;
+    private LocalDateTime exitTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lot = Fixtures.lot(capacity, occupancy);
+        visitor = new Car("GOSC1", Fixtures.START);
+        int parked = capacity - lot.getAvailableSpots();
+        parkedPlate = parked > 0 ? Fixtures.plate(parked / 2) : Fixtures.plate(0);
+        exitTime = Fixtures.START.plusHours(3);
+    }
+
+    /**
+     * Pełna transakcja bramki: wjazd pojazdu i jego wyjazd z naliczeniem opłaty.
+     */
+    @Benchmark
+    public Object enterExitCycle() {
+        lot.enterVehicle(visitor);
+        return lot.exitVehicle(visitor.getLicensePlate(), exitTime);
+    }
+
+    /**
+     * Wjazd odrzucony, bo pojazd już stoi na parkingu (ścieżka sprawdzenia duplikatu).
+     */
+    @Benchmark
+    public boolean enterVehicleDuplicate() {
+        return lot.enterVehicle(new Car(parkedPlate, Fixtures.START));
+    }
+
+    /**
+     * Wyjazd pojazdu, którego nie ma na parkingu (koszt wyszukania).
+     */
+    @Benchmark
+    public Object exitVehicleUnknown() {
+        return lot.exitVehicle("BRAK1", exitTime);
+    }
+
+    @Benchmark
+    public int getAvailableSpots() {
+        return lot.getAvailableSpots();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public void listParkedVehicles(Blackhole bh) {
+        List<String> list = lot.listParkedVehicles();
+        bh.consume(list);
+    }
+}
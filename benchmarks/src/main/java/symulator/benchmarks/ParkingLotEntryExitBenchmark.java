@@ -0,0 +1,66 @@
+package symulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Osobne pomiary wjazdu i wyjazdu. Każda iteracja zaczyna od świeżego parkingu o zadanej zajętości
+ * i wykonuje partię BATCH operacji tego samego rodzaju, więc stan parkingu zmienia się w trakcie partii.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = ParkingLotEntryExitBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = ParkingLotEntryExitBenchmark.BATCH)
+@Fork(1)
+public class ParkingLotEntryExitBenchmark {
+    static final int BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int capacity;
+
+    @Param({"0.0", "0.5"})
+    public double occupancy;
+
+    private ParkingLot lot;
+    private int parked;
+    private int next;
+    private LocalDateTime exitTime;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        lot = Fixtures.lot(capacity, occupancy);
+        parked = capacity - lot.getAvailableSpots();
+        next = 0;
+        exitTime = Fixtures.START.plusHours(3);
+    }
+
+    @Benchmark
+    public boolean enterVehicle() {
+        return lot.enterVehicle(new Car("NOWY" + (next++), Fixtures.START));
+    }
+
+    /**
+     * Wyjazd kolejnego zaparkowanego pojazdu; przy pustym parkingu mierzy nieudane wyszukanie.
+     */
+    @Benchmark
+    public Object exitVehicle() {
+        int i = parked == 0 ? next++ : (next++ % parked);
+        return lot.exitVehicle(Fixtures.plate(i), exitTime);
+    }
+}
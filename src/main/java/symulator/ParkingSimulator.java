@@ -0,0 +1,8989 @@
+package symulator;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ParkingSimulator - Program symulacji parkingu.
+
+ * Program ten symuluje zarządzanie parkingiem z następującymi funkcjami:
+ * - Rejestracja wjazdu i wyjazdu pojazdów z numerem rejestracyjnym i znacznikami czasowymi.
+ * - Obsługuje wiele typów pojazdów: Samochód i Van dostawczy.
+ * - Automatycznie oblicza opłaty na podstawie czasu parkowania i typu pojazdu.
+ * - Śledzi dostępne miejsca parkingowe.
+ * - Utrzymuje listę aktualnie zaparkowanych pojazdów.
+ * - Zapewnia historię parkowania, raporty dzienne i symulację czasu.
+ * Program jest zaprojektowany jako pojedynczy plik Java z interfejsem konsolowym.
+ * Użycie:
+ * Uruchom program i postępuj zgodnie z instrukcjami na ekranie, aby interagować z parkingiem.
+
+ */
+public class ParkingSimulator {
+
+
+    /**
+     *Abstrakcyjna klasa reprezentująca pojazd.
+     *Przechowuje numer rejestracyjny i czas wjazdu.
+     */
+
+    public static abstract class Vehicle {
+        private final String licensePlate;
+        private LocalDateTime entryTime;
+
+        /**
+         * Konstruktor dla pojazdu.
+         * @param licensePlate Numer rejestracyjny pojazdu.
+         * @param entryTime    Czas wjazdu na parking.
+         */
+        public Vehicle(String licensePlate, LocalDateTime entryTime) {
+            this.licensePlate = licensePlate;
+            this.entryTime = entryTime;
+        }
+
+        /**
+         * Pobierz numer rejestracyjny.
+         * @return Numer rejestracyjny jako string.
+         */
+        public String getLicensePlate() {
+            return licensePlate;
+        }
+
+        /**
+         * Pobierz czas wjazdu.
+         * @return Czas wjazdu jako LocalDateTime.
+         */
+        public LocalDateTime getEntryTime() {
+            return entryTime;
+        }
+
+        /**
+         * Ustaw czas wjazdu (do celów symulacji).
+         *
+         * @param entryTime nowy czas wjazdu
+         */
+        public void setEntryTime(LocalDateTime entryTime) {
+            this.entryTime = entryTime;
+        }
+
+        /**
+         * Abstrakcyjna metoda do pobrania stawki za parkowanie na godzinę.
+         *
+         * @return Stawka godzinowa w jednostkach walutowych.
+         */
+        public abstract double getHourlyRate();
+
+        /**
+         * Pobierz nazwę typu pojazdu.
+         *
+         * @return Typ jako string.
+         */
+        public abstract String getType();
+
+        /**
+         * Reprezentacja tekstowa pojazdu.
+         *
+         * @return string z typem i numerem rejestracyjnym.
+         */
+        @Override
+        public String toString() {
+            return String.format("%s [Numer: %s]", getType(), licensePlate);
+        }
+    }
+
+    /**
+     * Typ pojazdu: Samochód.
+     */
+    public static class Car extends Vehicle {
+        public static final String TYPE = "Samochód";
+        private static final double HOURLY_RATE = 5.0;
+
+        public Car(String licensePlate, LocalDateTime entryTime) {
+            super(licensePlate, entryTime);
+        }
+
+        @Override
+        public double getHourlyRate() {
+            return HOURLY_RATE;
+        }
+
+        @Override
+        public String getType() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * Typ pojazdu: Van dostawczy.
+     */
+    public static class DeliveryVan extends Vehicle {
+        public static final String TYPE = "Van dostawczy";
+        private static final double HOURLY_RATE = 8.0;
+
+        public DeliveryVan(String licensePlate, LocalDateTime entryTime) {
+            super(licensePlate, entryTime);
+        }
+
+        @Override
+        public double getHourlyRate() {
+            return HOURLY_RATE;
+        }
+
+        @Override
+        public String getType() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * Klasa wielkości miejsca parkingowego.
+     */
+    public enum SpotSize {
+        COMPACT, STANDARD, VAN, EV
+    }
+
+    /**
+     * ParkingSpot reprezentujący pojedyncze miejsce na parkingu.
+     */
+    public static class ParkingSpot {
+        private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private final int spotNumber;
+        private final SpotSize size;
+        private final int distance; // odległość od bramki (mniejsza = bliżej)
+        private Vehicle parkedVehicle;
+
+        /**
+         * Konstruktor dla miejsca parkingowego.
+         *
+         * @param spotNumber indeks miejsca.
+         */
+        public ParkingSpot(int spotNumber) {
+            this(spotNumber, SpotSize.STANDARD, spotNumber);
+        }
+
+        /**
+         * Konstruktor dla miejsca parkingowego o określonej klasie wielkości.
+         *
+         * @param spotNumber indeks miejsca.
+         * @param size       klasa wielkości miejsca.
+         * @param distance   odległość od bramki.
+         */
+        public ParkingSpot(int spotNumber, SpotSize size, int distance) {
+            this.spotNumber = spotNumber;
+            this.size = size;
+            this.distance = distance;
+            this.parkedVehicle = null;
+        }
+
+        /**
+         * Sprawdź, czy miejsce jest zajęte.
+         *
+         * @return true, jeśli zajęte.
+         */
+        public boolean isOccupied() {
+            return parkedVehicle != null;
+        }
+
+        /**
+         * Zaparkuj pojazd w tym miejscu.
+         *
+         * @param vehicle pojazd do zaparkowania.
+         */
+        public void parkVehicle(Vehicle vehicle) {
+            this.parkedVehicle = vehicle;
+        }
+
+        /**
+         * Usuń pojazd z tego miejsca.
+         */
+        public void removeVehicle() {
+            this.parkedVehicle = null;
+        }
+
+        /**
+         * Pobierz zaparkowany pojazd.
+         *
+         * @return Pojazd aktualnie zaparkowany lub null.
+         */
+        public Vehicle getParkedVehicle() {
+            return parkedVehicle;
+        }
+
+        /**
+         * Pobierz numer miejsca.
+         *
+         * @return numer miejsca.
+         */
+        public int getSpotNumber() {
+            return spotNumber;
+        }
+
+        /**
+         * Pobierz klasę wielkości miejsca.
+         *
+         * @return klasa wielkości.
+         */
+        public SpotSize getSize() {
+            return size;
+        }
+
+        /**
+         * Pobierz odległość miejsca od bramki.
+         *
+         * @return odległość.
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            if (isOccupied()) {
+                return String.format("Miejsce #%d: %s od %s",
+                        spotNumber,
+                        parkedVehicle.toString(),
+                        parkedVehicle.getEntryTime().format(TIME_FORMAT));
+            }
+            return String.format("Miejsce #%d: (Dostępne)", spotNumber);
+        }
+    }
+
+    /**
+     * Indeks wolnych miejsc parkingowych oparty na dwupoziomowej mapie bitowej.
+     * Bit ustawiony na 1 oznacza wolne miejsce. Poziom podsumowania przechowuje
+     * informację, które słowa mapy zawierają choć jedno wolne miejsce, dzięki czemu
+     * wyszukanie najniższego wolnego indeksu nie wymaga przeglądania wszystkich miejsc.
+     */
+    public static class FreeSpotIndex {
+        private final int size;
+        private final long[] words;   // bit = 1 -> miejsce wolne
+        private final long[] summary; // bit = 1 -> words[i] != 0
+        private int summaryHint;      // najniższe słowo podsumowania, które może być niezerowe
+        private int freeCount;
+
+        /**
+         * Konstruktor indeksu, wszystkie miejsca są początkowo wolne.
+         *
+         * @param size liczba indeksowanych miejsc.
+         */
+        public FreeSpotIndex(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Liczba miejsc nie może być ujemna");
+            }
+            this.size = size;
+            this.words = new long[(size + 63) >>> 6];
+            this.summary = new long[(words.length + 63) >>> 6];
+            for (int i = 0; i < size; i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+            for (int w = 0; w < words.length; w++) {
+                if (words[w] != 0) {
+                    summary[w >>> 6] |= 1L << w;
+                }
+            }
+            this.summaryHint = 0;
+            this.freeCount = size;
+        }
+
+        /**
+         * Pobierz liczbę indeksowanych miejsc.
+         *
+         * @return liczba miejsc.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Pobierz liczbę wolnych miejsc w czasie stałym.
+         *
+         * @return liczba wolnych miejsc.
+         */
+        public int freeCount() {
+            return freeCount;
+        }
+
+        /**
+         * Sprawdź, czy miejsce o danym indeksie jest wolne.
+         *
+         * @param index indeks miejsca (od 0).
+         * @return true, jeśli wolne.
+         */
+        public boolean isFree(int index) {
+            return (words[index >>> 6] & (1L << index)) != 0;
+        }
+
+        /**
+         * Znajdź najniższy indeks wolnego miejsca.
+         *
+         * @return indeks miejsca lub -1, jeśli brak wolnych.
+         */
+        public int first() {
+            if (freeCount == 0) {
+                return -1;
+            }
+            while (summaryHint < summary.length && summary[summaryHint] == 0) {
+                summaryHint++;
+            }
+            int w = (summaryHint << 6) + Long.numberOfTrailingZeros(summary[summaryHint]);
+            return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+        }
+
+        /**
+         * Znajdź najniższy indeks wolnego miejsca nie mniejszy niż from.
+         *
+         * @param from indeks, od którego zaczyna się wyszukiwanie.
+         * @return indeks miejsca lub -1, jeśli brak wolnych.
+         */
+        public int nextFree(int from) {
+            if (from >= size) {
+                return -1;
+            }
+            int w = from >>> 6;
+            long bits = words[w] & (-1L << from);
+            if (bits != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            int next = w + 1;
+            if (next >= words.length) {
+                return -1;
+            }
+            int s = next >>> 6;
+            long summaryBits = summary[s] & (-1L << next);
+            while (summaryBits == 0) {
+                if (++s >= summary.length) {
+                    return -1;
+                }
+                summaryBits = summary[s];
+            }
+            w = (s << 6) + Long.numberOfTrailingZeros(summaryBits);
+            return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+        }
+
+        /**
+         * Znajdź najniższy indeks zajętego miejsca nie mniejszy niż from. Przeglądane są słowa mapy,
+         * więc pełne przejście zajętych miejsc kosztuje liczba zajętych + size / 64 kroków.
+         *
+         * @param from indeks, od którego zaczyna się wyszukiwanie.
+         * @return indeks miejsca lub -1, jeśli brak zajętych.
+         */
+        public int nextOccupied(int from) {
+            if (from >= size) {
+                return -1;
+            }
+            int w = from >>> 6;
+            long bits = ~words[w] & (-1L << from);
+            while (bits == 0) {
+                if (++w >= words.length) {
+                    return -1;
+                }
+                bits = ~words[w];
+            }
+            int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+            return index < size ? index : -1;
+        }
+
+        /**
+         * Oznacz miejsce jako zajęte.
+         *
+         * @param index indeks miejsca (od 0).
+         */
+        public void markOccupied(int index) {
+            int w = index >>> 6;
+            long bit = 1L << index;
+            if ((words[w] & bit) == 0) {
+                return;
+            }
+            words[w] &= ~bit;
+            if (words[w] == 0) {
+                summary[w >>> 6] &= ~(1L << w);
+            }
+            freeCount--;
+        }
+
+        /**
+         * Oznacz miejsce jako wolne.
+         *
+         * @param index indeks miejsca (od 0).
+         */
+        public void markFree(int index) {
+            int w = index >>> 6;
+            long bit = 1L << index;
+            if ((words[w] & bit) != 0) {
+                return;
+            }
+            words[w] |= bit;
+            summary[w >>> 6] |= 1L << w;
+            if ((w >>> 6) < summaryHint) {
+                summaryHint = w >>> 6;
+            }
+            freeCount++;
+        }
+    }
+
+    /**
+     * Kodowanie numerów rejestracyjnych w liczbie long. Numer złożony z 1-10 liter łacińskich i cyfr
+     * (spacje są pomijane, więc "WA 12345" i "WA12345" to ten sam numer) jest pakowany bez alokacji
+     * po 6 bitów na znak (cyfry 1-10, litery 11-36, wyrównanie do lewej), z pominięciem wielkości liter;
+     * porządek kodów odpowiada porządkowi leksykograficznemu numerów kanonicznych. Pozostałe numery
+     * (znaki diakrytyczne, myślniki, dłuższe) otrzymują ujemny kod z tablicy internowania tej instancji.
+     * Kod internowany ma licznik odwołań: encode dolicza odwołanie, które właściciel wpisu oddaje przez
+     * release, a gdy licznik spadnie do zera, numer jest usuwany z tablicy i jego identyfikator
+     * trafia do ponownego użycia.
+     */
+    public static class PlateCodec {
+        /** Kod, który nie odpowiada żadnemu numerowi. */
+        public static final long INVALID = Long.MIN_VALUE;
+        private static final int MAX_PACKED_LENGTH = 10;
+        private static final int BITS = 6;
+
+        private final Map<String, Integer> internIds = new HashMap<>();
+        private final List<String> internedPlates = new ArrayList<>(); // null = identyfikator wolny
+        private int[] refCounts = new int[16];
+        private int[] freeIds = new int[16];
+        private int freeCount;
+
+        /**
+         * Spakuj numer spełniający format (1-10 znaków A-Z, a-z, 0-9, z pominięciem spacji).
+         *
+         * @param plate numer rejestracyjny.
+         * @return kod nieujemny lub INVALID, jeśli numer nie spełnia formatu.
+         */
+        public static long pack(CharSequence plate) {
+            int length = plate.length();
+            long code = 0;
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = plate.charAt(i);
+                int digit;
+                if (c >= '0' && c <= '9') {
+                    digit = c - '0' + 1;
+                } else if (c >= 'A' && c <= 'Z') {
+                    digit = c - 'A' + 11;
+                } else if (c >= 'a' && c <= 'z') {
+                    digit = c - 'a' + 11;
+                } else if (c == ' ') {
+                    continue;
+                } else {
+                    return INVALID;
+                }
+                if (position == MAX_PACKED_LENGTH) {
+                    return INVALID;
+                }
+                code |= (long) digit << (BITS * (MAX_PACKED_LENGTH - 1 - position++));
+            }
+            return position == 0 ? INVALID : code;
+        }
+
+        /**
+         * Odtwórz kanoniczny numer z kodu spakowanego.
+         *
+         * @param code kod z pack.
+         * @return numer wielkimi literami.
+         */
+        public static String unpack(long code) {
+            if (code < 0) {
+                throw new IllegalArgumentException("Kod nie jest spakowanym numerem: " + code);
+            }
+            char[] chars = new char[MAX_PACKED_LENGTH];
+            int length = 0;
+            for (int i = 0; i < MAX_PACKED_LENGTH; i++) {
+                int digit = (int) (code >>> (BITS * (MAX_PACKED_LENGTH - 1 - i))) & ((1 << BITS) - 1);
+                if (digit == 0) {
+                    break;
+                }
+                chars[length++] = (char) (digit <= 10 ? '0' + digit - 1 : 'A' + digit - 11);
+            }
+            return new String(chars, 0, length);
+        }
+
+        /**
+         * Zakoduj numer, internując numer nietypowy przy pierwszym wystąpieniu. Dla kodu internowanego
+         * dolicza odwołanie, które należy oddać przez release, gdy kod przestanie być przechowywany.
+         *
+         * @param plate numer rejestracyjny.
+         * @return kod numeru (równy dla numerów różniących się tylko wielkością liter i spacjami).
+         */
+        public long encode(String plate) {
+            long code = pack(plate);
+            if (code != INVALID) {
+                return code;
+            }
+            String canonical = ParkingLot.canonicalPlate(plate);
+            Integer id = internIds.get(canonical);
+            if (id == null) {
+                if (freeCount > 0) {
+                    id = freeIds[--freeCount];
+                    internedPlates.set(id, canonical);
+                } else {
+                    id = internedPlates.size();
+                    internedPlates.add(canonical);
+                    if (id == refCounts.length) {
+                        refCounts = Arrays.copyOf(refCounts, id * 2);
+                    }
+                }
+                internIds.put(canonical, id);
+            }
+            refCounts[id]++;
+            return ~(long) id;
+        }
+
+        /**
+         * Oddaj odwołanie do kodu pobrane przez encode. Po oddaniu ostatniego odwołania numer nietypowy
+         * jest usuwany z tablicy internowania. Kody spakowane nie wymagają zwalniania.
+         *
+         * @param code kod z encode.
+         */
+        public void release(long code) {
+            if (code >= 0 || code == INVALID) {
+                return;
+            }
+            int id = (int) ~code;
+            if (id >= internedPlates.size() || refCounts[id] == 0) {
+                throw new IllegalStateException("Kod numeru nie jest w użyciu: " + code);
+            }
+            if (--refCounts[id] == 0) {
+                internIds.remove(internedPlates.set(id, null));
+                if (freeCount == freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+                }
+                freeIds[freeCount++] = id;
+            }
+        }
+
+        /**
+         * Znajdź kod numeru bez internowania.
+         *
+         * @param plate numer rejestracyjny.
+         * @return kod lub INVALID, jeśli nietypowy numer nie jest internowany.
+         */
+        public long find(String plate) {
+            long code = pack(plate);
+            if (code != INVALID) {
+                return code;
+            }
+            Integer id = internIds.get(ParkingLot.canonicalPlate(plate));
+            return id == null ? INVALID : ~(long) id;
+        }
+
+        /**
+         * Odtwórz kanoniczny numer z kodu.
+         *
+         * @param code kod z encode lub find (kod internowany musi być w użyciu).
+         * @return numer wielkimi literami.
+         */
+        public String decode(long code) {
+            if (code >= 0) {
+                return unpack(code);
+            }
+            String plate = code == INVALID || ~code >= internedPlates.size() ? null : internedPlates.get((int) ~code);
+            if (plate == null) {
+                throw new IllegalArgumentException("Nieznany kod numeru: " + code);
+            }
+            return plate;
+        }
+
+        /**
+         * Liczba internowanych numerów nietypowych.
+         *
+         * @return liczba numerów w użyciu w tablicy internowania.
+         */
+        public int internedCount() {
+            return internedPlates.size() - freeCount;
+        }
+    }
+
+    /**
+     * Tablica mieszająca z adresowaniem otwartym: kod numeru rejestracyjnego (PlateCodec) -> nieujemna
+     * liczba całkowita (np. indeks miejsca). Klucze są liczbami long, więc wyszukiwanie nie porównuje
+     * napisów, a wpis zajmuje 12 bajtów. W przeciwieństwie do HashMap wstawienie nie tworzy węzła ani
+     * obiektu Long, a usuwanie przesuwa kolejne wpisy wstecz zamiast zostawiać znaczniki, więc wjazd
+     * i wyjazd nie alokują pamięci (poza powiększeniem tablicy).
+     */
+    public static class PlateTable {
+        private static final long EMPTY = PlateCodec.INVALID;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int shift; // 64 - log2(liczba pozycji)
+        private int size;
+
+        /**
+         * Konstruktor tablicy.
+         *
+         * @param expectedSize oczekiwana liczba wpisów (tablica nie powiększy się do tej liczby).
+         */
+        public PlateTable(int expectedSize) {
+            int slots = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1) * 2 - 1);
+            this.keys = new long[slots];
+            this.values = new int[slots];
+            Arrays.fill(keys, EMPTY);
+            this.mask = slots - 1;
+            this.shift = 64 - Integer.numberOfTrailingZeros(slots);
+        }
+
+        /**
+         * Pozycja klucza: najwyższe bity iloczynu ze stałą złotego podziału. Kody spakowanych numerów
+         * mają wyzerowane młodsze bity, a od nich zależą tylko młodsze bity iloczynu, więc ich użycie
+         * skupiałoby numery różniące się początkiem w tych samych pozycjach.
+         */
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        /**
+         * Pobierz wartość dla klucza.
+         *
+         * @param key kod numeru (dla PlateCodec.INVALID wynik to -1).
+         * @return wartość lub -1, jeśli klucza nie ma.
+         */
+        public int get(long key) {
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == EMPTY) {
+                    return -1;
+                }
+                if (k == key) {
+                    return values[i];
+                }
+            }
+        }
+
+        /**
+         * Wstaw lub zastąp wartość.
+         *
+         * @param key   klucz.
+         * @param value wartość (nieujemna).
+         * @return poprzednia wartość lub -1.
+         */
+        public int put(long key, int value) {
+            if (value < 0 || key == EMPTY) {
+                throw new IllegalArgumentException("Nieprawidłowy klucz lub ujemna wartość");
+            }
+            int i = slot(key);
+            for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+                if (k == key) {
+                    int previous = values[i];
+                    values[i] = value;
+                    return previous;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return -1;
+        }
+
+        /**
+         * Usuń klucz.
+         *
+         * @param key klucz.
+         * @return usunięta wartość lub -1, jeśli klucza nie było.
+         */
+        public int remove(long key) {
+            if (key == EMPTY) {
+                return -1;
+            }
+            int i = slot(key);
+            for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+                if (k == key) {
+                    int previous = values[i];
+                    int gap = i;
+                    for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                        int home = slot(keys[j]);
+                        if (((j - home) & mask) >= ((j - gap) & mask)) {
+                            keys[gap] = keys[j];
+                            values[gap] = values[j];
+                            gap = j;
+                        }
+                    }
+                    keys[gap] = EMPTY;
+                    size--;
+                    return previous;
+                }
+            }
+            return -1;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Usuń wszystkie wpisy (rozmiar tablicy pozostaje bez zmian).
+         */
+        public void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            mask = keys.length - 1;
+            shift--;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int j = slot(oldKeys[i]);
+                    while (keys[j] != EMPTY) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Indeks zajętych miejsc uporządkowany według czasu wjazdu, osobno dla każdego typu pojazdu.
+     * Węzłami drzew (treap) są same miejsca: klucz i dowiązania węzła leżą obok siebie w jednej
+     * tablicy przydzielonej z góry (jedna linia pamięci podręcznej na poziom drzewa), a priorytet
+     * jest skrótem indeksu miejsca, więc wjazd kosztuje O(log n) bez alokacji. Węzeł pamięta rodzica,
+     * więc wyjazd odłącza swój węzeł bez schodzenia od korzenia (oczekiwany koszt O(1)).
+     * Klucz to (sekunda wjazdu, nanosekunda, indeks miejsca), więc kolejność jest jednoznaczna,
+     * a ostatni zwrócony klucz może służyć jako kursor kolejnej strony.
+     */
+    public static class EntryTimeIndex {
+        private static final int NONE = -1;
+        private static final int STRIDE = 4; // sekunda wjazdu, nanosekunda, dzieci (lewe << 32 | prawe), rodzic
+
+        private final long[] nodes;
+        private final int[] typeOf; // indeks miejsca -> numer typu lub NONE, jeśli miejsce jest wolne
+        private String[] types = new String[4];
+        private int[] roots = new int[4];
+        private int typeCount;
+        private int splitLeft;
+        private int splitRight;
+
+        /**
+         * Konstruktor pustego indeksu.
+         *
+         * @param capacity liczba miejsc.
+         */
+        public EntryTimeIndex(int capacity) {
+            this.nodes = new long[capacity * STRIDE];
+            this.typeOf = new int[capacity];
+            Arrays.fill(typeOf, NONE);
+        }
+
+        /**
+         * Dodaj zajęte miejsce.
+         *
+         * @param spotIndex indeks miejsca.
+         * @param vehicle   pojazd na miejscu.
+         */
+        public void add(int spotIndex, Vehicle vehicle) {
+            if (typeOf[spotIndex] != NONE) {
+                throw new IllegalStateException("Miejsce " + (spotIndex + 1) + " jest już w indeksie");
+            }
+            int type = typeIndex(vehicle.getType());
+            if (type == NONE) {
+                type = addType(vehicle.getType());
+            }
+            LocalDateTime entryTime = vehicle.getEntryTime();
+            int base = spotIndex * STRIDE;
+            nodes[base] = entryTime.toEpochSecond(ZoneOffset.UTC);
+            nodes[base + 1] = entryTime.getNano();
+            nodes[base + 2] = -1L; // oboje dzieci NONE
+            nodes[base + 3] = NONE;
+            typeOf[spotIndex] = type;
+            roots[type] = insert(roots[type], spotIndex);
+            setParent(roots[type], NONE);
+        }
+
+        /**
+         * Usuń zwolnione miejsce (brak efektu, jeśli miejsca nie ma w indeksie).
+         *
+         * @param spotIndex indeks miejsca.
+         */
+        public void remove(int spotIndex) {
+            int type = typeOf[spotIndex];
+            if (type != NONE) {
+                int parent = parent(spotIndex);
+                int merged = merge(left(spotIndex), right(spotIndex));
+                if (parent == NONE) {
+                    roots[type] = merged;
+                    setParent(merged, NONE);
+                } else if (left(parent) == spotIndex) {
+                    setLeft(parent, merged);
+                } else {
+                    setRight(parent, merged);
+                }
+                typeOf[spotIndex] = NONE;
+            }
+        }
+
+        /**
+         * Pobierz numer typu pojazdu w indeksie.
+         *
+         * @param vehicleType typ pojazdu.
+         * @return numer typu lub -1, jeśli na parkingu nie stał jeszcze pojazd tego typu.
+         */
+        public int typeIndex(String vehicleType) {
+            for (int i = 0; i < typeCount; i++) {
+                if (types[i] == vehicleType || types[i].equals(vehicleType)) {
+                    return i;
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Wybierz zajęte miejsca o kluczach ściśle między dwoma kluczami, w kolejności czasu wjazdu.
+         * Koszt to O(log n + liczba zwróconych miejsc × liczba typów).
+         *
+         * @param type       numer typu lub -1 dla wszystkich typów.
+         * @param descending true dla kolejności od najnowszych.
+         * @param lowSecond  dolna granica (wyłączna): sekunda wjazdu.
+         * @param lowNano    dolna granica: nanosekunda.
+         * @param lowSpot    dolna granica: indeks miejsca.
+         * @param highSecond górna granica (wyłączna): sekunda wjazdu.
+         * @param highNano   górna granica: nanosekunda.
+         * @param highSpot   górna granica: indeks miejsca.
+         * @param out        tablica na indeksy miejsc (jej długość ogranicza liczbę wyników).
+         * @return liczba wpisanych indeksów.
+         */
+        public int select(int type, boolean descending, long lowSecond, int lowNano, int lowSpot,
+                          long highSecond, int highNano, int highSpot, int[] out) {
+            int first = type == NONE ? 0 : type;
+            int last = type == NONE ? typeCount : type + 1;
+            Walk[] walks = new Walk[last - first];
+            for (int t = first; t < last; t++) {
+                Walk walk = new Walk(descending);
+                if (descending) {
+                    walk.seekBelow(roots[t], highSecond, highNano, highSpot);
+                } else {
+                    walk.seekAbove(roots[t], lowSecond, lowNano, lowSpot);
+                }
+                walks[t - first] = walk;
+            }
+            int count = 0;
+            while (count < out.length) {
+                int best = NONE;
+                Walk bestWalk = null;
+                for (Walk walk : walks) {
+                    int node = walk.peek();
+                    if (node != NONE && (best == NONE || compare(node, best) < 0 != descending)) {
+                        best = node;
+                        bestWalk = walk;
+                    }
+                }
+                if (best == NONE || (descending
+                        ? compare(best, lowSecond, lowNano, lowSpot) <= 0
+                        : compare(best, highSecond, highNano, highSpot) >= 0)) {
+                    break;
+                }
+                bestWalk.advance();
+                out[count++] = best;
+            }
+            return count;
+        }
+
+        long getEntrySecond(int spotIndex) {
+            return nodes[spotIndex * STRIDE];
+        }
+
+        int getEntryNano(int spotIndex) {
+            return (int) nodes[spotIndex * STRIDE + 1];
+        }
+
+        private int left(int node) {
+            return (int) (nodes[node * STRIDE + 2] >> 32);
+        }
+
+        private int right(int node) {
+            return (int) nodes[node * STRIDE + 2];
+        }
+
+        private int parent(int node) {
+            return (int) nodes[node * STRIDE + 3];
+        }
+
+        private void setLeft(int node, int child) {
+            int i = node * STRIDE + 2;
+            nodes[i] = ((long) child << 32) | (nodes[i] & 0xFFFFFFFFL);
+            setParent(child, node);
+        }
+
+        private void setRight(int node, int child) {
+            int i = node * STRIDE + 2;
+            nodes[i] = (nodes[i] & 0xFFFFFFFF00000000L) | (child & 0xFFFFFFFFL);
+            setParent(child, node);
+        }
+
+        private void setParent(int node, int parent) {
+            if (node != NONE) {
+                nodes[node * STRIDE + 3] = parent;
+            }
+        }
+
+        private static int priority(int node) {
+            int h = node * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private int addType(String vehicleType) {
+            if (typeCount == types.length) {
+                types = Arrays.copyOf(types, typeCount * 2);
+                roots = Arrays.copyOf(roots, typeCount * 2);
+            }
+            types[typeCount] = vehicleType;
+            roots[typeCount] = NONE;
+            return typeCount++;
+        }
+
+        private int compare(int a, int b) {
+            return compare(a, nodes[b * STRIDE], (int) nodes[b * STRIDE + 1], b);
+        }
+
+        private int compare(int node, long second, int nano, int spot) {
+            int c = Long.compare(nodes[node * STRIDE], second);
+            if (c == 0) {
+                c = Integer.compare((int) nodes[node * STRIDE + 1], nano);
+            }
+            return c != 0 ? c : Integer.compare(node, spot);
+        }
+
+        private int insert(int root, int node) {
+            if (root == NONE) {
+                return node;
+            }
+            if (priority(node) > priority(root)) {
+                split(root, node);
+                setLeft(node, splitLeft);
+                setRight(node, splitRight);
+                return node;
+            }
+            if (compare(node, root) < 0) {
+                setLeft(root, insert(left(root), node));
+            } else {
+                setRight(root, insert(right(root), node));
+            }
+            return root;
+        }
+
+        /**
+         * Podziel poddrzewo na klucze mniejsze (splitLeft) i większe (splitRight) od klucza węzła.
+         */
+        private void split(int root, int node) {
+            if (root == NONE) {
+                splitLeft = NONE;
+                splitRight = NONE;
+            } else if (compare(root, node) < 0) {
+                split(right(root), node);
+                setRight(root, splitLeft);
+                splitLeft = root;
+            } else {
+                split(left(root), node);
+                setLeft(root, splitRight);
+                splitRight = root;
+            }
+        }
+
+        private int merge(int a, int b) {
+            if (a == NONE) {
+                return b;
+            }
+            if (b == NONE) {
+                return a;
+            }
+            if (priority(a) > priority(b)) {
+                setRight(a, merge(right(a), b));
+                return a;
+            }
+            setLeft(b, merge(a, left(b)));
+            return b;
+        }
+
+        /**
+         * Przejście drzewa w porządku kluczy z jawnym stosem przodków.
+         */
+        private final class Walk {
+            private final boolean descending;
+            private int[] stack = new int[64];
+            private int depth;
+
+            Walk(boolean descending) {
+                this.descending = descending;
+            }
+
+            void seekAbove(int node, long second, int nano, int spot) {
+                while (node != NONE) {
+                    if (compare(node, second, nano, spot) > 0) {
+                        push(node);
+                        node = left(node);
+                    } else {
+                        node = right(node);
+                    }
+                }
+            }
+
+            void seekBelow(int node, long second, int nano, int spot) {
+                while (node != NONE) {
+                    if (compare(node, second, nano, spot) < 0) {
+                        push(node);
+                        node = right(node);
+                    } else {
+                        node = left(node);
+                    }
+                }
+            }
+
+            int peek() {
+                return depth == 0 ? NONE : stack[depth - 1];
+            }
+
+            void advance() {
+                int node = stack[--depth];
+                node = descending ? left(node) : right(node);
+                while (node != NONE) {
+                    push(node);
+                    node = descending ? right(node) : left(node);
+                }
+            }
+
+            private void push(int node) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+            }
+        }
+    }
+
+    /**
+     * Pamięć ostatnich wizyt: ostatnia zakończona sesja dla ograniczonej liczby numerów rejestracyjnych.
+     * Wpisy przechowywane są kolumnowo w buforze cyklicznym przydzielonym z góry; nowy wyjazd zajmuje
+     * kolejną pozycję i wypiera najdawniej zapisany numer. Rekord ParkingRecord tworzony jest dopiero
+     * przy odczycie. Pamięć z PlateCodec przejmuje odwołanie do kodu zapisanego numeru i oddaje je,
+     * gdy wpis zostanie zastąpiony lub wyparty.
+     */
+    public static class LastVisitCache {
+        private final long[] plates;          // kody numerów (klucze), PlateCodec.INVALID = pusta pozycja
+        private final String[] licensePlates; // numery w postaci podanej przy wjeździe
+        private final String[] types;
+        private final long[] entrySeconds;
+        private final int[] entryNanos;
+        private final long[] exitSeconds;
+        private final int[] exitNanos;
+        private final long[] feeCents;
+        private final PlateTable index;
+        private final PlateCodec codec;
+        private int next;
+
+        /**
+         * Konstruktor pamięci.
+         *
+         * @param capacity maksymalna liczba zapamiętanych numerów.
+         */
+        public LastVisitCache(int capacity) {
+            this(capacity, null);
+        }
+
+        /**
+         * Konstruktor pamięci zwalniającej kody internowane.
+         *
+         * @param capacity maksymalna liczba zapamiętanych numerów.
+         * @param codec    koder, któremu oddawane są kody usuniętych wpisów (null - bez zwalniania).
+         */
+        public LastVisitCache(int capacity, PlateCodec codec) {
+            this.plates = new long[capacity];
+            Arrays.fill(plates, PlateCodec.INVALID);
+            this.licensePlates = new String[capacity];
+            this.types = new String[capacity];
+            this.entrySeconds = new long[capacity];
+            this.entryNanos = new int[capacity];
+            this.exitSeconds = new long[capacity];
+            this.exitNanos = new int[capacity];
+            this.feeCents = new long[capacity];
+            this.index = new PlateTable(capacity);
+            this.codec = codec;
+        }
+
+        /**
+         * Zapisz wizytę (czasy lokalne zapisane jako sekundy epoki UTC i nanosekundy).
+         */
+        public void put(long plate, String licensePlate, String type, long entrySecond, int entryNano,
+                        long exitSecond, int exitNano, long cents) {
+            int previous = index.remove(plate);
+            if (previous >= 0) {
+                plates[previous] = PlateCodec.INVALID;
+                release(plate);
+            }
+            int slot = next;
+            next = next + 1 == plates.length ? 0 : next + 1;
+            if (index.remove(plates[slot]) >= 0) {
+                release(plates[slot]);
+            }
+            plates[slot] = plate;
+            licensePlates[slot] = licensePlate;
+            types[slot] = type;
+            entrySeconds[slot] = entrySecond;
+            entryNanos[slot] = entryNano;
+            exitSeconds[slot] = exitSecond;
+            exitNanos[slot] = exitNano;
+            feeCents[slot] = cents;
+            index.put(plate, slot);
+        }
+
+        /**
+         * Pobierz ostatnią wizytę.
+         *
+         * @param plate kod numeru rejestracyjnego.
+         * @return rekord wizyty lub null.
+         */
+        public ParkingLot.ParkingRecord get(long plate) {
+            int slot = index.get(plate);
+            if (slot < 0) {
+                return null;
+            }
+            return new ParkingLot.ParkingRecord(licensePlates[slot], types[slot],
+                    LocalDateTime.ofEpochSecond(entrySeconds[slot], entryNanos[slot], ZoneOffset.UTC),
+                    LocalDateTime.ofEpochSecond(exitSeconds[slot], exitNanos[slot], ZoneOffset.UTC),
+                    feeCents[slot] / 100.0);
+        }
+
+        public int size() {
+            return index.size();
+        }
+
+        private void release(long plate) {
+            if (codec != null) {
+                codec.release(plate);
+            }
+        }
+    }
+
+    /**
+     * Bieżące sumy dnia: liczba zakończonych sesji i dochód, łącznie i w podziale na typ pojazdu.
+     * Aktualizowane przy każdym wyjeździe, więc podsumowanie dnia nie wymaga przeglądania rekordów.
+     * Liczniki oparte są na LongAdder/DoubleAdder, dzięki czemu mogą być współdzielone przez bramki.
+     */
+    public static class DailyTotals {
+        private final LongAdder vehicleCount = new LongAdder();
+        private final DoubleAdder totalIncome = new DoubleAdder();
+        private final ConcurrentHashMap<String, TypeTotals> byType = new ConcurrentHashMap<>();
+
+        /**
+         * Sumy dla jednego typu pojazdu.
+         */
+        private static class TypeTotals {
+            private final LongAdder count = new LongAdder();
+            private final DoubleAdder income = new DoubleAdder();
+        }
+
+        /**
+         * Dolicz zakończoną sesję.
+         *
+         * @param vehicleType typ pojazdu.
+         * @param fee         pobrana opłata.
+         */
+        void add(String vehicleType, double fee) {
+            TypeTotals totals = byType.get(vehicleType);
+            if (totals == null) {
+                totals = byType.computeIfAbsent(vehicleType, t -> new TypeTotals());
+            }
+            totals.count.increment();
+            totals.income.add(fee);
+            vehicleCount.increment();
+            totalIncome.add(fee);
+        }
+
+        /**
+         * Dolicz sumy typu wczytane z migawki.
+         *
+         * @param vehicleType typ pojazdu.
+         * @param count       liczba sesji.
+         * @param income      dochód.
+         */
+        void restore(String vehicleType, long count, double income) {
+            TypeTotals totals = byType.computeIfAbsent(vehicleType, t -> new TypeTotals());
+            totals.count.add(count);
+            totals.income.add(income);
+            vehicleCount.add(count);
+            totalIncome.add(income);
+        }
+
+        /**
+         * Wyzeruj sumy (nowy dzień).
+         */
+        void clear() {
+            vehicleCount.reset();
+            totalIncome.reset();
+            byType.clear();
+        }
+
+        /**
+         * Pobierz liczbę pojazdów, które wyjechały.
+         *
+         * @return liczba pojazdów.
+         */
+        public long getVehicleCount() {
+            return vehicleCount.sum();
+        }
+
+        /**
+         * Pobierz łączny dochód.
+         *
+         * @return dochód w jednostkach walutowych.
+         */
+        public double getTotalIncome() {
+            return totalIncome.sum();
+        }
+
+        /**
+         * Pobierz typy pojazdów, które wyjechały, w kolejności alfabetycznej.
+         *
+         * @return lista typów.
+         */
+        public List<String> getVehicleTypes() {
+            List<String> types = new ArrayList<>(byType.keySet());
+            Collections.sort(types);
+            return types;
+        }
+
+        /**
+         * Pobierz liczbę pojazdów danego typu, które wyjechały.
+         *
+         * @param vehicleType typ pojazdu.
+         * @return liczba pojazdów.
+         */
+        public long getVehicleCount(String vehicleType) {
+            TypeTotals totals = byType.get(vehicleType);
+            return totals == null ? 0 : totals.count.sum();
+        }
+
+        /**
+         * Pobierz dochód z pojazdów danego typu.
+         *
+         * @param vehicleType typ pojazdu.
+         * @return dochód w jednostkach walutowych.
+         */
+        public double getIncome(String vehicleType) {
+            TypeTotals totals = byType.get(vehicleType);
+            return totals == null ? 0.0 : totals.income.sum();
+        }
+    }
+
+    /**
+     * Strumieniowy zapis raportu dziennego.
+     * Wiersze są składane w jednym, wielokrotnie używanym buforze i od razu przekazywane do wyjścia,
+     * więc pełny raport nigdy nie jest budowany w pamięci. Daty zapisywane są w formacie
+     * yyyy-MM-dd HH:mm:ss bez pośrednich obiektów.
+     */
+    public static class DailyReportWriter {
+        private static final String HEADER = String.format("%-15s %-12s %-20s %-20s %-10s\n",
+                "Numer rejestracyjny", "Typ", "Czas wjazdu", "Czas wyjazdu", "Opłata");
+
+        private final Appendable out;
+        private final char decimalSeparator;
+        private final StringBuilder row = new StringBuilder(96);
+
+        /**
+         * Konstruktor piszący raport do podanego wyjścia.
+         *
+         * @param out wyjście (np. Writer lub StringBuilder).
+         */
+        public DailyReportWriter(Appendable out) {
+            this.out = out;
+            this.decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        }
+
+        /**
+         * Zapisz pełny raport: nagłówek, wiersze rekordów i podsumowanie z bieżących sum.
+         *
+         * @param records rekordy zakończonych sesji.
+         * @param totals  bieżące sumy dnia.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeReport(Iterable<ParkingLot.ParkingRecord> records, DailyTotals totals) throws IOException {
+            out.append("Dzienny Raport Parkingowy\n");
+            out.append("====================\n");
+            if (totals.getVehicleCount() == 0) {
+                out.append("Dziś nie wyjechały żadne pojazdy.\n");
+                return;
+            }
+            out.append(HEADER);
+            for (ParkingLot.ParkingRecord record : records) {
+                writeRecord(record);
+            }
+            writeSummary(totals);
+        }
+
+        /**
+         * Zapisz pojedynczy wiersz raportu.
+         *
+         * @param record rekord sesji.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeRecord(ParkingLot.ParkingRecord record) throws IOException {
+            row.setLength(0);
+            padRight(record.getLicensePlate(), 15);
+            padRight(record.getVehicleType(), 12);
+            appendDateTime(record.getEntryTime());
+            appendDateTime(record.getExitTime());
+            appendAmount(record.getFee(), 8);
+            row.append('\n');
+            out.append(row);
+        }
+
+        /**
+         * Zapisz podsumowanie raportu.
+         *
+         * @param totals bieżące sumy dnia.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeSummary(DailyTotals totals) throws IOException {
+            out.append("====================\n");
+            out.append(String.format("Łączna liczba wyjeżdżających pojazdów: %d\n", totals.getVehicleCount()));
+            out.append(String.format("Łączny dochód: %.2f\n", totals.getTotalIncome()));
+            for (String type : totals.getVehicleTypes()) {
+                out.append(String.format("  %-15s pojazdy: %d, dochód: %.2f\n",
+                        type, totals.getVehicleCount(type), totals.getIncome(type)));
+            }
+        }
+
+        private void appendDateTime(LocalDateTime t) {
+            appendDigits(t.getYear(), 4).append('-');
+            appendDigits(t.getMonthValue(), 2).append('-');
+            appendDigits(t.getDayOfMonth(), 2).append(' ');
+            appendDigits(t.getHour(), 2).append(':');
+            appendDigits(t.getMinute(), 2).append(':');
+            appendDigits(t.getSecond(), 2).append("  ");
+        }
+
+        private StringBuilder appendDigits(int value, int width) {
+            for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+                row.append((char) ('0' + (value / divisor) % 10));
+            }
+            return row;
+        }
+
+        private void padRight(String value, int width) {
+            int start = row.length();
+            row.append(value);
+            pad(start, width + 1);
+        }
+
+        private void pad(int start, int width) {
+            while (row.length() - start < width) {
+                row.append(' ');
+            }
+            if (row.charAt(row.length() - 1) != ' ') {
+                row.append(' ');
+            }
+        }
+
+        private void appendAmount(double amount, int width) {
+            long cents = Math.round(Math.abs(amount) * 100);
+            int start = row.length();
+            if (amount < 0 && cents != 0) {
+                row.append('-');
+            }
+            row.append(cents / 100).append(decimalSeparator);
+            long fraction = cents % 100;
+            if (fraction < 10) {
+                row.append('0');
+            }
+            row.append(fraction);
+            while (row.length() - start < width) {
+                row.insert(start, ' ');
+            }
+        }
+    }
+
+    /**
+     * Kolumnowy magazyn zakończonych sesji parkowania.
+     * Każda kolumna to tablica prymitywna: czasy wjazdu i wyjazdu jako sekundy epoki (UTC),
+     * typ pojazdu jako numer porządkowy, opłata w groszach, numer rejestracyjny jako identyfikator
+     * ze słownika. Wiersz zajmuje 29 bajtów zamiast ponad 150 dla obiektu ParkingRecord
+     * z dwoma LocalDateTime. Rekordy udostępniane są jako widoki ParkingRecord tworzone na żądanie.
+     * Czasy przechowywane są z dokładnością do sekundy.
+     */
+    public static class ParkingRecordStore implements Iterable<ParkingLot.ParkingRecord> {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] entryTimes = new long[INITIAL_CAPACITY];
+        private long[] exitTimes = new long[INITIAL_CAPACITY];
+        private byte[] typeIds = new byte[INITIAL_CAPACITY];
+        private long[] feeCents = new long[INITIAL_CAPACITY];
+        private int[] plateIds = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private String[] typeNames = new String[8];
+        private int typeCount;
+        private final Map<String, Integer> typeDictionary = new HashMap<>();
+        private String[] plateNames = new String[INITIAL_CAPACITY];
+        private int plateCount;
+        private final Map<String, Integer> plateDictionary = new HashMap<>();
+        private boolean shared; // tablice udostępnione migawce: wiersze [0, size) nie mogą się zmienić
+
+        /**
+         * Dodaj zakończoną sesję.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @param vehicleType  typ pojazdu.
+         * @param entryTime    czas wjazdu.
+         * @param exitTime     czas wyjazdu.
+         * @param fee          opłata w jednostkach walutowych.
+         * @return indeks dodanego wiersza.
+         */
+        public int add(String licensePlate, String vehicleType,
+                       LocalDateTime entryTime, LocalDateTime exitTime, double fee) {
+            return add(plateId(licensePlate), typeId(vehicleType),
+                    entryTime.toEpochSecond(ZoneOffset.UTC), exitTime.toEpochSecond(ZoneOffset.UTC),
+                    Math.round(fee * 100));
+        }
+
+        /**
+         * Dodaj zakończoną sesję opisaną obiektem ParkingRecord.
+         *
+         * @param record rekord sesji.
+         * @return indeks dodanego wiersza.
+         */
+        public int add(ParkingLot.ParkingRecord record) {
+            return add(record.getLicensePlate(), record.getVehicleType(),
+                    record.getEntryTime(), record.getExitTime(), record.getFee());
+        }
+
+        /**
+         * Dodaj wiersz z wartości już zakodowanych.
+         *
+         * @param plateId       identyfikator numeru rejestracyjnego ze słownika.
+         * @param typeId        numer porządkowy typu pojazdu.
+         * @param entryEpochSec czas wjazdu w sekundach epoki (UTC).
+         * @param exitEpochSec  czas wyjazdu w sekundach epoki (UTC).
+         * @param cents         opłata w groszach.
+         * @return indeks dodanego wiersza.
+         */
+        public int add(int plateId, int typeId, long entryEpochSec, long exitEpochSec, long cents) {
+            if (size == entryTimes.length) {
+                grow();
+            }
+            entryTimes[size] = entryEpochSec;
+            exitTimes[size] = exitEpochSec;
+            typeIds[size] = (byte) typeId;
+            feeCents[size] = cents;
+            plateIds[size] = plateId;
+            return size++;
+        }
+
+        /**
+         * Powiększ kolumny tak, aby pomieściły co najmniej podaną liczbę wierszy.
+         *
+         * @param rows wymagana pojemność.
+         */
+        public void ensureCapacity(int rows) {
+            if (rows > entryTimes.length) {
+                resize(rows);
+            }
+        }
+
+        private void grow() {
+            resize(entryTimes.length + (entryTimes.length >> 1));
+        }
+
+        private void resize(int newCapacity) {
+            entryTimes = Arrays.copyOf(entryTimes, newCapacity);
+            exitTimes = Arrays.copyOf(exitTimes, newCapacity);
+            typeIds = Arrays.copyOf(typeIds, newCapacity);
+            feeCents = Arrays.copyOf(feeCents, newCapacity);
+            plateIds = Arrays.copyOf(plateIds, newCapacity);
+        }
+
+        /**
+         * Pobierz (lub nadaj) identyfikator numeru rejestracyjnego w słowniku.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return identyfikator numeru.
+         */
+        public int plateId(String licensePlate) {
+            Integer id = plateDictionary.get(licensePlate);
+            if (id == null) {
+                if (plateCount == plateNames.length) {
+                    plateNames = Arrays.copyOf(plateNames, plateCount + (plateCount >> 1));
+                }
+                id = plateCount;
+                plateNames[plateCount++] = licensePlate;
+                plateDictionary.put(licensePlate, id);
+            }
+            return id;
+        }
+
+        /**
+         * Pobierz (lub nadaj) numer porządkowy typu pojazdu.
+         *
+         * @param vehicleType typ pojazdu.
+         * @return numer porządkowy typu.
+         */
+        public int typeId(String vehicleType) {
+            Integer id = typeDictionary.get(vehicleType);
+            if (id == null) {
+                if (typeCount > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Zbyt wiele typów pojazdów");
+                }
+                if (typeCount == typeNames.length) {
+                    typeNames = Arrays.copyOf(typeNames, typeCount * 2);
+                }
+                id = typeCount;
+                typeNames[typeCount++] = vehicleType;
+                typeDictionary.put(vehicleType, id);
+            }
+            return id;
+        }
+
+        /**
+         * Znajdź numer porządkowy typu pojazdu bez dodawania go do słownika.
+         *
+         * @param vehicleType typ pojazdu.
+         * @return numer porządkowy lub -1, jeśli typ nie występuje.
+         */
+        public int findTypeId(String vehicleType) {
+            Integer id = typeDictionary.get(vehicleType);
+            return id == null ? -1 : id;
+        }
+
+        /**
+         * Obserwator dopisujący do magazynu każdą zakończoną sesję parkingu. Pozwala gromadzić
+         * historię wielu dni (np. do OccupancyIndex), niezależnie od czyszczenia raportu dziennego.
+         *
+         * @return obserwator do rejestracji przez ParkingLot.addListener.
+         */
+        public ParkingLotListener recorder() {
+            return new ParkingLotListener() {
+                @Override
+                public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+                    add(record);
+                }
+            };
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Usuń wszystkie wiersze. Słowniki numerów i typów są zachowywane, aby identyfikatory
+         * pozostały stałe (np. magazyn historii wielu dni); słowniki rosną wtedy z każdym nowym numerem,
+         * więc magazyn dnia należy czyścić przez reset(). Jeśli kolumny udostępniono migawce, nowe wiersze
+         * trafiają do świeżych tablic o tej samej pojemności.
+         */
+        public void clear() {
+            if (shared) {
+                entryTimes = new long[entryTimes.length];
+                exitTimes = new long[exitTimes.length];
+                typeIds = new byte[typeIds.length];
+                feeCents = new long[feeCents.length];
+                plateIds = new int[plateIds.length];
+                shared = false;
+            }
+            size = 0;
+        }
+
+        /**
+         * Usuń wszystkie wiersze i wyczyść słowniki numerów i typów, np. przed ponownym użyciem magazynu
+         * dla kolejnego dnia; pojemność kolumn jest zachowywana.
+         */
+        public void reset() {
+            boolean wasShared = shared;
+            clear();
+            if (wasShared) {
+                plateNames = new String[plateNames.length];
+                typeNames = new String[typeNames.length];
+            } else {
+                Arrays.fill(plateNames, 0, plateCount, null);
+                Arrays.fill(typeNames, 0, typeCount, null);
+            }
+            plateCount = 0;
+            typeCount = 0;
+            plateDictionary.clear();
+            typeDictionary.clear();
+        }
+
+        /**
+         * Oznacz kolumny i słowniki jako udostępnione migawce. Kolumny i słowniki są tylko dopisywane
+         * (powiększenie kopiuje je do nowych tablic), więc (tablica, rozmiar) pobrane teraz pozostają
+         * niezmienne; jedynie clear() musi wtedy przydzielić nowe kolumny.
+         */
+        void share() {
+            shared = true;
+        }
+
+        public long getEntryEpochSecond(int index) {
+            checkIndex(index);
+            return entryTimes[index];
+        }
+
+        public long getExitEpochSecond(int index) {
+            checkIndex(index);
+            return exitTimes[index];
+        }
+
+        public int getTypeId(int index) {
+            checkIndex(index);
+            return typeIds[index];
+        }
+
+        public long getFeeCents(int index) {
+            checkIndex(index);
+            return feeCents[index];
+        }
+
+        public int getPlateId(int index) {
+            checkIndex(index);
+            return plateIds[index];
+        }
+
+        /**
+         * Pobierz numer rejestracyjny o danym identyfikatorze.
+         *
+         * @param plateId identyfikator ze słownika.
+         * @return numer rejestracyjny.
+         */
+        public String plateName(int plateId) {
+            return plateNames[plateId];
+        }
+
+        /**
+         * Pobierz nazwę typu pojazdu o danym numerze porządkowym.
+         *
+         * @param typeId numer porządkowy typu.
+         * @return nazwa typu.
+         */
+        public String typeName(int typeId) {
+            return typeNames[typeId];
+        }
+
+        /**
+         * Pobierz wiersz jako obiekt ParkingRecord.
+         *
+         * @param index indeks wiersza.
+         * @return widok rekordu.
+         */
+        public ParkingLot.ParkingRecord get(int index) {
+            checkIndex(index);
+            return new ParkingLot.ParkingRecord(plateNames[plateIds[index]], typeNames[typeIds[index]],
+                    LocalDateTime.ofEpochSecond(entryTimes[index], 0, ZoneOffset.UTC),
+                    LocalDateTime.ofEpochSecond(exitTimes[index], 0, ZoneOffset.UTC),
+                    feeCents[index] / 100.0);
+        }
+
+        /**
+         * Przybliżony rozmiar kolumn w bajtach (bez słowników).
+         *
+         * @return liczba bajtów zajmowanych przez kolumny.
+         */
+        public long columnBytes() {
+            return (long) entryTimes.length * (8 + 8 + 1 + 8 + 4);
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Indeks: " + index + ", rozmiar: " + size);
+            }
+        }
+
+        @Override
+        public Iterator<ParkingLot.ParkingRecord> iterator() {
+            return new Iterator<ParkingLot.ParkingRecord>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public ParkingLot.ParkingRecord next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(next++);
+                }
+            };
+        }
+    }
+
+    /**
+     * Indeks czasowy zakończonych sesji z ParkingRecordStore (sesja zajmuje miejsce w przedziale
+     * [wjazd, wyjazd); wyjazd wcześniejszy niż wjazd traktowany jest jak równy wjazdowi). Zdarzenia wjazdu i wyjazdu są posortowane, a zajętość po każdym zdarzeniu
+     * trzymana w drzewie przedziałowym maksimum; sesje uporządkowane według wjazdu mają drzewo
+     * maksymalnego czasu wyjazdu. Zajętość w chwili, szczyt w przedziale i liczba sesji
+     * nachodzących na okno liczone są w czasie O(log n), a lista takich sesji w O((k + 1) log n).
+     * Indeks jest niezmienną migawką; czasy przechowywane są jako sekundy względem najwcześniejszego
+     * wjazdu (około 40 bajtów na sesję).
+     */
+    public static class OccupancyIndex {
+        private final ParkingRecordStore store;
+        private final long base;          // sekunda epoki (UTC) odpowiadająca wartości 0
+        private final int size;           // liczba sesji
+        private final int[] entryTimes;   // czasy wjazdu w kolejności rosnącej
+        private final int[] rowsByEntry;  // indeksy wierszy magazynu w tej samej kolejności
+        private final int leaves;         // liczba liści drzewa wyjazdów (potęga dwójki)
+        private final int[] exitMaxTree;  // maksimum czasu wyjazdu w poddrzewie (kolejność wjazdu)
+        private final int[] eventTimes;   // czasy zdarzeń rosnąco, wyjazdy przed wjazdami w tej samej chwili
+        private final int[] occupancyTree; // drzewo maksimum; liście: zajętość po zdarzeniu i
+
+        private OccupancyIndex(ParkingRecordStore store, int typeId) {
+            this.store = store;
+            int n = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < store.size(); i++) {
+                if (typeId < 0 || store.getTypeId(i) == typeId) {
+                    n++;
+                    min = Math.min(min, store.getEntryEpochSecond(i));
+                    max = Math.max(max, Math.max(store.getExitEpochSecond(i), store.getEntryEpochSecond(i)));
+                }
+            }
+            this.size = n;
+            this.base = n == 0 ? 0 : min;
+            if (n > 0 && max - min >= Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Zakres czasu sesji jest zbyt duży dla indeksu");
+            }
+            long[] byEntry = new long[n];
+            long[] events = new long[2 * n];
+            int k = 0;
+            for (int i = 0; i < store.size(); i++) {
+                if (typeId < 0 || store.getTypeId(i) == typeId) {
+                    long entry = store.getEntryEpochSecond(i) - base;
+                    long exit = Math.max(store.getExitEpochSecond(i) - base, entry);
+                    byEntry[k] = entry << 32 | i;
+                    events[2 * k] = exit << 1;          // wyjazd: -1
+                    events[2 * k + 1] = entry << 1 | 1; // wjazd: +1
+                    k++;
+                }
+            }
+            Arrays.sort(byEntry);
+            Arrays.sort(events);
+
+            this.entryTimes = new int[n];
+            this.rowsByEntry = new int[n];
+            this.leaves = Integer.highestOneBit(Math.max(n, 1) * 2 - 1);
+            this.exitMaxTree = new int[2 * leaves];
+            Arrays.fill(exitMaxTree, Integer.MIN_VALUE);
+            for (int i = 0; i < n; i++) {
+                entryTimes[i] = (int) (byEntry[i] >>> 32);
+                rowsByEntry[i] = (int) byEntry[i];
+                // wyjazd przycięty do wjazdu tak jak w zdarzeniach
+                exitMaxTree[leaves + i] = (int) Math.max(store.getExitEpochSecond(rowsByEntry[i]) - base, entryTimes[i]);
+            }
+            for (int i = leaves - 1; i > 0; i--) {
+                exitMaxTree[i] = Math.max(exitMaxTree[2 * i], exitMaxTree[2 * i + 1]);
+            }
+
+            int e = events.length;
+            this.eventTimes = new int[e];
+            this.occupancyTree = new int[2 * e];
+            int occupancy = 0;
+            for (int i = 0; i < e; i++) {
+                eventTimes[i] = (int) (events[i] >>> 1);
+                occupancy += (events[i] & 1) == 1 ? 1 : -1;
+                occupancyTree[e + i] = occupancy;
+            }
+            for (int i = e - 1; i > 0; i--) {
+                occupancyTree[i] = Math.max(occupancyTree[2 * i], occupancyTree[2 * i + 1]);
+            }
+        }
+
+        /**
+         * Zbuduj indeks wszystkich sesji z magazynu.
+         *
+         * @param store magazyn rekordów.
+         * @return indeks.
+         */
+        public static OccupancyIndex build(ParkingRecordStore store) {
+            return new OccupancyIndex(store, -1);
+        }
+
+        /**
+         * Zbuduj indeks sesji jednego typu pojazdu.
+         *
+         * @param store       magazyn rekordów.
+         * @param vehicleType typ pojazdu (jak w Vehicle.getType()).
+         * @return indeks (pusty, jeśli w magazynie nie ma tego typu).
+         */
+        public static OccupancyIndex build(ParkingRecordStore store, String vehicleType) {
+            int typeId = store.findTypeId(vehicleType);
+            return new OccupancyIndex(typeId < 0 ? new ParkingRecordStore() : store, typeId < 0 ? -1 : typeId);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private long offset(LocalDateTime time) {
+            return time.toEpochSecond(ZoneOffset.UTC) - base;
+        }
+
+        /**
+         * Liczba elementów tablicy (rosnącej) nie większych niż key.
+         */
+        private static int countAtMost(int[] sorted, long key) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int occupancyAfter(int events) {
+            return events == 0 ? 0 : occupancyTree[eventTimes.length + events - 1];
+        }
+
+        /**
+         * Liczba pojazdów na parkingu w danej chwili.
+         *
+         * @param time chwila.
+         * @return liczba sesji z wjazdem nie później i wyjazdem później niż time.
+         */
+        public int occupancyAt(LocalDateTime time) {
+            return occupancyAfter(countAtMost(eventTimes, offset(time)));
+        }
+
+        /**
+         * Największa zajętość w przedziale [from, to].
+         *
+         * @param from początek przedziału.
+         * @param to   koniec przedziału (włącznie).
+         * @return szczytowa liczba pojazdów.
+         */
+        public int peakOccupancy(LocalDateTime from, LocalDateTime to) {
+            int first = countAtMost(eventTimes, offset(from));
+            int last = countAtMost(eventTimes, offset(to));
+            int peak = occupancyAfter(first);
+            int e = eventTimes.length;
+            for (int l = first + e, r = last + e; l < r; l >>>= 1, r >>>= 1) {
+                if ((l & 1) == 1) {
+                    peak = Math.max(peak, occupancyTree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    peak = Math.max(peak, occupancyTree[--r]);
+                }
+            }
+            return peak;
+        }
+
+        /**
+         * Liczba sesji nachodzących na okno [from, to): wjazd przed to i wyjazd po from. Sesja zerowej
+         * długości leżąca wewnątrz okna jest liczona, tak jak w sessionsOverlapping.
+         *
+         * @param from początek okna.
+         * @param to   koniec okna (wyłącznie).
+         * @return liczba sesji.
+         */
+        public int countOverlapping(LocalDateTime from, LocalDateTime to) {
+            long f = offset(from);
+            long t = offset(to);
+            if (t <= f) {
+                return 0;
+            }
+            // wjazd przed końcem okna, minus sesje zakończone do jego początku
+            int enteredBeforeEnd = countAtMost(entryTimes, t - 1);
+            int endedByStart = countAtMost(entryTimes, f) - occupancyAt(from);
+            return enteredBeforeEnd - endedByStart;
+        }
+
+        /**
+         * Sesje nachodzące na okno [from, to) (jak w countOverlapping), w kolejności czasu wjazdu.
+         *
+         * @param from początek okna.
+         * @param to   koniec okna (wyłącznie).
+         * @return rekordy sesji.
+         */
+        public List<ParkingLot.ParkingRecord> sessionsOverlapping(LocalDateTime from, LocalDateTime to) {
+            long f = offset(from);
+            long t = offset(to);
+            List<ParkingLot.ParkingRecord> result = new ArrayList<>();
+            if (t <= f || size == 0) {
+                return result;
+            }
+            collect(1, 0, leaves, countAtMost(entryTimes, t - 1), f, result);
+            return result;
+        }
+
+        /**
+         * Zbierz sesje o pozycji w [lo, hi) ∩ [0, end) i wyjeździe po chwili from,
+         * pomijając poddrzewa, których maksymalny wyjazd nie przekracza from.
+         */
+        private void collect(int node, int lo, int hi, int end, long from, List<ParkingLot.ParkingRecord> out) {
+            if (lo >= end || exitMaxTree[node] <= from) {
+                return;
+            }
+            if (hi - lo == 1) {
+                out.add(store.get(rowsByEntry[lo]));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            collect(2 * node, lo, mid, end, from, out);
+            collect(2 * node + 1, mid, hi, end, from, out);
+        }
+    }
+
+    /**
+     * Definicja taryfy parkingowej: stawka podstawowa, stawka weekendowa, pasma godzinowe,
+     * darmowe pierwsze minuty, jednostka rozliczenia i limit dzienny. Kwoty podawane są w groszach za godzinę.
+     * Definicja jest kompilowana do obiektu Tariff z tablicami zależnymi od minuty tygodnia.
+     */
+    public static class TariffDefinition {
+        private final long hourlyRateCents;
+        private long weekendRateCents = -1;
+        private final List<long[]> bands = new ArrayList<>(); // {maska dni, od minuty, do minuty, stawka}
+        private int freeMinutes;
+        private int billingUnitMinutes = 60;
+        private long dailyCapCents;
+
+        /**
+         * Konstruktor definicji.
+         *
+         * @param hourlyRateCents stawka podstawowa w groszach za godzinę.
+         */
+        public TariffDefinition(long hourlyRateCents) {
+            if (hourlyRateCents < 0) {
+                throw new IllegalArgumentException("Stawka nie może być ujemna");
+            }
+            this.hourlyRateCents = hourlyRateCents;
+        }
+
+        /**
+         * Ustaw stawkę obowiązującą przez całą sobotę i niedzielę (przed zastosowaniem pasm).
+         *
+         * @param hourlyRateCents stawka w groszach za godzinę.
+         * @return ta definicja.
+         */
+        public TariffDefinition weekendRate(long hourlyRateCents) {
+            if (hourlyRateCents < 0) {
+                throw new IllegalArgumentException("Stawka nie może być ujemna");
+            }
+            this.weekendRateCents = hourlyRateCents;
+            return this;
+        }
+
+        /**
+         * Dodaj pasmo godzinowe. Pasma dodane później mają pierwszeństwo; pasmo, w którym
+         * from jest późniejsze niż to, przechodzi przez północ.
+         *
+         * @param from            początek pasma.
+         * @param to              koniec pasma (wyłącznie).
+         * @param hourlyRateCents stawka w groszach za godzinę.
+         * @param days            dni obowiązywania (brak = wszystkie dni).
+         * @return ta definicja.
+         */
+        public TariffDefinition band(LocalTime from, LocalTime to, long hourlyRateCents, DayOfWeek... days) {
+            if (hourlyRateCents < 0) {
+                throw new IllegalArgumentException("Stawka nie może być ujemna");
+            }
+            long mask = days.length == 0 ? 0x7F : 0;
+            for (DayOfWeek day : days) {
+                mask |= 1L << (day.getValue() - 1);
+            }
+            bands.add(new long[]{mask, from.getHour() * 60L + from.getMinute(),
+                    to.getHour() * 60L + to.getMinute(), hourlyRateCents});
+            return this;
+        }
+
+        /**
+         * Ustaw liczbę darmowych minut na początku każdego postoju.
+         *
+         * @param minutes liczba darmowych minut.
+         * @return ta definicja.
+         */
+        public TariffDefinition freeMinutes(int minutes) {
+            if (minutes < 0) {
+                throw new IllegalArgumentException("Liczba minut nie może być ujemna");
+            }
+            this.freeMinutes = minutes;
+            return this;
+        }
+
+        /**
+         * Ustaw jednostkę rozliczenia: rozpoczęta jednostka jest płatna w całości (domyślnie 60 minut).
+         *
+         * @param minutes długość jednostki w minutach.
+         * @return ta definicja.
+         */
+        public TariffDefinition billingUnitMinutes(int minutes) {
+            if (minutes <= 0) {
+                throw new IllegalArgumentException("Jednostka rozliczenia musi być dodatnia");
+            }
+            this.billingUnitMinutes = minutes;
+            return this;
+        }
+
+        /**
+         * Ustaw maksymalną opłatę za każde rozpoczęte 24 godziny postoju.
+         *
+         * @param cents limit w groszach (0 = brak limitu).
+         * @return ta definicja.
+         */
+        public TariffDefinition dailyCap(long cents) {
+            if (cents < 0) {
+                throw new IllegalArgumentException("Limit nie może być ujemny");
+            }
+            this.dailyCapCents = cents;
+            return this;
+        }
+
+        /**
+         * Skompiluj definicję do tablic wyszukiwania.
+         *
+         * @return skompilowana taryfa.
+         */
+        public Tariff compile() {
+            long[] ratePerMinute = new long[Tariff.MINUTES_PER_WEEK];
+            for (int m = 0; m < Tariff.MINUTES_PER_WEEK; m++) {
+                int day = m / Tariff.MINUTES_PER_DAY; // 0 = poniedziałek
+                ratePerMinute[m] = day >= 5 && weekendRateCents >= 0 ? weekendRateCents : hourlyRateCents;
+            }
+            for (long[] band : bands) {
+                for (int m = 0; m < Tariff.MINUTES_PER_WEEK; m++) {
+                    int day = m / Tariff.MINUTES_PER_DAY;
+                    int minuteOfDay = m % Tariff.MINUTES_PER_DAY;
+                    boolean inBand = band[1] <= band[2]
+                            ? minuteOfDay >= band[1] && minuteOfDay < band[2]
+                            : minuteOfDay >= band[1] || minuteOfDay < band[2];
+                    if (!inBand) {
+                        continue;
+                    }
+                    // Dla pasma przez północ część poranna należy do dnia, w którym pasmo się zaczęło.
+                    int bandDay = band[1] > band[2] && minuteOfDay < band[2] ? (day + 6) % 7 : day;
+                    if ((band[0] & (1L << bandDay)) != 0) {
+                        ratePerMinute[m] = band[3];
+                    }
+                }
+            }
+            return new Tariff(ratePerMinute, freeMinutes, billingUnitMinutes, dailyCapCents);
+        }
+    }
+
+    /**
+     * Skompilowana taryfa. Cena każdej minuty tygodnia (w 1/60 grosza, czyli stawka godzinowa w groszach)
+     * zapisana jest w tablicy sum prefiksowych, a koszt każdej doby z limitem dziennym wyliczony z góry,
+     * więc opłata za postój dowolnej długości liczona jest w czasie stałym i bez alokacji.
+     * Kwoty są dokładne, w groszach.
+     */
+    public static class Tariff {
+        static final int MINUTES_PER_DAY = 24 * 60;
+        static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+        private static final int EPOCH_MINUTE_OF_WEEK = 3 * MINUTES_PER_DAY; // 1970-01-01 był czwartkiem
+
+        private final long[] prefix;    // prefix[m] = suma cen minut [0, m) tygodnia
+        private final long[] dayCost;   // koszt doby od minuty m z limitem (1/60 grosza)
+        private final long[] weekCost;  // koszt 7 kolejnych dób od minuty m z limitem
+        private final int freeMinutes;
+        private final int billingUnitMinutes;
+        private final long dailyCap;    // 1/60 grosza, 0 = brak limitu
+
+        Tariff(long[] ratePerMinute, int freeMinutes, int billingUnitMinutes, long dailyCapCents) {
+            this.freeMinutes = freeMinutes;
+            this.billingUnitMinutes = billingUnitMinutes;
+            this.dailyCap = dailyCapCents * 60;
+            this.prefix = new long[MINUTES_PER_WEEK + 1];
+            for (int m = 0; m < MINUTES_PER_WEEK; m++) {
+                prefix[m + 1] = prefix[m] + ratePerMinute[m];
+            }
+            if (dailyCap > 0) {
+                this.dayCost = new long[MINUTES_PER_WEEK];
+                this.weekCost = new long[MINUTES_PER_WEEK];
+                for (int m = 0; m < MINUTES_PER_WEEK; m++) {
+                    dayCost[m] = Math.min(dailyCap, cost(m, MINUTES_PER_DAY));
+                }
+                for (int m = 0; m < MINUTES_PER_WEEK; m++) {
+                    long sum = 0;
+                    for (int d = 0; d < 7; d++) {
+                        sum += dayCost[(m + d * MINUTES_PER_DAY) % MINUTES_PER_WEEK];
+                    }
+                    weekCost[m] = sum;
+                }
+            } else {
+                this.dayCost = null;
+                this.weekCost = null;
+            }
+        }
+
+        /**
+         * Taryfa o stałej stawce godzinowej, rozliczana za każdą rozpoczętą godzinę.
+         *
+         * @param hourlyRate stawka w jednostkach walutowych za godzinę.
+         * @return skompilowana taryfa.
+         */
+        public static Tariff flat(double hourlyRate) {
+            return new TariffDefinition(Math.round(hourlyRate * 100)).compile();
+        }
+
+        /**
+         * Oblicz opłatę za postój. Czas postoju liczony jest w pełnych minutach z uwzględnieniem
+         * nanosekund, tak jak liczba godzin w ParkingPayment.
+         *
+         * @param entryTime czas wjazdu.
+         * @param exitTime  czas wyjazdu.
+         * @return opłata w groszach.
+         */
+        public long feeCents(LocalDateTime entryTime, LocalDateTime exitTime) {
+            long entrySecond = entryTime.toEpochSecond(ZoneOffset.UTC);
+            return feeCentsForMinutes(entrySecond, ParkingLot.billableMinutes(entrySecond, entryTime.getNano(),
+                    exitTime.toEpochSecond(ZoneOffset.UTC), exitTime.getNano()));
+        }
+
+        /**
+         * Oblicz opłatę za postój podany w pełnych sekundach epoki (czas lokalny zapisany jako UTC).
+         *
+         * @param entryEpochSecond czas wjazdu.
+         * @param exitEpochSecond  czas wyjazdu.
+         * @return opłata w groszach.
+         */
+        public long feeCents(long entryEpochSecond, long exitEpochSecond) {
+            return feeCentsForMinutes(entryEpochSecond,
+                    ParkingLot.billableMinutes(entryEpochSecond, 0, exitEpochSecond, 0));
+        }
+
+        /**
+         * Oblicz opłatę za postój o znanej liczbie pełnych minut (ParkingLot.billableMinutes).
+         *
+         * @param entryEpochSecond czas wjazdu w sekundach epoki; wyznacza minutę tygodnia początku postoju.
+         * @param minutesParked    liczba pełnych minut postoju.
+         * @return opłata w groszach.
+         */
+        public long feeCentsForMinutes(long entryEpochSecond, long minutesParked) {
+            long billable = minutesParked - freeMinutes;
+            if (billable <= 0) {
+                return 0;
+            }
+            long billed = (billable + billingUnitMinutes - 1) / billingUnitMinutes * billingUnitMinutes;
+            int start = (int) Math.floorMod(Math.floorDiv(entryEpochSecond, 60) + freeMinutes
+                    + EPOCH_MINUTE_OF_WEEK, (long) MINUTES_PER_WEEK);
+            long total;
+            if (dailyCap == 0) {
+                total = cost(start, billed);
+            } else {
+                long days = billed / MINUTES_PER_DAY;
+                total = (days / 7) * weekCost[start];
+                int m = start;
+                for (long d = days % 7; d > 0; d--) {
+                    total += dayCost[m];
+                    m = (m + MINUTES_PER_DAY) % MINUTES_PER_WEEK;
+                }
+                total += Math.min(dailyCap, cost(m, billed % MINUTES_PER_DAY));
+            }
+            return (total + 59) / 60;
+        }
+
+        /**
+         * Koszt (w 1/60 grosza) length minut od minuty tygodnia start.
+         */
+        private long cost(int start, long length) {
+            long total = (length / MINUTES_PER_WEEK) * prefix[MINUTES_PER_WEEK];
+            int rest = (int) (length % MINUTES_PER_WEEK);
+            int end = start + rest;
+            if (end <= MINUTES_PER_WEEK) {
+                return total + prefix[end] - prefix[start];
+            }
+            return total + prefix[MINUTES_PER_WEEK] - prefix[start] + prefix[end - MINUTES_PER_WEEK];
+        }
+    }
+
+    /**
+     * Obserwator zdarzeń parkingu. Wywoływany synchronicznie przez ParkingLot
+     * po każdej udanej operacji; domyślne implementacje nic nie robią.
+     */
+    public interface ParkingLotListener {
+
+        /**
+         * Pojazd wjechał i zajął miejsce.
+         *
+         * @param vehicle    zaparkowany pojazd.
+         * @param spotNumber numer zajętego miejsca.
+         */
+        default void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+        }
+
+        /**
+         * Pojazd wyjechał, sesja została rozliczona.
+         *
+         * @param record     rekord zakończonej sesji.
+         * @param spotNumber numer zwolnionego miejsca.
+         */
+        default void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+        }
+
+        /**
+         * Raport dzienny został wyczyszczony (nowy dzień).
+         */
+        default void onDailyReportCleared() {
+        }
+
+        /**
+         * Zakończono operację wsadową (enterVehicles/exitVehicles); wszystkie jej zdarzenia
+         * zostały już przekazane.
+         */
+        default void onBatchCompleted() {
+        }
+    }
+
+    /**
+     * Klasa reprezentująca parking.
+     * Zarządza miejscami parkingowymi, wjazdami i wyjazdami pojazdów, obliczaniem opłat i raportowaniem.
+     */
+    public static class ParkingLot {
+        private static final int LAST_VISIT_CACHE_SIZE = 10_000; // pełna historia: PlateHistoryStore
+        private static final SpotSize[] CAR_SPOTS = {SpotSize.COMPACT, SpotSize.STANDARD, SpotSize.VAN};
+        private static final SpotSize[] VAN_SPOTS = {SpotSize.VAN};
+        private static final SpotSize[] STANDARD_ONLY = {SpotSize.STANDARD};
+
+        private final int capacity;
+        private final List<ParkingSpot> spots;
+        private final FreeSpotIndex freeSpots; // indeks wolnych miejsc i licznik zajętości
+        // Podział na klasy wielkości (null dla parkingu bez klas): dla każdej klasy miejsca
+        // uporządkowane od najbliższego bramce i indeks wolnych pozycji w tym porządku.
+        private final int[][] classOrder;      // klasa -> pozycja -> indeks miejsca
+        private final int[] classRank;         // indeks miejsca -> pozycja w swojej klasie
+        private final FreeSpotIndex[] classFree;
+        private final Map<String, SpotSize[]> spotPreferences = new HashMap<>(); // typ pojazdu -> klasy
+        private final PlateCodec plateCodec = new PlateCodec(); // numer rejestracyjny <-> kod long
+        private final PlateTable plateIndex; // kod numeru rejestracyjnego -> indeks zajętego miejsca
+        private final EntryTimeIndex entryIndex; // zajęte miejsca według typu i czasu wjazdu
+        private final LastVisitCache parkingHistory; // kod numeru rejestracyjnego -> ostatnia wizyta
+        private ParkingRecordStore dailyRecords; // wszystkie rekordy do raportu dziennego (kolumnowo)
+        private final DailyTotals dailyTotals; // bieżące sumy raportu dziennego
+        private final List<ParkingLotListener> listeners = new ArrayList<>();
+        private final Map<String, Tariff> tariffs = new HashMap<>(); // typ pojazdu -> taryfa
+        private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        private ParkingMetrics metrics; // null, jeśli metryki są wyłączone
+        private ReservationBook reservations; // null, jeśli rezerwacje są wyłączone
+
+        /**
+         * Konstruktor dla ParkingLot.
+         *
+         * @param capacity liczba miejsc parkingowych.
+         */
+        public ParkingLot(int capacity) {
+            this.capacity = capacity;
+            this.spots = new ArrayList<>(capacity);
+            for (int i = 1; i <= capacity; i++) {
+                spots.add(new ParkingSpot(i));
+            }
+            this.freeSpots = new FreeSpotIndex(capacity);
+            this.classOrder = null;
+            this.classRank = null;
+            this.classFree = null;
+            this.plateIndex = new PlateTable(capacity);
+            this.entryIndex = new EntryTimeIndex(capacity);
+            this.parkingHistory = new LastVisitCache(LAST_VISIT_CACHE_SIZE, plateCodec);
+            this.dailyRecords = new ParkingRecordStore();
+            this.dailyTotals = new DailyTotals();
+        }
+
+        /**
+         * Konstruktor parkingu z miejscami podzielonymi na klasy wielkości.
+         * Pojazd otrzymuje najbliższe bramce wolne miejsce z pierwszej klasy na swojej liście
+         * preferencji, która ma wolne miejsce (patrz setSpotPreference).
+         *
+         * @param sizes     klasa wielkości każdego miejsca (miejsce i ma numer i + 1).
+         * @param distances odległość każdego miejsca od bramki lub null (odległość = numer miejsca).
+         */
+        public ParkingLot(SpotSize[] sizes, int[] distances) {
+            if (distances != null && distances.length != sizes.length) {
+                throw new IllegalArgumentException("Liczba odległości musi być równa liczbie miejsc");
+            }
+            this.capacity = sizes.length;
+            this.spots = new ArrayList<>(capacity);
+            for (int i = 0; i < capacity; i++) {
+                spots.add(new ParkingSpot(i + 1, sizes[i], distances == null ? i + 1 : distances[i]));
+            }
+            this.freeSpots = new FreeSpotIndex(capacity);
+            int classes = SpotSize.values().length;
+            int[] counts = new int[classes];
+            for (SpotSize size : sizes) {
+                counts[size.ordinal()]++;
+            }
+            Integer[] byDistance = new Integer[capacity];
+            for (int i = 0; i < capacity; i++) {
+                byDistance[i] = i;
+            }
+            Arrays.sort(byDistance, Comparator.<Integer>comparingInt(i -> spots.get(i).getDistance())
+                    .thenComparingInt(i -> i));
+            this.classOrder = new int[classes][];
+            this.classFree = new FreeSpotIndex[classes];
+            for (int c = 0; c < classes; c++) {
+                classOrder[c] = new int[counts[c]];
+                classFree[c] = new FreeSpotIndex(counts[c]);
+            }
+            this.classRank = new int[capacity];
+            int[] next = new int[classes];
+            for (int index : byDistance) {
+                int c = sizes[index].ordinal();
+                classRank[index] = next[c];
+                classOrder[c][next[c]++] = index;
+            }
+            this.plateIndex = new PlateTable(capacity);
+            this.entryIndex = new EntryTimeIndex(capacity);
+            this.parkingHistory = new LastVisitCache(LAST_VISIT_CACHE_SIZE, plateCodec);
+            this.dailyRecords = new ParkingRecordStore();
+            this.dailyTotals = new DailyTotals();
+        }
+
+        /**
+         * Pobierz całkowitą liczbę miejsc.
+         *
+         * @return liczba miejsc.
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Zwraca liczbę dostępnych miejsc parkingowych.
+         *
+         * @return liczba dostępnych miejsc.
+         */
+        public int getAvailableSpots() {
+            return freeSpots.freeCount();
+        }
+
+        /**
+         * Zwraca liczbę dostępnych miejsc danej klasy wielkości.
+         * Parking bez podziału na klasy traktuje wszystkie miejsca jako STANDARD.
+         *
+         * @param size klasa wielkości.
+         * @return liczba dostępnych miejsc.
+         */
+        public int getAvailableSpots(SpotSize size) {
+            if (classFree == null) {
+                return size == SpotSize.STANDARD ? freeSpots.freeCount() : 0;
+            }
+            return classFree[size.ordinal()].freeCount();
+        }
+
+        /**
+         * Ustaw kolejność klas miejsc, z których może korzystać dany typ pojazdu.
+         * Domyślnie samochód zajmuje COMPACT, potem STANDARD, a gdy te są pełne VAN;
+         * van dostawczy tylko VAN. Miejsca EV są przydzielane wyłącznie typom,
+         * które mają je na liście.
+         *
+         * @param vehicleType typ pojazdu (jak w Vehicle.getType()).
+         * @param sizes       klasy miejsc w kolejności preferencji.
+         */
+        public void setSpotPreference(String vehicleType, SpotSize... sizes) {
+            if (sizes.length == 0) {
+                throw new IllegalArgumentException("Lista klas miejsc nie może być pusta");
+            }
+            spotPreferences.put(vehicleType, sizes.clone());
+        }
+
+        private SpotSize[] spotPreferenceFor(Vehicle vehicle) {
+            SpotSize[] sizes = spotPreferences.get(vehicle.getType());
+            if (sizes != null) {
+                return sizes;
+            }
+            return vehicle instanceof DeliveryVan ? VAN_SPOTS : CAR_SPOTS;
+        }
+
+        private SpotSize[] spotPreferenceFor(String vehicleType) {
+            SpotSize[] sizes = spotPreferences.get(vehicleType);
+            if (sizes != null) {
+                return sizes;
+            }
+            return DeliveryVan.TYPE.equals(vehicleType) ? VAN_SPOTS : CAR_SPOTS;
+        }
+
+        /**
+         * Klasy miejsc dostępne dla typu pojazdu (parking bez klas: tylko STANDARD).
+         */
+        SpotSize[] spotClassesFor(String vehicleType) {
+            return classFree == null ? STANDARD_ONLY : spotPreferenceFor(vehicleType);
+        }
+
+        SpotSize[] spotClassesFor(Vehicle vehicle) {
+            return classFree == null ? STANDARD_ONLY : spotPreferenceFor(vehicle);
+        }
+
+        /**
+         * Liczba wszystkich miejsc danej klasy (parking bez klas: wszystkie miejsca to STANDARD).
+         */
+        int classCapacity(SpotSize size) {
+            if (classFree == null) {
+                return size == SpotSize.STANDARD ? capacity : 0;
+            }
+            return classOrder[size.ordinal()].length;
+        }
+
+        /**
+         * Najbliższe bramce wolne miejsce danej klasy.
+         *
+         * @return indeks miejsca lub -1.
+         */
+        int firstFreeSpot(SpotSize size) {
+            if (classFree == null) {
+                return size == SpotSize.STANDARD ? freeSpots.first() : -1;
+            }
+            int rank = classFree[size.ordinal()].first();
+            return rank == -1 ? -1 : classOrder[size.ordinal()][rank];
+        }
+
+        /**
+         * Znajdź miejsce dla pojazdu: na parkingu bez klas najniższy wolny indeks,
+         * w przeciwnym razie najbliższe bramce wolne miejsce z pierwszej pasującej klasy.
+         *
+         * @param vehicle pojazd wjeżdżający.
+         * @return indeks miejsca lub -1, jeśli brak odpowiedniego miejsca.
+         */
+        private int findAvailableSpotIndex(Vehicle vehicle) {
+            if (classFree == null) {
+                return freeSpots.first();
+            }
+            SpotSize[] sizes = spotPreferenceFor(vehicle);
+            for (int i = 0; i < sizes.length; i++) {
+                int c = sizes[i].ordinal();
+                int rank = classFree[c].first();
+                if (rank != -1) {
+                    return classOrder[c][rank];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Zarejestruj wjazd pojazdu.
+         *
+         * @param vehicle Pojazd do wjazdu.
+         * @return true, jeśli pomyślnie zaparkowano, false, jeśli pełne lub pojazd jest już zaparkowany.
+         */
+        public boolean enterVehicle(Vehicle vehicle) {
+            if (metrics == null) {
+                return tryEnter(vehicle) == EntryStatus.PARKED;
+            }
+            long start = System.nanoTime();
+            EntryStatus status = tryEnter(vehicle);
+            metrics.recordEntry(status, System.nanoTime() - start);
+            return status == EntryStatus.PARKED;
+        }
+
+        private EntryStatus tryEnter(Vehicle vehicle) {
+            long plate = plateCodec.encode(vehicle.getLicensePlate());
+            if (plateIndex.get(plate) >= 0) {
+                plateCodec.release(plate);
+                return EntryStatus.ALREADY_PARKED;
+            }
+            int spotIndex = reservations == null ? findAvailableSpotIndex(vehicle) : reservations.admit(vehicle, plate);
+            if (spotIndex == -1) {
+                plateCodec.release(plate);
+                return EntryStatus.LOT_FULL;
+            }
+            park(vehicle, plate, spotIndex);
+            return EntryStatus.PARKED;
+        }
+
+        /**
+         * Zaparkuj pojazd na wskazanym wolnym miejscu i powiadom obserwatorów. Indeks numerów przejmuje
+         * odwołanie do kodu pobrane przez encode; przy wyjeździe przechodzi ono do pamięci ostatnich wizyt.
+         */
+        private void park(Vehicle vehicle, long plate, int spotIndex) {
+            ParkingSpot spot = spots.get(spotIndex);
+            spot.parkVehicle(vehicle);
+            freeSpots.markOccupied(spotIndex);
+            if (classFree != null) {
+                classFree[spot.getSize().ordinal()].markOccupied(classRank[spotIndex]);
+            }
+            plateIndex.put(plate, spotIndex);
+            entryIndex.add(spotIndex, vehicle);
+            if (reservations != null) {
+                reservations.claim(vehicle, plate);
+            }
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onVehicleEntered(vehicle, spot.getSpotNumber());
+            }
+        }
+
+        /**
+         * Umieść pojazd na wskazanym miejscu bez powiadamiania obserwatorów (odtwarzanie migawki).
+         */
+        void restoreVehicle(int spotIndex, Vehicle vehicle) {
+            long plate = plateCodec.encode(vehicle.getLicensePlate());
+            if (spotIndex < 0 || spotIndex >= capacity || !freeSpots.isFree(spotIndex) || plateIndex.get(plate) >= 0) {
+                plateCodec.release(plate);
+                throw new IllegalArgumentException("Nieprawidłowe miejsce lub numer w migawce: "
+                        + vehicle.getLicensePlate());
+            }
+            ParkingSpot spot = spots.get(spotIndex);
+            spot.parkVehicle(vehicle);
+            freeSpots.markOccupied(spotIndex);
+            if (classFree != null) {
+                classFree[spot.getSize().ordinal()].markOccupied(classRank[spotIndex]);
+            }
+            plateIndex.put(plate, spotIndex);
+            entryIndex.add(spotIndex, vehicle);
+        }
+
+        /**
+         * Zarejestruj wjazd partii pojazdów (np. kolejka przy bramce lub import logu sterownika).
+         * Na parkingu bez klas wolne miejsca wyszukiwane są jednym przebiegiem od najniższego numeru,
+         * a z klasami każdy pojazd otrzymuje miejsce jak w enterVehicle. Obserwatorzy
+         * (np. dziennik) otrzymują po partii jedno powiadomienie onBatchCompleted.
+         * Błąd pojedynczego pojazdu nie przerywa partii.
+         *
+         * @param vehicles pojazdy w kolejności wjazdu.
+         * @return status wjazdu dla każdego pojazdu, w tej samej kolejności.
+         */
+        public EntryStatus[] enterVehicles(List<? extends Vehicle> vehicles) {
+            EntryStatus[] statuses = new EntryStatus[vehicles.size()];
+            int cursor = freeSpots.first();
+            for (int i = 0; i < statuses.length; i++) {
+                Vehicle vehicle = vehicles.get(i);
+                if (vehicle == null || vehicle.getLicensePlate() == null) {
+                    statuses[i] = EntryStatus.FAILED;
+                    continue;
+                }
+                long plate = plateCodec.encode(vehicle.getLicensePlate());
+                boolean alreadyParked = plateIndex.get(plate) >= 0;
+                int spotIndex = alreadyParked ? -1 : reservations != null ? reservations.admit(vehicle, plate)
+                        : classFree == null ? cursor : findAvailableSpotIndex(vehicle);
+                if (alreadyParked) {
+                    statuses[i] = EntryStatus.ALREADY_PARKED;
+                } else if (spotIndex == -1) {
+                    statuses[i] = EntryStatus.LOT_FULL;
+                } else {
+                    try {
+                        park(vehicle, plate, spotIndex);
+                        statuses[i] = EntryStatus.PARKED;
+                    } catch (RuntimeException e) {
+                        // pojazd mógł zostać zaparkowany przed błędem obserwatora
+                        statuses[i] = plateIndex.get(plate) >= 0 ? EntryStatus.PARKED : EntryStatus.FAILED;
+                    }
+                    if (classFree == null) {
+                        cursor = freeSpots.nextFree(cursor + 1);
+                    }
+                }
+                if (statuses[i] != EntryStatus.PARKED) {
+                    plateCodec.release(plate);
+                }
+                if (metrics != null) {
+                    metrics.recordEntry(statuses[i], -1);
+                }
+            }
+            notifyBatchCompleted();
+            return statuses;
+        }
+
+        /**
+         * Zarejestruj wyjazd pojazdu.
+         *
+         * @param licensePlate Numer rejestracyjny wyjeżdżającego pojazdu.
+         * @param exitTime     Czas wyjazdu.
+         * @return obiekt ParkingPayment, jeśli znaleziono i wyjechał, null, jeśli nie znaleziono.
+         */
+        public ParkingPayment exitVehicle(String licensePlate, LocalDateTime exitTime) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            long plate = plateCodec.find(licensePlate);
+            int spotIndex = plateIndex.get(plate);
+            ParkingPayment payment = spotIndex < 0 ? null : depart(spots.get(spotIndex), plate, exitTime);
+            if (metrics != null) {
+                metrics.recordExit(payment != null, System.nanoTime() - start);
+            }
+            return payment;
+        }
+
+        /**
+         * Zarejestruj wyjazd bez tworzenia obiektów: czas podawany jest jako sekundy epoki
+         * (czas lokalny zapisany jako UTC), a rozliczenie trafia do widoku należącego do wywołującego.
+         * Przy braku obserwatorów wyjazd nie alokuje pamięci; obserwatorzy otrzymują ParkingRecord
+         * tworzony tylko na ich potrzeby.
+         *
+         * @param licensePlate    numer rejestracyjny wyjeżdżającego pojazdu.
+         * @param exitEpochSecond czas wyjazdu w sekundach epoki.
+         * @param payment         widok wypełniany rozliczeniem (nadpisywany przy każdym wywołaniu).
+         * @return true, jeśli pojazd wyjechał; false, jeśli nie ma go na parkingu (widok bez zmian).
+         */
+        public boolean exitVehicle(String licensePlate, long exitEpochSecond, PaymentView payment) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            long plate = plateCodec.find(licensePlate);
+            int spotIndex = plateIndex.get(plate);
+            if (spotIndex >= 0) {
+                ParkingSpot spot = spots.get(spotIndex);
+                Vehicle vehicle = spot.getParkedVehicle();
+                LocalDateTime entryTime = vehicle.getEntryTime();
+                long entrySecond = entryTime.toEpochSecond(ZoneOffset.UTC);
+                long minutes = billableMinutes(entrySecond, entryTime.getNano(), exitEpochSecond, 0);
+                long cents = tariffFor(vehicle).feeCentsForMinutes(entrySecond, minutes);
+                release(spot, plate, vehicle, exitEpochSecond, 0, cents, null);
+                payment.set(vehicle.getLicensePlate(), vehicle.getType(), spot.getSpotNumber(),
+                        entrySecond, exitEpochSecond, cents, billableHours(minutes));
+            }
+            if (metrics != null) {
+                metrics.recordExit(spotIndex >= 0, System.nanoTime() - start);
+            }
+            return spotIndex >= 0;
+        }
+
+        /**
+         * Zarejestruj wyjazd partii pojazdów, np. na koniec zmiany lub z importowanego logu bramki.
+         * Pojazd, którego nie ma na parkingu, lub błąd rozliczenia daje null w wyniku
+         * i nie przerywa partii. Błąd obserwatora zgłoszony po zwolnieniu miejsca nie cofa wyjazdu,
+         * więc taki pojazd otrzymuje płatność. Obserwatorzy otrzymują po partii jedno powiadomienie
+         * onBatchCompleted.
+         *
+         * @param licensePlates numery rejestracyjne wyjeżdżających pojazdów.
+         * @param exitTimes     czasy wyjazdu (ta sama długość co licensePlates).
+         * @return płatności w kolejności numerów; null dla pozycji nieudanych.
+         */
+        public ParkingPayment[] exitVehicles(List<String> licensePlates, List<LocalDateTime> exitTimes) {
+            if (licensePlates.size() != exitTimes.size()) {
+                throw new IllegalArgumentException("Liczba numerów i czasów wyjazdu musi być równa");
+            }
+            ParkingPayment[] payments = new ParkingPayment[licensePlates.size()];
+            for (int i = 0; i < payments.length; i++) {
+                String licensePlate = licensePlates.get(i);
+                LocalDateTime exitTime = exitTimes.get(i);
+                long plate = licensePlate == null || exitTime == null ? PlateCodec.INVALID
+                        : plateCodec.find(licensePlate);
+                int spotIndex = plateIndex.get(plate);
+                if (spotIndex >= 0) {
+                    ParkingSpot spot = spots.get(spotIndex);
+                    Vehicle vehicle = spot.getParkedVehicle();
+                    try {
+                        payments[i] = depart(spot, plate, exitTime);
+                    } catch (RuntimeException e) {
+                        // pojazd mógł wyjechać przed błędem obserwatora (np. dziennika)
+                        payments[i] = plateIndex.get(plate) >= 0 ? null : paymentFor(vehicle, plate);
+                    }
+                }
+                if (metrics != null) {
+                    metrics.recordExit(payments[i] != null, -1);
+                }
+            }
+            notifyBatchCompleted();
+            return payments;
+        }
+
+        /**
+         * Zarejestruj wyjazd partii pojazdów w tym samym czasie (np. zamknięcie parkingu).
+         *
+         * @param licensePlates numery rejestracyjne wyjeżdżających pojazdów.
+         * @param exitTime      wspólny czas wyjazdu.
+         * @return płatności w kolejności numerów; null dla pozycji nieudanych.
+         */
+        public ParkingPayment[] exitVehicles(List<String> licensePlates, LocalDateTime exitTime) {
+            return exitVehicles(licensePlates, Collections.nCopies(licensePlates.size(), exitTime));
+        }
+
+        private void notifyBatchCompleted() {
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onBatchCompleted();
+            }
+        }
+
+        /**
+         * Rozlicz i usuń pojazd z zajmowanego miejsca.
+         */
+        private ParkingPayment depart(ParkingSpot spot, long plate, LocalDateTime exitTime) {
+            Vehicle vehicle = spot.getParkedVehicle();
+
+            // Oblicz czas parkowania i opłatę z tej samej liczby minut
+            LocalDateTime entryTime = vehicle.getEntryTime();
+            long entrySecond = entryTime.toEpochSecond(ZoneOffset.UTC);
+            long exitSecond = exitTime.toEpochSecond(ZoneOffset.UTC);
+            long minutes = billableMinutes(entrySecond, entryTime.getNano(), exitSecond, exitTime.getNano());
+            double hoursParked = billableHours(minutes);
+            long cents = tariffFor(vehicle).feeCentsForMinutes(entrySecond, minutes);
+            double fee = cents / 100.0;
+
+            ParkingRecord record = new ParkingRecord(vehicle.getLicensePlate(), vehicle.getType(),
+                    vehicle.getEntryTime(), exitTime, fee);
+            release(spot, plate, vehicle, exitSecond, exitTime.getNano(), cents, record);
+            return new ParkingPayment(record, hoursParked, fee);
+        }
+
+        /**
+         * Odtwórz płatność zakończonej sesji z pamięci ostatnich wizyt (wyjazd, po którym obserwator
+         * zgłosił błąd).
+         */
+        private ParkingPayment paymentFor(Vehicle vehicle, long plate) {
+            ParkingRecord record = parkingHistory.get(plate);
+            LocalDateTime entryTime = vehicle.getEntryTime();
+            LocalDateTime exitTime = record.getExitTime();
+            double hoursParked = billableHours(billableMinutes(entryTime.toEpochSecond(ZoneOffset.UTC),
+                    entryTime.getNano(), exitTime.toEpochSecond(ZoneOffset.UTC), exitTime.getNano()));
+            return new ParkingPayment(record, hoursParked, record.getFee());
+        }
+
+        /**
+         * Zwolnij miejsce, zapisz sesję w raporcie dnia i pamięci ostatnich wizyt, powiadom obserwatorów.
+         * Rekord dla obserwatorów jest tworzony tylko wtedy, gdy nie został przekazany i są obserwatorzy.
+         */
+        private void release(ParkingSpot spot, long plate, Vehicle vehicle, long exitSecond, int exitNano,
+                             long cents, ParkingRecord record) {
+            int spotIndex = spot.getSpotNumber() - 1;
+            spot.removeVehicle();
+            freeSpots.markFree(spotIndex);
+            if (classFree != null) {
+                classFree[spot.getSize().ordinal()].markFree(classRank[spotIndex]);
+            }
+            plateIndex.remove(plate);
+            entryIndex.remove(spotIndex);
+
+            LocalDateTime entryTime = vehicle.getEntryTime();
+            long entrySecond = entryTime.toEpochSecond(ZoneOffset.UTC);
+            double fee = cents / 100.0;
+            dailyRecords.add(dailyRecords.plateId(vehicle.getLicensePlate()), dailyRecords.typeId(vehicle.getType()),
+                    entrySecond, exitSecond, cents);
+            dailyTotals.add(vehicle.getType(), fee);
+            parkingHistory.put(plate, vehicle.getLicensePlate(), vehicle.getType(), entrySecond, entryTime.getNano(),
+                    exitSecond, exitNano, cents);
+            if (listeners.isEmpty()) {
+                return;
+            }
+            if (record == null) {
+                record = new ParkingRecord(vehicle.getLicensePlate(), vehicle.getType(), entryTime,
+                        LocalDateTime.ofEpochSecond(exitSecond, exitNano, ZoneOffset.UTC), fee);
+            }
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onVehicleExited(record, spot.getSpotNumber());
+            }
+        }
+
+        /**
+         * Ustaw taryfę dla typu pojazdu. Typy bez ustawionej taryfy rozliczane są
+         * stałą stawką Vehicle.getHourlyRate() za każdą rozpoczętą godzinę.
+         *
+         * @param vehicleType typ pojazdu (Vehicle.getType()).
+         * @param tariff      skompilowana taryfa.
+         */
+        public void setTariff(String vehicleType, Tariff tariff) {
+            tariffs.put(vehicleType, tariff);
+        }
+
+        /**
+         * Pobierz taryfę dla pojazdu, tworząc domyślną taryfę stałą przy pierwszym użyciu typu.
+         *
+         * @param vehicle pojazd.
+         * @return taryfa.
+         */
+        private Tariff tariffFor(Vehicle vehicle) {
+            Tariff tariff = tariffs.get(vehicle.getType());
+            if (tariff == null) {
+                tariff = Tariff.flat(vehicle.getHourlyRate());
+                tariffs.put(vehicle.getType(), tariff);
+            }
+            return tariff;
+        }
+
+        /**
+         * Oblicz liczbę rozpoczętych godzin parkowania z liczby pełnych minut postoju (billableMinutes).
+         *
+         * @param minutesParked liczba pełnych minut postoju.
+         * @return liczba godzin do zapłaty (zaokrąglona w górę).
+         */
+        static double billableHours(long minutesParked) {
+            return Math.ceil(minutesParked / 60.0);
+        }
+
+        /**
+         * Oblicz liczbę pełnych minut postoju z czasów w sekundach epoki i nanosekundach. Z tej wartości
+         * wyliczane są zarówno godziny, jak i opłata (Tariff.feeCentsForMinutes).
+         */
+        static long billableMinutes(long entrySecond, int entryNano, long exitSecond, int exitNano) {
+            long minutesParked = (exitSecond - entrySecond - (exitNano < entryNano ? 1 : 0)) / 60;
+            return Math.max(minutesParked, 0); // ochrona przed nieprawidłowym czasem
+        }
+
+        /**
+         * Znajdź miejsce parkingowe, które aktualnie zajmuje pojazd o podanym numerze rejestracyjnym.
+         *
+         * @param licensePlate string numer rejestracyjny.
+         * @return ParkingSpot lub null, jeśli nie znaleziono.
+         */
+        private ParkingSpot findVehicleSpot(String licensePlate) {
+            int spotIndex = plateIndex.get(plateCodec.find(licensePlate));
+            return spotIndex < 0 ? null : spots.get(spotIndex);
+        }
+
+        /**
+         * Sprawdź, czy pojazd o podanym numerze rejestracyjnym jest aktualnie zaparkowany.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return true, jeśli pojazd jest na parkingu.
+         */
+        public boolean isParked(String licensePlate) {
+            return plateIndex.get(plateCodec.find(licensePlate)) >= 0;
+        }
+
+        /**
+         * Znajdź miejsce zajmowane przez pojazd o podanym numerze rejestracyjnym.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return ParkingSpot lub null, jeśli pojazdu nie ma na parkingu.
+         */
+        public ParkingSpot findSpot(String licensePlate) {
+            return findVehicleSpot(licensePlate);
+        }
+
+        /**
+         * Pobierz ostatnią wizytę pojazdu z ograniczonej pamięci ostatnich wizyt.
+         * Pełną historię przechowuje PlateHistoryStore zarejestrowany jako obserwator.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return rekord ostatniej wizyty lub null, jeśli nie ma go w pamięci.
+         */
+        public ParkingRecord getLastVisit(String licensePlate) {
+            return parkingHistory.get(plateCodec.find(licensePlate));
+        }
+
+        /**
+         * Liczba internowanych numerów nietypowych, do których odwołują się pojazdy na parkingu,
+         * pamięć ostatnich wizyt lub rezerwacje.
+         */
+        int internedPlateCount() {
+            return plateCodec.internedCount();
+        }
+
+        /**
+         * Sprowadź numer rejestracyjny do postaci kanonicznej (wielkie litery, bez spacji).
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return numer w postaci kanonicznej.
+         */
+        public static String canonicalPlate(String licensePlate) {
+            return licensePlate.replace(" ", "").toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Lista aktualnie zaparkowanych pojazdów.
+         * Dla dużych parkingów listParked zwraca stronicowaną i filtrowaną listę.
+         *
+         * @return Lista stringów opisujących zaparkowane pojazdy.
+         */
+        public List<String> listParkedVehicles() {
+            List<String> list = new ArrayList<>();
+            for (ParkingSpot spot : spots) {
+                if (spot.isOccupied()) {
+                    list.add(formatParkedVehicle(spot.getSpotNumber(), spot.getParkedVehicle(), dtf));
+                }
+            }
+            return list;
+        }
+
+        /**
+         * Strona listy zaparkowanych pojazdów spełniających zapytanie, uporządkowana według czasu wjazdu.
+         * Koszt to O(log n + rozmiar strony), a formatowane są tylko pojazdy na stronie.
+         *
+         * @param query  zapytanie (typ, zakres czasu wjazdu, kolejność, rozmiar strony).
+         * @param cursor kursor z poprzedniej strony lub null dla pierwszej strony.
+         * @return strona wyników.
+         */
+        public ParkedPage listParked(ParkedQuery query, String cursor) {
+            long lowSecond = Long.MIN_VALUE;
+            int lowNano = 0;
+            int lowSpot = -1;
+            long highSecond = Long.MAX_VALUE;
+            int highNano = 0;
+            int highSpot = -1;
+            if (query.enteredFrom != null) {
+                lowSecond = query.enteredFrom.toEpochSecond(ZoneOffset.UTC);
+                lowNano = query.enteredFrom.getNano();
+            }
+            if (query.enteredBefore != null) {
+                highSecond = query.enteredBefore.toEpochSecond(ZoneOffset.UTC);
+                highNano = query.enteredBefore.getNano();
+            }
+            if (cursor != null) {
+                String[] parts = cursor.split(":");
+                long second;
+                int nano;
+                int spot;
+                try {
+                    if (parts.length != 3) {
+                        throw new NumberFormatException();
+                    }
+                    second = Long.parseLong(parts[0]);
+                    nano = Integer.parseInt(parts[1]);
+                    spot = Integer.parseInt(parts[2]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Nieprawidłowy kursor: " + cursor);
+                }
+                // kolejna strona zaczyna się za ostatnim zwróconym kluczem
+                if (query.newestFirst) {
+                    highSecond = second;
+                    highNano = nano;
+                    highSpot = spot;
+                } else {
+                    lowSecond = second;
+                    lowNano = nano;
+                    lowSpot = spot;
+                }
+            }
+            int type = -1;
+            if (query.vehicleType != null) {
+                type = entryIndex.typeIndex(query.vehicleType);
+                if (type == -1) {
+                    return new ParkedPage(new ArrayList<>(), null);
+                }
+            }
+            int[] found = new int[query.limit + 1];
+            int count = entryIndex.select(type, query.newestFirst, lowSecond, lowNano, lowSpot,
+                    highSecond, highNano, highSpot, found);
+            int size = Math.min(count, query.limit);
+            List<ParkedVehicle> vehicles = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                vehicles.add(new ParkedVehicle(found[i] + 1, spots.get(found[i]).getParkedVehicle()));
+            }
+            String next = null;
+            if (count > query.limit) {
+                int last = found[size - 1];
+                next = entryIndex.getEntrySecond(last) + ":" + entryIndex.getEntryNano(last) + ":" + last;
+            }
+            return new ParkedPage(vehicles, next);
+        }
+
+        /**
+         * Zapytanie o zaparkowane pojazdy. Obiekty są niezmienne; metody zwracają zmienioną kopię.
+         * Przykład: ParkedQuery.all().ofType(DeliveryVan.TYPE).enteredBefore(now.minusHours(4))
+         * to vany stojące dłużej niż 4 godziny, od najdawniej zaparkowanych.
+         */
+        public static final class ParkedQuery {
+            private static final int DEFAULT_LIMIT = 50;
+
+            private final String vehicleType;
+            private final LocalDateTime enteredFrom;
+            private final LocalDateTime enteredBefore;
+            private final boolean newestFirst;
+            private final int limit;
+
+            private ParkedQuery(String vehicleType, LocalDateTime enteredFrom, LocalDateTime enteredBefore,
+                                boolean newestFirst, int limit) {
+                this.vehicleType = vehicleType;
+                this.enteredFrom = enteredFrom;
+                this.enteredBefore = enteredBefore;
+                this.newestFirst = newestFirst;
+                this.limit = limit;
+            }
+
+            /**
+             * Wszystkie zaparkowane pojazdy, od najdawniej zaparkowanych, po 50 na stronę.
+             *
+             * @return zapytanie.
+             */
+            public static ParkedQuery all() {
+                return new ParkedQuery(null, null, null, false, DEFAULT_LIMIT);
+            }
+
+            /**
+             * Tylko pojazdy danego typu.
+             *
+             * @param vehicleType typ pojazdu (jak w Vehicle.getType()) lub null dla wszystkich.
+             * @return zapytanie.
+             */
+            public ParkedQuery ofType(String vehicleType) {
+                return new ParkedQuery(vehicleType, enteredFrom, enteredBefore, newestFirst, limit);
+            }
+
+            /**
+             * Tylko pojazdy, które wjechały nie wcześniej niż podany czas.
+             *
+             * @param time początek zakresu (włącznie) lub null.
+             * @return zapytanie.
+             */
+            public ParkedQuery enteredFrom(LocalDateTime time) {
+                return new ParkedQuery(vehicleType, time, enteredBefore, newestFirst, limit);
+            }
+
+            /**
+             * Tylko pojazdy, które wjechały przed podanym czasem.
+             *
+             * @param time koniec zakresu (wyłącznie) lub null.
+             * @return zapytanie.
+             */
+            public ParkedQuery enteredBefore(LocalDateTime time) {
+                return new ParkedQuery(vehicleType, enteredFrom, time, newestFirst, limit);
+            }
+
+            /**
+             * Kolejność od najpóźniej zaparkowanych.
+             *
+             * @return zapytanie.
+             */
+            public ParkedQuery newestFirst() {
+                return new ParkedQuery(vehicleType, enteredFrom, enteredBefore, true, limit);
+            }
+
+            /**
+             * Rozmiar strony.
+             *
+             * @param limit maksymalna liczba pojazdów na stronie.
+             * @return zapytanie.
+             */
+            public ParkedQuery limit(int limit) {
+                if (limit < 1) {
+                    throw new IllegalArgumentException("Rozmiar strony musi być dodatni");
+                }
+                return new ParkedQuery(vehicleType, enteredFrom, enteredBefore, newestFirst, limit);
+            }
+        }
+
+        /**
+         * Strona wyników listy zaparkowanych pojazdów.
+         */
+        public static class ParkedPage {
+            private final List<ParkedVehicle> vehicles;
+            private final String nextCursor;
+
+            ParkedPage(List<ParkedVehicle> vehicles, String nextCursor) {
+                this.vehicles = Collections.unmodifiableList(vehicles);
+                this.nextCursor = nextCursor;
+            }
+
+            public List<ParkedVehicle> getVehicles() {
+                return vehicles;
+            }
+
+            /**
+             * Kursor kolejnej strony (do przekazania w listParked z tym samym zapytaniem).
+             *
+             * @return kursor lub null, jeśli to ostatnia strona.
+             */
+            public String getNextCursor() {
+                return nextCursor;
+            }
+        }
+
+        /**
+         * Zaparkowany pojazd na stronie wyników.
+         */
+        public static class ParkedVehicle {
+            private final int spotNumber;
+            private final Vehicle vehicle;
+
+            ParkedVehicle(int spotNumber, Vehicle vehicle) {
+                this.spotNumber = spotNumber;
+                this.vehicle = vehicle;
+            }
+
+            public int getSpotNumber() {
+                return spotNumber;
+            }
+
+            public Vehicle getVehicle() {
+                return vehicle;
+            }
+
+            @Override
+            public String toString() {
+                return formatParkedVehicle(spotNumber, vehicle, ParkingSpot.TIME_FORMAT);
+            }
+        }
+
+        /**
+         * Generuje raport dzienny jako string.
+         *
+         * @return raport z całkowitą liczbą pojazdów i dochodem.
+         */
+        public String generateDailyReport() {
+            StringBuilder sb = new StringBuilder();
+            try {
+                new DailyReportWriter(sb).writeReport(dailyRecords, dailyTotals);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // StringBuilder nie zgłasza IOException
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Zapisz raport dzienny bezpośrednio do wyjścia, bez budowania go w pamięci.
+         *
+         * @param out wyjście znakowe.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeDailyReport(Writer out) throws IOException {
+            new DailyReportWriter(out).writeReport(dailyRecords, dailyTotals);
+        }
+
+        /**
+         * Zapisz raport dzienny w UTF-8 bezpośrednio do strumienia. Strumień nie jest zamykany.
+         *
+         * @param out strumień wyjściowy.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeDailyReport(OutputStream out) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeDailyReport(writer);
+            writer.flush();
+        }
+
+        /**
+         * Pobierz bieżące sumy dnia (liczba pojazdów, dochód, podział na typy) w czasie stałym.
+         *
+         * @return bieżące sumy dnia.
+         */
+        public DailyTotals getDailyTotals() {
+            return dailyTotals;
+        }
+
+        /**
+         * Pobierz zakończone sesje bieżącego dnia w postaci kolumnowej.
+         *
+         * @return magazyn rekordów dnia.
+         */
+        public ParkingRecordStore getDailyRecords() {
+            return dailyRecords;
+        }
+
+        /**
+         * Przydziel z góry miejsce na podaną liczbę sesji dnia, aby zapis rekordów nie powiększał
+         * kolumn w trakcie pracy bramek (pojemność zostaje zachowana po czyszczeniu raportu).
+         *
+         * @param sessions oczekiwana liczba zakończonych sesji w ciągu dnia.
+         */
+        public void reserveDailyRecords(int sessions) {
+            dailyRecords.ensureCapacity(sessions);
+        }
+
+        /**
+         * Sformatuj opis zaparkowanego pojazdu do listy.
+         *
+         * @param spotNumber numer miejsca.
+         * @param v          zaparkowany pojazd.
+         * @param dtf        format daty.
+         * @return opis pojazdu.
+         */
+        static String formatParkedVehicle(int spotNumber, Vehicle v, DateTimeFormatter dtf) {
+            return String.format("Miejsce #%d: %s, Wjazd: %s",
+                    spotNumber,
+                    v.toString(),
+                    v.getEntryTime().format(dtf));
+        }
+
+        /**
+         * Wyczyść dzienne rekordy (symuluj nowy dzień). Słowniki numerów i typów magazynu są czyszczone
+         * razem z wierszami, więc pamięć nie rośnie z liczbą numerów widzianych w poprzednich dniach.
+         */
+        public void clearDailyReport() {
+            dailyRecords.reset();
+            dailyTotals.clear();
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onDailyReportCleared();
+            }
+        }
+
+        /**
+         * Zamknij dzień bez kopiowania rekordów: podmień magazyn rekordów dnia na podany pusty magazyn
+         * i wyzeruj sumy dnia. Obserwatorzy otrzymują onDailyReportCleared jak przy clearDailyReport.
+         *
+         * @param fresh pusty magazyn na kolejny dzień.
+         * @return magazyn z rekordami zamkniętego dnia; parking nie zapisuje do niego więcej.
+         */
+        public ParkingRecordStore rolloverDailyRecords(ParkingRecordStore fresh) {
+            if (!fresh.isEmpty() || fresh == dailyRecords) {
+                throw new IllegalArgumentException("Nowy magazyn rekordów musi być pusty");
+            }
+            ParkingRecordStore sealed = dailyRecords;
+            dailyRecords = fresh;
+            dailyTotals.clear();
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onDailyReportCleared();
+            }
+            return sealed;
+        }
+
+        /**
+         * Zarejestruj obserwatora zdarzeń parkingu.
+         *
+         * @param listener obserwator.
+         */
+        public void addListener(ParkingLotListener listener) {
+            listeners.add(listener);
+        }
+
+        /**
+         * Włącz rezerwacje z wyprzedzeniem. Od tej chwili pojazd bez rezerwacji wjeżdża tylko wtedy,
+         * gdy nie zabiera miejsca obiecanego rezerwacjom aktywnym w chwili wjazdu.
+         *
+         * @param origin  początek horyzontu rezerwacji (horyzont przesuwa się dalej wraz z czasem wjazdów).
+         * @param bucket  długość przedziału czasu (okna rezerwacji są zaokrąglane do pełnych przedziałów).
+         * @param buckets liczba przedziałów w horyzoncie.
+         * @return księga rezerwacji parkingu.
+         */
+        public ReservationBook enableReservations(LocalDateTime origin, Duration bucket, int buckets) {
+            if (reservations != null) {
+                throw new IllegalStateException("Rezerwacje są już włączone");
+            }
+            reservations = new ReservationBook(this, origin, bucket, buckets);
+            return reservations;
+        }
+
+        /**
+         * Pobierz księgę rezerwacji.
+         *
+         * @return księga rezerwacji lub null, jeśli rezerwacje są wyłączone.
+         */
+        public ReservationBook getReservations() {
+            return reservations;
+        }
+
+        /**
+         * Podłącz metryki: pomiar czasu wjazdów i wyjazdów oraz obserwację zdarzeń.
+         * Zajętość metryk jest inicjowana pojazdami już stojącymi na parkingu.
+         *
+         * @param metrics metryki lub null, aby wyłączyć pomiar.
+         */
+        public void setMetrics(ParkingMetrics metrics) {
+            if (this.metrics != null) {
+                listeners.remove(this.metrics);
+            }
+            this.metrics = metrics;
+            if (metrics != null) {
+                for (ParkingSpot spot : spots) {
+                    if (spot.isOccupied()) {
+                        metrics.onVehicleEntered(spot.getParkedVehicle(), spot.getSpotNumber());
+                    }
+                }
+                listeners.add(metrics);
+            }
+        }
+
+        /**
+         * Wyrejestruj obserwatora zdarzeń parkingu.
+         *
+         * @param listener obserwator.
+         */
+        public void removeListener(ParkingLotListener listener) {
+            listeners.remove(listener);
+        }
+
+        /**
+         * Wynik wjazdu pojedynczego pojazdu w operacji wsadowej.
+         */
+        public enum EntryStatus {
+            PARKED,          // pojazd zaparkowany
+            ALREADY_PARKED,  // pojazd o tym numerze już stoi na parkingu
+            LOT_FULL,        // brak wolnych miejsc
+            FAILED           // nieprawidłowe dane lub błąd podczas wjazdu
+        }
+
+        /**
+         * Wewnętrzna klasa pomocnicza do reprezentacji szczegółów płatności parkingowej.
+         */
+        public static class ParkingPayment {
+            private final ParkingRecord record;
+            private final double hoursParked;
+            private final double fee;
+
+            public ParkingPayment(ParkingRecord record, double hoursParked, double fee) {
+                this.record = record;
+                this.hoursParked = hoursParked;
+                this.fee = fee;
+            }
+
+            public ParkingRecord getRecord() {
+                return record;
+            }
+
+            public double getHoursParked() {
+                return hoursParked;
+            }
+
+            public double getFee() {
+                return fee;
+            }
+        }
+
+        /**
+         * Widok rozliczenia wyjazdu wielokrotnego użytku, wypełniany przez exitVehicle(String, long, PaymentView).
+         * Należy do wywołującego i jest nadpisywany przy każdym wyjeździe, więc ścieżka wyjazdu
+         * nie tworzy obiektów ParkingPayment ani ParkingRecord.
+         */
+        public static class PaymentView {
+            private String licensePlate;
+            private String vehicleType;
+            private int spotNumber;
+            private long entryEpochSecond;
+            private long exitEpochSecond;
+            private long feeCents;
+            private double hoursParked;
+
+            void set(String licensePlate, String vehicleType, int spotNumber, long entryEpochSecond,
+                     long exitEpochSecond, long feeCents, double hoursParked) {
+                this.licensePlate = licensePlate;
+                this.vehicleType = vehicleType;
+                this.spotNumber = spotNumber;
+                this.entryEpochSecond = entryEpochSecond;
+                this.exitEpochSecond = exitEpochSecond;
+                this.feeCents = feeCents;
+                this.hoursParked = hoursParked;
+            }
+
+            public String getLicensePlate() {
+                return licensePlate;
+            }
+
+            public String getVehicleType() {
+                return vehicleType;
+            }
+
+            public int getSpotNumber() {
+                return spotNumber;
+            }
+
+            public long getEntryEpochSecond() {
+                return entryEpochSecond;
+            }
+
+            public long getExitEpochSecond() {
+                return exitEpochSecond;
+            }
+
+            public long getFeeCents() {
+                return feeCents;
+            }
+
+            public double getFee() {
+                return feeCents / 100.0;
+            }
+
+            public double getHoursParked() {
+                return hoursParked;
+            }
+        }
+
+        /**
+         * ParkingRecord przechowuje szczegóły pojedynczej sesji parkowania.
+         */
+        public static class ParkingRecord {
+            private final String licensePlate;
+            private final String vehicleType;
+            private final LocalDateTime entryTime;
+            private final LocalDateTime exitTime;
+            private final double fee;
+
+            public ParkingRecord(String licensePlate, String vehicleType,
+                                 LocalDateTime entryTime, LocalDateTime exitTime, double fee) {
+                this.licensePlate = licensePlate;
+                this.vehicleType = vehicleType;
+                this.entryTime = entryTime;
+                this.exitTime = exitTime;
+                this.fee = fee;
+            }
+
+            public String getLicensePlate() {
+                return licensePlate;
+            }
+
+            public String getVehicleType() {
+                return vehicleType;
+            }
+
+            public LocalDateTime getEntryTime() {
+                return entryTime;
+            }
+
+            public LocalDateTime getExitTime() {
+                return exitTime;
+            }
+
+            public double getFee() {
+                return fee;
+            }
+        }
+
+        /**
+         * Pobierz kod rodzaju pojazdu używany w zapisie binarnym.
+         *
+         * @param vehicle pojazd.
+         * @return 0 dla samochodu, 1 dla vana dostawczego.
+         */
+        static byte vehicleKind(Vehicle vehicle) {
+            if (vehicle instanceof Car) {
+                return 0;
+            } else if (vehicle instanceof DeliveryVan) {
+                return 1;
+            } else {
+                throw new IllegalArgumentException("Nieznany typ pojazdu");
+            }
+        }
+
+        /**
+         * Utwórz pojazd na podstawie kodu rodzaju z zapisu binarnego.
+         *
+         * @param kind         kod rodzaju pojazdu.
+         * @param licensePlate numer rejestracyjny.
+         * @param entryTime    czas wjazdu.
+         * @return nowy pojazd.
+         */
+        static Vehicle createVehicle(int kind, String licensePlate, LocalDateTime entryTime) {
+            switch (kind) {
+                case 0:
+                    return new Car(licensePlate, entryTime);
+                case 1:
+                    return new DeliveryVan(licensePlate, entryTime);
+                default:
+                    throw new IllegalArgumentException("Nieznany typ pojazdu");
+            }
+        }
+    }
+
+    /**
+     * Rezerwacje miejsc z wyprzedzeniem dla okien (typ pojazdu, początek, koniec).
+     * Czas jest podzielony na przedziały o stałej długości; dla każdego zbioru klas miejsc drzewo
+     * przedziałowe (dodawanie na zakresie, maksimum na zakresie) przechowuje liczbę rezerwacji typów
+     * mieszczących się wyłącznie w tym zbiorze. Rezerwację można przyjąć, jeśli w żadnym przedziale okna
+     * i dla żadnego zbioru zawierającego klasy typu liczba rezerwacji nie przekroczy liczby miejsc zbioru
+     * (warunek Halla), co daje O(log n) na zapytanie.
+     * Horyzont obejmuje buckets przedziałów od bieżącego i przesuwa się wraz z czasem wjazdów (lub advance):
+     * drzewa są indeksowane cyklicznie, przedziały, które minęły, są zerowane i wracają na koniec horyzontu,
+     * a rezerwacje, których okno minęło bez wjazdu, wygasają.
+     * Pojazd z rezerwacją wjeżdżający w jej oknie zwalnia blokadę do końca okna i zajmuje zwykłe miejsce;
+     * rezerwacja jest wykorzystywana dopiero po zaparkowaniu pojazdu.
+     * Nie jest bezpieczna wątkowo; używać w wątku obsługującym parking.
+     */
+    public static class ReservationBook {
+        private static final SpotSize[] SIZES = SpotSize.values();
+
+        private final ParkingLot parkingLot;
+        private final long originSecond;
+        private final long bucketSeconds;
+        private final int buckets;
+        private final int presentMask;     // klasy, które mają choć jedno miejsce
+        private final CapacityTree[] held; // zbiór klas -> zarezerwowane miejsca, pozycja = przedział mod buckets
+        private final int[] limit;         // zbiór klas -> liczba miejsc
+        private final PlateTable byPlate = new PlateTable(16); // kod numeru -> pozycja w reservations
+        private Reservation[] reservations = new Reservation[16];
+        private int[] freeSlots = new int[16]; // zwolnione pozycje reservations
+        private int freeCount;
+        private int slotCount;                 // pozycje reservations użyte choć raz
+        // rezerwacje wg pierwszego przedziału z blokadą; anulowane i wykorzystane usuwane przy zdjęciu z kolejki
+        private final PriorityQueue<Reservation> byStart =
+                new PriorityQueue<>(Comparator.comparingLong((Reservation r) -> r.fromBucket));
+        private long base; // pierwszy przedział horyzontu (numer od origin)
+        private long nextId = 1;
+
+        ReservationBook(ParkingLot parkingLot, LocalDateTime origin, Duration bucket, int buckets) {
+            if (bucket.getSeconds() < 1 || buckets < 1) {
+                throw new IllegalArgumentException("Przedział i liczba przedziałów muszą być dodatnie");
+            }
+            this.parkingLot = parkingLot;
+            this.originSecond = origin.toEpochSecond(ZoneOffset.UTC);
+            this.bucketSeconds = bucket.getSeconds();
+            this.buckets = buckets;
+            int present = 0;
+            for (SpotSize size : SIZES) {
+                if (parkingLot.classCapacity(size) > 0) {
+                    present |= 1 << size.ordinal();
+                }
+            }
+            this.presentMask = present;
+            this.held = new CapacityTree[1 << SIZES.length];
+            this.limit = new int[1 << SIZES.length];
+            for (int mask = present; mask != 0; mask = (mask - 1) & present) {
+                held[mask] = new CapacityTree(buckets);
+                for (SpotSize size : SIZES) {
+                    if ((mask & (1 << size.ordinal())) != 0) {
+                        limit[mask] += parkingLot.classCapacity(size);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Rezerwacja miejsca dla pojazdu o danym numerze w oknie czasu.
+         */
+        public static class Reservation {
+            private final long id;
+            private final long plate; // kod numeru (odwołanie z PlateCodec.encode należy do księgi)
+            private final String licensePlate;
+            private final String vehicleType;
+            private final LocalDateTime start;
+            private final LocalDateTime end;
+            private final int mask;
+            private long fromBucket; // przedziały przed początkiem horyzontu są już zwolnione
+            private final long toBucket;
+            private boolean active = true;
+
+            Reservation(long id, long plate, String licensePlate, String vehicleType, LocalDateTime start,
+                        LocalDateTime end, int mask, long fromBucket, long toBucket) {
+                this.id = id;
+                this.plate = plate;
+                this.licensePlate = licensePlate;
+                this.vehicleType = vehicleType;
+                this.start = start;
+                this.end = end;
+                this.mask = mask;
+                this.fromBucket = fromBucket;
+                this.toBucket = toBucket;
+            }
+
+            public long getId() {
+                return id;
+            }
+
+            public String getLicensePlate() {
+                return licensePlate;
+            }
+
+            public String getVehicleType() {
+                return vehicleType;
+            }
+
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            public LocalDateTime getEnd() {
+                return end;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("Rezerwacja %d [%s, %s, %s - %s]", id, licensePlate, vehicleType, start, end);
+            }
+        }
+
+        /**
+         * Sprawdź, ile pojazdów danego typu można jeszcze zarezerwować na całe okno czasu.
+         *
+         * @param vehicleType typ pojazdu (jak w Vehicle.getType()).
+         * @param start       początek okna.
+         * @param end         koniec okna.
+         * @return liczba miejsc możliwych do zarezerwowania.
+         */
+        public int getAvailable(String vehicleType, LocalDateTime start, LocalDateTime end) {
+            int mask = typeMask(vehicleType);
+            if (mask == 0) {
+                return 0;
+            }
+            long from = bucketFrom(start);
+            long to = bucketTo(start, end);
+            int available = Integer.MAX_VALUE;
+            for (int m = presentMask; m != 0; m = (m - 1) & presentMask) {
+                if ((m & mask) == mask) {
+                    available = Math.min(available, limit[m] - maxHold(m, from, to));
+                }
+            }
+            return Math.max(available, 0);
+        }
+
+        /**
+         * Sprawdź, czy można zarezerwować podaną liczbę miejsc dla typu pojazdu na całe okno.
+         *
+         * @param vehicleType typ pojazdu.
+         * @param count       liczba pojazdów.
+         * @param start       początek okna.
+         * @param end         koniec okna.
+         * @return true, jeśli rezerwacje zmieszczą się w każdym przedziale okna.
+         */
+        public boolean canBook(String vehicleType, int count, LocalDateTime start, LocalDateTime end) {
+            if (count < 1) {
+                throw new IllegalArgumentException("Liczba pojazdów musi być dodatnia");
+            }
+            return getAvailable(vehicleType, start, end) >= count;
+        }
+
+        /**
+         * Zarezerwuj miejsce dla pojazdu.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @param vehicleType  typ pojazdu.
+         * @param start        początek okna (zaokrąglany w dół do przedziału).
+         * @param end          koniec okna (zaokrąglany w górę do przedziału).
+         * @return rezerwacja lub null, jeśli w oknie brakuje miejsc.
+         */
+        public Reservation book(String licensePlate, String vehicleType, LocalDateTime start, LocalDateTime end) {
+            if (byPlate.get(parkingLot.plateCodec.find(licensePlate)) >= 0) {
+                throw new IllegalArgumentException("Pojazd " + licensePlate + " ma już rezerwację");
+            }
+            if (!canBook(vehicleType, 1, start, end)) {
+                return null;
+            }
+            long from = bucketFrom(start);
+            long to = bucketTo(start, end);
+            long plate = parkingLot.plateCodec.encode(licensePlate);
+            Reservation reservation = new Reservation(nextId++, plate, parkingLot.plateCodec.decode(plate),
+                    vehicleType, start, end, typeMask(vehicleType), from, to);
+            addHold(reservation.mask, from, to, 1);
+            store(reservation);
+            byStart.add(reservation);
+            return reservation;
+        }
+
+        /**
+         * Anuluj rezerwację pojazdu.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return true, jeśli rezerwacja istniała.
+         */
+        public boolean cancel(String licensePlate) {
+            return cancel(parkingLot.plateCodec.find(licensePlate));
+        }
+
+        private boolean cancel(long plate) {
+            Reservation reservation = lookup(plate);
+            if (reservation == null) {
+                return false;
+            }
+            addHold(reservation.mask, reservation.fromBucket, reservation.toBucket, -1);
+            remove(reservation);
+            return true;
+        }
+
+        private Reservation lookup(long plate) {
+            int slot = byPlate.get(plate);
+            return slot < 0 ? null : reservations[slot];
+        }
+
+        private void store(Reservation reservation) {
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (slotCount == reservations.length) {
+                    reservations = Arrays.copyOf(reservations, slotCount * 2);
+                    freeSlots = Arrays.copyOf(freeSlots, slotCount * 2);
+                }
+                slot = slotCount++;
+            }
+            reservations[slot] = reservation;
+            byPlate.put(reservation.plate, slot);
+        }
+
+        /**
+         * Usuń rezerwację z tablicy i oddaj odwołanie do kodu numeru.
+         */
+        private void remove(Reservation reservation) {
+            int slot = byPlate.remove(reservation.plate);
+            reservations[slot] = null;
+            freeSlots[freeCount++] = slot;
+            reservation.active = false;
+            parkingLot.plateCodec.release(reservation.plate);
+        }
+
+        /**
+         * Przesuń początek horyzontu do przedziału zawierającego podaną chwilę. Przedziały, które minęły,
+         * są zwalniane i stają się nowymi przedziałami na końcu horyzontu, a rezerwacje, których okno
+         * minęło bez wjazdu, wygasają. Wywoływane przy każdym wjeździe; chwila wcześniejsza niż początek
+         * horyzontu niczego nie zmienia.
+         *
+         * @param now bieżąca chwila.
+         */
+        public void advance(LocalDateTime now) {
+            long bucket = bucketOf(now);
+            if (bucket <= base) {
+                return;
+            }
+            while (!byStart.isEmpty() && byStart.peek().fromBucket < bucket) {
+                Reservation reservation = byStart.poll();
+                if (!reservation.active) {
+                    continue;
+                }
+                long end = Math.min(reservation.toBucket, bucket);
+                addHold(reservation.mask, reservation.fromBucket, end, -1);
+                if (end == reservation.toBucket) {
+                    remove(reservation); // nie przyjechał
+                } else {
+                    reservation.fromBucket = bucket;
+                    byStart.add(reservation);
+                }
+            }
+            base = bucket;
+        }
+
+        /**
+         * Pobierz niewykorzystaną rezerwację pojazdu.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return rezerwacja lub null.
+         */
+        public Reservation getReservation(String licensePlate) {
+            return lookup(parkingLot.plateCodec.find(licensePlate));
+        }
+
+        /**
+         * Liczba miejsc zarezerwowanych, a jeszcze niezajętych przez pojazdy z rezerwacją, w danej chwili.
+         *
+         * @param time chwila.
+         * @return liczba zablokowanych miejsc (0 poza horyzontem).
+         */
+        public int getReserved(LocalDateTime time) {
+            long bucket = bucketOf(time);
+            return !inHorizon(bucket) || presentMask == 0 ? 0 : maxHold(presentMask, bucket, bucket + 1);
+        }
+
+        /**
+         * Pobierz początek horyzontu rezerwacji.
+         *
+         * @return początek pierwszego przedziału horyzontu.
+         */
+        public LocalDateTime getHorizonStart() {
+            return LocalDateTime.ofEpochSecond(originSecond + base * bucketSeconds, 0, ZoneOffset.UTC);
+        }
+
+        /**
+         * Liczba niewykorzystanych rezerwacji; rezerwacje, których okno minęło, wygasają przy przesunięciu
+         * horyzontu.
+         *
+         * @return liczba rezerwacji.
+         */
+        public int size() {
+            return byPlate.size();
+        }
+
+        /**
+         * Wybierz miejsce dla wjeżdżającego pojazdu z uwzględnieniem rezerwacji.
+         * Pojazd z rezerwacją aktywną w chwili wjazdu wykorzystuje ją i otrzymuje dowolne wolne miejsce
+         * swoich klas; pozostałe pojazdy otrzymują miejsce tylko z klasy, w której po wjeździe wystarczy
+         * miejsc dla aktywnych rezerwacji. Czas postoju nie jest znany, więc pojazd bez rezerwacji
+         * wjeżdżający przed oknem rezerwacji może je zająć. Metoda przesuwa horyzont do chwili wjazdu,
+         * ale nie wykorzystuje rezerwacji - robi to claim po zaparkowaniu pojazdu.
+         *
+         * @return indeks miejsca lub -1.
+         */
+        int admit(Vehicle vehicle, long plate) {
+            advance(vehicle.getEntryTime());
+            long bucket = bucketOf(vehicle.getEntryTime());
+            boolean claimed = active(lookup(plate), bucket);
+            for (SpotSize size : parkingLot.spotClassesFor(vehicle)) {
+                int spotIndex = parkingLot.firstFreeSpot(size);
+                if (spotIndex != -1 && (claimed || fits(size, bucket))) {
+                    return spotIndex;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Wykorzystaj rezerwację pojazdu, który właśnie zaparkował w jej oknie, i zwolnij blokadę
+         * do końca okna. Wywoływane po zmianie stanu parkingu, a przed powiadomieniem obserwatorów,
+         * więc błąd obserwatora nie gubi ani pojazdu, ani rezerwacji.
+         */
+        void claim(Vehicle vehicle, long plate) {
+            Reservation reservation = lookup(plate);
+            if (active(reservation, bucketOf(vehicle.getEntryTime()))) {
+                cancel(plate);
+            }
+        }
+
+        private static boolean active(Reservation reservation, long bucket) {
+            return reservation != null && bucket >= reservation.fromBucket && bucket < reservation.toBucket;
+        }
+
+        /**
+         * Czy zajęcie miejsca klasy size pozostawi dość wolnych miejsc dla rezerwacji w przedziale.
+         */
+        private boolean fits(SpotSize size, long bucket) {
+            if (!inHorizon(bucket)) {
+                return true;
+            }
+            int bit = 1 << size.ordinal();
+            for (int m = presentMask; m != 0; m = (m - 1) & presentMask) {
+                if ((m & bit) != 0 && freeSpots(m) - maxHold(m, bucket, bucket + 1) < 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean inHorizon(long bucket) {
+            return bucket >= base && bucket < base + buckets;
+        }
+
+        private int freeSpots(int mask) {
+            int free = 0;
+            for (SpotSize size : SIZES) {
+                if ((mask & (1 << size.ordinal())) != 0) {
+                    free += parkingLot.getAvailableSpots(size);
+                }
+            }
+            return free;
+        }
+
+        /**
+         * Dodaj delta do przedziałów [from, to) horyzontu; zakres przechodzący przez koniec tablicy
+         * drzewa jest dzielony na dwa.
+         */
+        private void addHold(int mask, long from, long to, int delta) {
+            if (from >= to) {
+                return;
+            }
+            int start = (int) Math.floorMod(from, (long) buckets);
+            int end = start + (int) (to - from);
+            for (int m = presentMask; m != 0; m = (m - 1) & presentMask) {
+                if ((m & mask) == mask) {
+                    held[m].add(start, Math.min(end, buckets), delta);
+                    if (end > buckets) {
+                        held[m].add(0, end - buckets, delta);
+                    }
+                }
+            }
+        }
+
+        private int maxHold(int mask, long from, long to) {
+            int start = (int) Math.floorMod(from, (long) buckets);
+            int end = start + (int) (to - from);
+            int max = held[mask].max(start, Math.min(end, buckets));
+            return end > buckets ? Math.max(max, held[mask].max(0, end - buckets)) : max;
+        }
+
+        private int typeMask(String vehicleType) {
+            int mask = 0;
+            for (SpotSize size : parkingLot.spotClassesFor(vehicleType)) {
+                mask |= 1 << size.ordinal();
+            }
+            return mask & presentMask;
+        }
+
+        private long bucketOf(LocalDateTime time) {
+            return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC) - originSecond, bucketSeconds);
+        }
+
+        private long bucketFrom(LocalDateTime start) {
+            long from = bucketOf(start);
+            if (!inHorizon(from)) {
+                throw new IllegalArgumentException("Okno rezerwacji wykracza poza horyzont");
+            }
+            return from;
+        }
+
+        private long bucketTo(LocalDateTime start, LocalDateTime end) {
+            if (!end.isAfter(start)) {
+                throw new IllegalArgumentException("Koniec okna rezerwacji musi być po jego początku");
+            }
+            long to = -Math.floorDiv(originSecond - end.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+            if (to > base + buckets) {
+                throw new IllegalArgumentException("Okno rezerwacji wykracza poza horyzont");
+            }
+            return to;
+        }
+
+        /**
+         * Drzewo przedziałowe nad przedziałami czasu: dodawanie stałej na zakresie i maksimum na zakresie.
+         * Węzeł przechowuje maksimum swojego poddrzewa wraz z własnym, niepropagowanym dodatkiem.
+         */
+        private static final class CapacityTree {
+            private final int size;
+            private final int[] max;
+            private final int[] add;
+
+            CapacityTree(int size) {
+                this.size = size;
+                this.max = new int[4 * size];
+                this.add = new int[4 * size];
+            }
+
+            void add(int from, int to, int delta) {
+                add(1, 0, size, from, to, delta);
+            }
+
+            int max(int from, int to) {
+                return max(1, 0, size, from, to);
+            }
+
+            private void add(int node, int lo, int hi, int from, int to, int delta) {
+                if (to <= lo || hi <= from) {
+                    return;
+                }
+                if (from <= lo && hi <= to) {
+                    max[node] += delta;
+                    add[node] += delta;
+                    return;
+                }
+                int mid = (lo + hi) >>> 1;
+                add(2 * node, lo, mid, from, to, delta);
+                add(2 * node + 1, mid, hi, from, to, delta);
+                max[node] = add[node] + Math.max(max[2 * node], max[2 * node + 1]);
+            }
+
+            private int max(int node, int lo, int hi, int from, int to) {
+                if (to <= lo || hi <= from) {
+                    return Integer.MIN_VALUE;
+                }
+                if (from <= lo && hi <= to) {
+                    return max[node];
+                }
+                int mid = (lo + hi) >>> 1;
+                // węzeł częściowo pokrywa zakres, więc co najmniej jedno dziecko zwraca prawdziwą wartość
+                return add[node] + Math.max(max(2 * node, lo, mid, from, to), max(2 * node + 1, mid, hi, from, to));
+            }
+        }
+    }
+
+    /**
+     * Alarmy przekroczenia czasu postoju i wygaśnięcia opłaconego czasu.
+     * Terminy zajętych miejsc są rejestrowane przy wjeździe w hierarchicznym kole czasowym
+     * (6 poziomów po 64 przedziały, najniższy poziom o rozdzielczości 1 sekundy). Listy przedziałów
+     * są dwukierunkowe i indeksowane numerem miejsca, więc wyjazd usuwa termin w O(1), a przesunięcie
+     * czasu odwiedza tylko niepuste przedziały (mapy bitowe zajętości poziomów), także przy dużych skokach.
+     * Nie jest bezpieczny wątkowo; używać w wątku obsługującym parking.
+     */
+    public static class OverstayMonitor implements ParkingLotListener {
+        private static final int BITS = 6;
+        private static final int SLOTS = 1 << BITS;
+        private static final int LEVELS = 6;
+        private static final int OVERDUE = LEVELS * SLOTS; // lista terminów, które już minęły
+        private static final int NONE = -1;
+
+        private final ParkingLot parkingLot;
+        private final long origin; // sekunda epoki odpowiadająca chwili 0 koła
+        private final Map<String, Long> limitSeconds = new HashMap<>(); // typ pojazdu -> limit postoju
+        private final long defaultLimitSeconds; // -1, jeśli brak domyślnego limitu
+        private final long[] deadlines; // miejsce -> termin (sekundy od origin)
+        private final int[] next;
+        private final int[] prev;
+        private final int[] slotOf;     // miejsce -> przedział lub NONE
+        private final int[] heads = new int[OVERDUE + 1];
+        private final long[] occupied = new long[LEVELS];
+        private long current;
+        private int scheduled;
+
+        /**
+         * Obsługa alarmu.
+         */
+        public interface Handler {
+
+            /**
+             * Termin pojazdu minął.
+             *
+             * @param vehicle    pojazd, który nadal stoi na parkingu.
+             * @param spotNumber numer zajmowanego miejsca.
+             * @param deadline   termin, który minął.
+             */
+            void onOverstay(Vehicle vehicle, int spotNumber, LocalDateTime deadline);
+        }
+
+        private OverstayMonitor(ParkingLot parkingLot, Duration defaultLimit, LocalDateTime now) {
+            this.parkingLot = parkingLot;
+            this.origin = now.toEpochSecond(ZoneOffset.UTC);
+            this.defaultLimitSeconds = defaultLimit == null ? -1 : limitToSeconds(defaultLimit);
+            int capacity = parkingLot.getCapacity();
+            this.deadlines = new long[capacity];
+            this.next = new int[capacity];
+            this.prev = new int[capacity];
+            this.slotOf = new int[capacity];
+            Arrays.fill(slotOf, NONE);
+            Arrays.fill(heads, NONE);
+        }
+
+        /**
+         * Zarejestruj monitor jako obserwatora parkingu. Pojazdy już stojące na parkingu
+         * otrzymują terminy według domyślnego limitu.
+         *
+         * @param parkingLot   parking.
+         * @param defaultLimit dopuszczalny czas postoju lub null, jeśli tylko terminy z setLimit/setDeadline.
+         * @param now          bieżący czas (symulacji lub zegara).
+         * @return monitor.
+         */
+        public static OverstayMonitor attach(ParkingLot parkingLot, Duration defaultLimit, LocalDateTime now) {
+            OverstayMonitor monitor = new OverstayMonitor(parkingLot, defaultLimit, now);
+            for (int i = 0; i < parkingLot.getCapacity(); i++) {
+                Vehicle vehicle = parkingLot.spots.get(i).getParkedVehicle();
+                if (vehicle != null) {
+                    monitor.onVehicleEntered(vehicle, i + 1);
+                }
+            }
+            parkingLot.addListener(monitor);
+            return monitor;
+        }
+
+        /**
+         * Ustaw dopuszczalny czas postoju dla typu pojazdu (dotyczy kolejnych wjazdów).
+         *
+         * @param vehicleType typ pojazdu (jak w Vehicle.getType()).
+         * @param limit       limit postoju.
+         */
+        public void setLimit(String vehicleType, Duration limit) {
+            limitSeconds.put(vehicleType, limitToSeconds(limit));
+        }
+
+        /**
+         * Ustaw termin pojazdu (np. koniec opłaconego czasu), zastępując dotychczasowy.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @param deadline     termin.
+         * @return false, jeśli pojazdu nie ma na parkingu.
+         */
+        public boolean setDeadline(String licensePlate, LocalDateTime deadline) {
+            ParkingSpot spot = parkingLot.findSpot(licensePlate);
+            if (spot == null) {
+                return false;
+            }
+            int spotIndex = spot.getSpotNumber() - 1;
+            cancel(spotIndex);
+            schedule(spotIndex, toTick(deadline.toEpochSecond(ZoneOffset.UTC), deadline.getNano()));
+            return true;
+        }
+
+        /**
+         * Pobierz oczekujący termin pojazdu.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return termin lub null, jeśli pojazd nie ma terminu albo alarm już zgłoszono.
+         */
+        public LocalDateTime getDeadline(String licensePlate) {
+            ParkingSpot spot = parkingLot.findSpot(licensePlate);
+            if (spot == null || slotOf[spot.getSpotNumber() - 1] == NONE) {
+                return null;
+            }
+            return toTime(deadlines[spot.getSpotNumber() - 1]);
+        }
+
+        /**
+         * Liczba oczekujących terminów.
+         *
+         * @return liczba terminów.
+         */
+        public int size() {
+            return scheduled;
+        }
+
+        /**
+         * Przesuń czas monitora i zgłoś alarmy dla terminów nie późniejszych niż now.
+         * Terminy, które minęły już w chwili rejestracji, są zgłaszane najpierw, pozostałe
+         * w kolejności terminów. Każdy termin jest zgłaszany raz. Czas nie cofa się.
+         *
+         * @param now     nowy czas.
+         * @param handler obsługa alarmów.
+         * @return liczba zgłoszonych alarmów.
+         */
+        public int advanceTo(LocalDateTime now, Handler handler) {
+            long target = now.toEpochSecond(ZoneOffset.UTC) - origin;
+            int fired = fire(OVERDUE, handler);
+            while (true) {
+                int level = NONE;
+                int slot = 0;
+                long time = Long.MAX_VALUE;
+                for (int l = 0; l < LEVELS; l++) {
+                    int shift = BITS * l;
+                    int currentSlot = (int) (current >>> shift) & (SLOTS - 1);
+                    long later = currentSlot == SLOTS - 1 ? 0 : occupied[l] & (-1L << (currentSlot + 1));
+                    if (later != 0) {
+                        int s = Long.numberOfTrailingZeros(later);
+                        long start = ((current >>> (shift + BITS)) << (shift + BITS)) + ((long) s << shift);
+                        if (start < time) {
+                            time = start;
+                            level = l;
+                            slot = s;
+                        }
+                    }
+                }
+                if (level == NONE || time > target) {
+                    current = Math.max(current, target);
+                    return fired;
+                }
+                current = time;
+                int index = level * SLOTS + slot;
+                if (level == 0) {
+                    fired += fire(index, handler);
+                } else {
+                    // rozłóż przedział na niższe poziomy względem nowego czasu
+                    int node = heads[index];
+                    heads[index] = NONE;
+                    occupied[level] &= ~(1L << slot);
+                    while (node != NONE) {
+                        int following = next[node];
+                        slotOf[node] = NONE;
+                        scheduled--;
+                        schedule(node, deadlines[node]);
+                        node = following;
+                    }
+                    fired += fire(OVERDUE, handler);
+                }
+            }
+        }
+
+        @Override
+        public void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+            Long limit = limitSeconds.get(vehicle.getType());
+            long seconds = limit != null ? limit : defaultLimitSeconds;
+            if (seconds >= 0) {
+                LocalDateTime entryTime = vehicle.getEntryTime();
+                schedule(spotNumber - 1, toTick(entryTime.toEpochSecond(ZoneOffset.UTC) + seconds, entryTime.getNano()));
+            }
+        }
+
+        @Override
+        public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            cancel(spotNumber - 1);
+        }
+
+        private int fire(int index, Handler handler) {
+            int fired = 0;
+            while (heads[index] != NONE) {
+                int spotIndex = heads[index];
+                cancel(spotIndex);
+                ParkingSpot spot = parkingLot.spots.get(spotIndex);
+                handler.onOverstay(spot.getParkedVehicle(), spot.getSpotNumber(), toTime(deadlines[spotIndex]));
+                fired++;
+            }
+            return fired;
+        }
+
+        private void schedule(int spotIndex, long deadline) {
+            int index;
+            if (deadline <= current) {
+                index = OVERDUE;
+            } else {
+                int level = 0;
+                while ((deadline >>> (BITS * (level + 1))) != (current >>> (BITS * (level + 1)))) {
+                    if (++level == LEVELS) {
+                        throw new IllegalArgumentException("Termin jest zbyt odległy");
+                    }
+                }
+                int slot = (int) (deadline >>> (BITS * level)) & (SLOTS - 1);
+                index = level * SLOTS + slot;
+                occupied[level] |= 1L << slot;
+            }
+            deadlines[spotIndex] = deadline;
+            slotOf[spotIndex] = index;
+            prev[spotIndex] = NONE;
+            next[spotIndex] = heads[index];
+            if (heads[index] != NONE) {
+                prev[heads[index]] = spotIndex;
+            }
+            heads[index] = spotIndex;
+            scheduled++;
+        }
+
+        private void cancel(int spotIndex) {
+            int index = slotOf[spotIndex];
+            if (index == NONE) {
+                return;
+            }
+            if (prev[spotIndex] != NONE) {
+                next[prev[spotIndex]] = next[spotIndex];
+            } else {
+                heads[index] = next[spotIndex];
+            }
+            if (next[spotIndex] != NONE) {
+                prev[next[spotIndex]] = prev[spotIndex];
+            }
+            if (heads[index] == NONE && index != OVERDUE) {
+                occupied[index / SLOTS] &= ~(1L << (index % SLOTS));
+            }
+            slotOf[spotIndex] = NONE;
+            scheduled--;
+        }
+
+        /**
+         * Termin w sekundach od origin, zaokrąglony w górę do pełnej sekundy.
+         */
+        private long toTick(long epochSecond, int nano) {
+            return epochSecond - origin + (nano > 0 ? 1 : 0);
+        }
+
+        private LocalDateTime toTime(long tick) {
+            return LocalDateTime.ofEpochSecond(origin + tick, 0, ZoneOffset.UTC);
+        }
+
+        private static long limitToSeconds(Duration limit) {
+            if (limit.isNegative()) {
+                throw new IllegalArgumentException("Limit postoju nie może być ujemny");
+            }
+            return limit.getSeconds() + (limit.getNano() > 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * Histogram opóźnień bez blokad o skali logarytmiczno-liniowej: wartości poniżej 8 mają
+     * własne kubełki, a każda kolejna potęga dwójki dzielona jest na 8 kubełków (błąd względny
+     * percentyla do 12,5%). Zapis to jedna operacja atomowa na tablicy, bez alokacji.
+     */
+    public static class LatencyHistogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int BUCKETS = (63 - 2) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int msb = 63 - Long.numberOfLeadingZeros(value);
+            return (msb - 2) * SUB_BUCKETS + (int) ((value >>> (msb - 3)) & (SUB_BUCKETS - 1));
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int msb = bucket / SUB_BUCKETS + 2;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (msb - 3)) - 1;
+        }
+
+        /**
+         * Zapisz jedną wartość.
+         *
+         * @param value wartość (np. czas w nanosekundach).
+         */
+        public void record(long value) {
+            counts.incrementAndGet(bucket(value));
+            sum.add(value);
+        }
+
+        /**
+         * Pobierz liczbę zapisanych wartości.
+         *
+         * @return liczba wartości.
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        /**
+         * Oblicz percentyle z bieżącego stanu histogramu.
+         *
+         * @param quantiles kwantyle z przedziału [0, 1] w kolejności rosnącej.
+         * @return górne granice kubełków zawierających podane kwantyle (0, jeśli histogram pusty).
+         */
+        public long[] percentiles(double... quantiles) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long[] result = new long[quantiles.length];
+            if (total == 0) {
+                return result;
+            }
+            long cumulative = 0;
+            int q = 0;
+            for (int i = 0; i < BUCKETS && q < quantiles.length; i++) {
+                cumulative += snapshot[i];
+                while (q < quantiles.length && cumulative >= Math.ceil(quantiles[q] * total)) {
+                    result[q++] = upperBound(i);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Metryki parkingu: opóźnienia wjazdów i wyjazdów, odmowy wjazdu, zajętość według typu
+     * pojazdu i przychód. Liczniki są bez blokad, więc eksport może odbywać się z innego wątku
+     * niż obsługa bramek. Podłączane przez ParkingLot.setMetrics; eksport w formacie tekstowym
+     * Prometheus przez writePrometheus lub wbudowany serwer HTTP (startServer).
+     */
+    public static class ParkingMetrics implements ParkingLotListener {
+        private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+        private final int capacity;
+        private final LatencyHistogram entryLatency = new LatencyHistogram();
+        private final LatencyHistogram exitLatency = new LatencyHistogram();
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder exits = new LongAdder();
+        private final LongAdder exitsNotFound = new LongAdder();
+        private final LongAdder[] rejections = new LongAdder[ParkingLot.EntryStatus.values().length];
+        private final LongAdder revenueCents = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> occupancy = new ConcurrentHashMap<>();
+
+        /**
+         * Konstruktor metryk.
+         *
+         * @param capacity liczba miejsc parkingu (do miernika wolnych miejsc).
+         */
+        public ParkingMetrics(int capacity) {
+            this.capacity = capacity;
+            for (int i = 0; i < rejections.length; i++) {
+                rejections[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Zapisz wynik i czas trwania wjazdu.
+         *
+         * @param status wynik wjazdu.
+         * @param nanos  czas trwania w nanosekundach (ujemny - bez pomiaru, np. w operacji wsadowej).
+         */
+        public void recordEntry(ParkingLot.EntryStatus status, long nanos) {
+            if (nanos >= 0) {
+                entryLatency.record(nanos);
+            }
+            if (status == ParkingLot.EntryStatus.PARKED) {
+                entries.increment();
+            } else {
+                rejections[status.ordinal()].increment();
+            }
+        }
+
+        /**
+         * Zapisz wynik i czas trwania wyjazdu.
+         *
+         * @param found true, jeśli pojazd wyjechał.
+         * @param nanos czas trwania w nanosekundach (ujemny - bez pomiaru).
+         */
+        public void recordExit(boolean found, long nanos) {
+            if (nanos >= 0) {
+                exitLatency.record(nanos);
+            }
+            if (found) {
+                exits.increment();
+            } else {
+                exitsNotFound.increment();
+            }
+        }
+
+        @Override
+        public void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+            occupancy.computeIfAbsent(vehicle.getType(), t -> new LongAdder()).increment();
+        }
+
+        @Override
+        public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            occupancy.computeIfAbsent(record.getVehicleType(), t -> new LongAdder()).decrement();
+            revenueCents.add(Math.round(record.getFee() * 100));
+        }
+
+        public LatencyHistogram getEntryLatency() {
+            return entryLatency;
+        }
+
+        public LatencyHistogram getExitLatency() {
+            return exitLatency;
+        }
+
+        public long getRejections(ParkingLot.EntryStatus status) {
+            return rejections[status.ordinal()].sum();
+        }
+
+        public long getOccupancy(String vehicleType) {
+            LongAdder count = occupancy.get(vehicleType);
+            return count == null ? 0 : count.sum();
+        }
+
+        /**
+         * Zapisz wszystkie metryki w formacie tekstowym Prometheus (wersja 0.0.4).
+         *
+         * @param out wyjście.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writePrometheus(Appendable out) throws IOException {
+            StringBuilder sb = new StringBuilder(2048);
+            writeSummary(sb, "parking_entry_duration_seconds", "Czas obsługi wjazdu", entryLatency);
+            writeSummary(sb, "parking_exit_duration_seconds", "Czas obsługi wyjazdu", exitLatency);
+            sb.append("# HELP parking_entries_total Pojazdy zaparkowane\n");
+            sb.append("# TYPE parking_entries_total counter\n");
+            sb.append("parking_entries_total ").append(entries.sum()).append('\n');
+            sb.append("# HELP parking_entries_rejected_total Odmowy wjazdu według przyczyny\n");
+            sb.append("# TYPE parking_entries_rejected_total counter\n");
+            for (ParkingLot.EntryStatus status : ParkingLot.EntryStatus.values()) {
+                if (status != ParkingLot.EntryStatus.PARKED) {
+                    sb.append("parking_entries_rejected_total{reason=\"")
+                            .append(status.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                            .append(rejections[status.ordinal()].sum()).append('\n');
+                }
+            }
+            sb.append("# HELP parking_exits_total Zakończone wyjazdy\n");
+            sb.append("# TYPE parking_exits_total counter\n");
+            sb.append("parking_exits_total ").append(exits.sum()).append('\n');
+            sb.append("# HELP parking_exits_not_found_total Wyjazdy pojazdów nieobecnych na parkingu\n");
+            sb.append("# TYPE parking_exits_not_found_total counter\n");
+            sb.append("parking_exits_not_found_total ").append(exitsNotFound.sum()).append('\n');
+            sb.append("# HELP parking_revenue_total Przychód w jednostkach walutowych\n");
+            sb.append("# TYPE parking_revenue_total counter\n");
+            long cents = revenueCents.sum();
+            sb.append("parking_revenue_total ").append(cents / 100).append('.')
+                    .append(cents % 100 < 10 ? "0" : "").append(cents % 100).append('\n');
+            sb.append("# HELP parking_occupied_spots Zajęte miejsca według typu pojazdu\n");
+            sb.append("# TYPE parking_occupied_spots gauge\n");
+            long occupied = 0;
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(occupancy).entrySet()) {
+                long count = e.getValue().sum();
+                occupied += count;
+                sb.append("parking_occupied_spots{type=\"").append(e.getKey()).append("\"} ")
+                        .append(count).append('\n');
+            }
+            sb.append("# HELP parking_available_spots Wolne miejsca\n");
+            sb.append("# TYPE parking_available_spots gauge\n");
+            sb.append("parking_available_spots ").append(capacity - occupied).append('\n');
+            out.append(sb);
+        }
+
+        private static void writeSummary(StringBuilder sb, String name, String help, LatencyHistogram histogram) {
+            sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(name).append(" summary\n");
+            long[] values = histogram.percentiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                sb.append(name).append("{quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(values[i] / 1e9).append('\n');
+            }
+            sb.append(name).append("_sum ").append(histogram.getSum() / 1e9).append('\n');
+            sb.append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+
+        /**
+         * Uruchom lokalny serwer HTTP udostępniający metryki pod ścieżką /metrics.
+         *
+         * @param port port (0 - dowolny wolny).
+         * @return uruchomiony serwer; zatrzymanie przez stop(0).
+         * @throws IOException jeśli nie można otworzyć portu.
+         */
+        public HttpServer startServer(int port) throws IOException {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                try (exchange) {
+                    StringBuilder body = new StringBuilder(2048);
+                    writePrometheus(body);
+                    byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    exchange.getResponseBody().write(bytes);
+                }
+            });
+            server.start();
+            return server;
+        }
+    }
+
+    /**
+     * Trwały dziennik zdarzeń wjazdu, wyjazdu i czyszczenia raportu. Dziennik jest obserwatorem parkingu,
+     * więc zdarzenie dopisywane jest po zmianie stanu (write-behind), jeszcze w tym samym wywołaniu
+     * enterVehicle/exitVehicle: awaria między zmianą stanu a dopisaniem traci zdarzenie, którego wynik
+     * nie został jeszcze zwrócony bramce. Zdarzenia są kodowane binarnie, gromadzone w buforze i zapisywane
+     * przez FileChannel grupowo; fsync wykonywany jest co syncBatchSize zdarzeń (przy 1 - zanim wywołanie
+     * wróci do bramki) lub co syncIntervalMillis (z wątku w tle), zależnie od tego, co nastąpi pierwsze.
+     * Awaria JVM może więc utracić najwyżej ostatnią niezsynchronizowaną partię. Błąd fsync w tle jest
+     * zapamiętywany i zgłaszany przy najbliższym zdarzeniu w wątku bramek; nieudany zapis zostawia
+     * niezapisane bajty w buforze do ponowienia.
+     *
+     * Dziennik składa się z segmentów (path, path.1, path.2, ...). Po przekroczeniu maxSegmentBytes zapis
+     * przechodzi do nowego segmentu, a po wyczyszczeniu raportu dziennego nowy segment zaczyna się punktem
+     * kontrolnym z zajętymi miejscami (plik tymczasowy i atomowa podmiana) i starsze segmenty są usuwane,
+     * więc dziennik obejmuje tylko bieżący dzień. Punkt kontrolny przegląda wszystkie miejsca w wątku bramek,
+     * raz na dzień. Przy otwarciu segmenty od ostatniego punktu kontrolnego są odtwarzane strumieniowo do
+     * parkingu, a uszkodzona końcówka ostatniego segmentu (przerwany zapis) jest obcinana.
+     *
+     * Format wpisu: [int długość][byte operacja][long sekunda epoki][int nanosekundy]
+     * [byte rodzaj pojazdu][short długość numeru][numer UTF-8][int CRC32C]; wpis zajętego miejsca
+     * w punkcie kontrolnym ma przed sumą kontrolną dodatkowo [int indeks miejsca].
+     */
+    public static class ParkingJournal implements ParkingLotListener, Closeable {
+        private static final int MAGIC = 0x504A524E; // "PJRN"
+        private static final int VERSION = 2; // wersja 1 nie zna punktów kontrolnych
+        private static final int HEADER_SIZE = 8;
+        private static final int MAX_PLATE_BYTES = 256;
+        private static final int MAX_ENTRY_SIZE = 4 + 20 + MAX_PLATE_BYTES + 4;
+        private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+        private static final byte OP_ENTER = 1;
+        private static final byte OP_EXIT = 2;
+        private static final byte OP_CLEAR = 3;
+        private static final byte OP_CHECKPOINT = 4;
+        private static final byte OP_PARKED = 5;
+        private static final byte[] NO_PLATE = new byte[0];
+
+        private final Path path;
+        private final ParkingLot parkingLot;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        private final CRC32C crc = new CRC32C();
+        private final int syncBatchSize;
+        private final long syncIntervalNanos;
+        private final long maxSegmentBytes;
+        private ScheduledExecutorService syncTimer;
+        private FileChannel channel; // bieżący segment
+        private long segment;
+        private int pendingEvents;
+        private long lastSyncNanos;
+        private long replayedEvents;
+        private LocalDateTime lastEventTime;
+        private RuntimeException pendingSyncError; // błąd fsync w tle, jeszcze niezgłoszony bramce
+        private volatile RuntimeException lastSyncError;
+
+        private ParkingJournal(Path path, ParkingLot parkingLot, int syncBatchSize, long syncIntervalMillis,
+                               long maxSegmentBytes) {
+            this.path = path;
+            this.parkingLot = parkingLot;
+            this.syncBatchSize = Math.max(1, syncBatchSize);
+            this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+            this.maxSegmentBytes = Math.max(HEADER_SIZE + MAX_ENTRY_SIZE, maxSegmentBytes);
+            this.lastSyncNanos = System.nanoTime();
+        }
+
+        /**
+         * Otwórz (lub utwórz) dziennik z segmentami po 64 MB, odtwórz zapisane zdarzenia do parkingu
+         * i zarejestruj dziennik jako obserwatora parkingu.
+         *
+         * @param path               ścieżka pierwszego segmentu dziennika (kolejne otrzymują przyrostek .n).
+         * @param parkingLot         parking, do którego odtwarzany jest stan (zwykle świeżo utworzony).
+         * @param syncBatchSize      liczba zdarzeń na jeden fsync (1 = każde zdarzenie trwałe od razu).
+         * @param syncIntervalMillis maksymalny czas między fsync w ms (0 = tylko wg liczby zdarzeń).
+         * @return otwarty dziennik.
+         * @throws IOException w przypadku błędu odczytu lub zapisu.
+         */
+        public static ParkingJournal open(Path path, ParkingLot parkingLot,
+                                          int syncBatchSize, long syncIntervalMillis) throws IOException {
+            return open(path, parkingLot, syncBatchSize, syncIntervalMillis, DEFAULT_SEGMENT_BYTES);
+        }
+
+        /**
+         * Otwórz (lub utwórz) dziennik, odtwórz zapisane zdarzenia do parkingu
+         * i zarejestruj dziennik jako obserwatora parkingu.
+         *
+         * @param path               ścieżka pierwszego segmentu dziennika (kolejne otrzymują przyrostek .n).
+         * @param parkingLot         parking, do którego odtwarzany jest stan (zwykle świeżo utworzony).
+         * @param syncBatchSize      liczba zdarzeń na jeden fsync (1 = każde zdarzenie trwałe od razu).
+         * @param syncIntervalMillis maksymalny czas między fsync w ms (0 = tylko wg liczby zdarzeń).
+         * @param maxSegmentBytes    rozmiar segmentu, po którego przekroczeniu zapis przechodzi do nowego.
+         * @return otwarty dziennik.
+         * @throws IOException w przypadku błędu odczytu lub zapisu.
+         */
+        public static ParkingJournal open(Path path, ParkingLot parkingLot, int syncBatchSize,
+                                          long syncIntervalMillis, long maxSegmentBytes) throws IOException {
+            ParkingJournal journal = new ParkingJournal(path, parkingLot, syncBatchSize, syncIntervalMillis,
+                    maxSegmentBytes);
+            try {
+                journal.replay();
+            } catch (IOException | RuntimeException e) {
+                if (journal.channel != null) {
+                    journal.channel.close();
+                }
+                throw e;
+            }
+            parkingLot.addListener(journal);
+            if (syncIntervalMillis > 0) {
+                journal.syncTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "dziennik-fsync");
+                    t.setDaemon(true);
+                    return t;
+                });
+                journal.syncTimer.scheduleWithFixedDelay(journal::syncIfDue,
+                        syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+            return journal;
+        }
+
+        private Path segmentPath(long n) {
+            return n == 0 ? path : path.resolveSibling(path.getFileName() + "." + n);
+        }
+
+        /**
+         * Znajdź numery istniejących segmentów (rosnąco) i usuń pozostałości przerwanych punktów kontrolnych.
+         */
+        private long[] listSegments() throws IOException {
+            String base = path.getFileName().toString();
+            Path dir = path.toAbsolutePath().getParent();
+            List<Long> found = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.equals(base)) {
+                        found.add(0L);
+                    } else if (name.startsWith(base + ".")) {
+                        String suffix = name.substring(base.length() + 1);
+                        if (suffix.endsWith(".tmp") && isNumber(suffix.substring(0, suffix.length() - 4))) {
+                            Files.deleteIfExists(file);
+                        } else if (isNumber(suffix)) {
+                            found.add(Long.parseLong(suffix));
+                        }
+                    }
+                }
+            }
+            long[] segments = new long[found.size()];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = found.get(i);
+            }
+            Arrays.sort(segments);
+            return segments;
+        }
+
+        private static boolean isNumber(String text) {
+            if (text.isEmpty() || text.length() > 18) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Odtwórz segmenty od ostatniego punktu kontrolnego do parkingu i ustaw pozycję zapisu
+         * za ostatnim poprawnym wpisem ostatniego segmentu.
+         */
+        private void replay() throws IOException {
+            long[] segments = listSegments();
+            if (segments.length == 0) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                writeHeader(channel);
+                channel.force(false);
+                return;
+            }
+            int first = 0;
+            for (int i = segments.length - 1; i > 0; i--) {
+                if (startsWithCheckpoint(segmentPath(segments[i]))) {
+                    first = i;
+                    break;
+                }
+            }
+            for (int i = 0; i < first; i++) {
+                Files.deleteIfExists(segmentPath(segments[i])); // przerwane usuwanie po punkcie kontrolnym
+            }
+            for (int i = first; i < segments.length; i++) {
+                boolean last = i == segments.length - 1;
+                Path file = segmentPath(segments[i]);
+                FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    long size = in.size();
+                    long validEnd;
+                    if (size < HEADER_SIZE && last) {
+                        in.truncate(0); // segment utworzony tuż przed awarią
+                        writeHeader(in);
+                        validEnd = HEADER_SIZE;
+                    } else {
+                        validEnd = replaySegment(in, size);
+                    }
+                    if (validEnd < size) {
+                        if (!last) {
+                            throw new IOException("Uszkodzony segment dziennika: " + file);
+                        }
+                        in.truncate(validEnd);
+                        in.force(false);
+                    }
+                    if (last) {
+                        in.position(validEnd);
+                        channel = in;
+                        segment = segments[i];
+                    }
+                } finally {
+                    if (channel != in) {
+                        in.close();
+                    }
+                }
+            }
+        }
+
+        private boolean startsWithCheckpoint(Path file) throws IOException {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE + 5);
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (head.hasRemaining() && in.read(head, head.position()) > 0) {
+                    // czytaj do zapełnienia
+                }
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC && head.get(HEADER_SIZE + 4) == OP_CHECKPOINT;
+        }
+
+        /**
+         * Odtwórz wpisy jednego segmentu, czytając go strumieniowo oknami bufora.
+         *
+         * @return pozycja za ostatnim poprawnym wpisem.
+         */
+        private long replaySegment(FileChannel in, long size) throws IOException {
+            ByteBuffer window = ByteBuffer.allocate(1 << 20);
+            long readPosition = 0;
+            window.limit(0);
+            long validEnd = HEADER_SIZE;
+            boolean header = true;
+            while (true) {
+                if (window.remaining() < MAX_ENTRY_SIZE && readPosition < size) {
+                    window.compact();
+                    int n;
+                    while (window.hasRemaining() && (n = in.read(window, readPosition)) > 0) {
+                        readPosition += n;
+                    }
+                    window.flip();
+                }
+                if (header) {
+                    int version = window.remaining() >= HEADER_SIZE && window.getInt() == MAGIC ? window.getInt() : -1;
+                    if (version != 1 && version != VERSION) {
+                        throw new IOException("Nieprawidłowy plik dziennika");
+                    }
+                    header = false;
+                    continue;
+                }
+                if (window.remaining() < 4) {
+                    break;
+                }
+                int start = window.position();
+                int length = window.getInt(start);
+                if (length < 16 || length > 20 + MAX_PLATE_BYTES || window.remaining() < length + 8) {
+                    break; // przerwany lub uszkodzony wpis
+                }
+                ByteBuffer payload = window.duplicate();
+                payload.position(start + 4).limit(start + 4 + length);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != window.getInt(start + 4 + length)) {
+                    break;
+                }
+                window.position(start + 4);
+                apply(window);
+                window.position(start + 8 + length);
+                validEnd += 8 + length;
+                replayedEvents++;
+            }
+            return validEnd;
+        }
+
+        private void apply(ByteBuffer in) {
+            byte op = in.get();
+            LocalDateTime time = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+            byte kind = in.get();
+            byte[] plateBytes = new byte[in.getShort()];
+            in.get(plateBytes);
+            String plate = new String(plateBytes, StandardCharsets.UTF_8);
+            switch (op) {
+                case OP_ENTER:
+                    parkingLot.enterVehicle(ParkingLot.createVehicle(kind, plate, time));
+                    lastEventTime = time;
+                    break;
+                case OP_EXIT:
+                    parkingLot.exitVehicle(plate, time);
+                    lastEventTime = time;
+                    break;
+                case OP_CLEAR:
+                    parkingLot.clearDailyReport();
+                    break;
+                case OP_CHECKPOINT:
+                    if (kind != 0) {
+                        lastEventTime = time; // rodzaj 1: punkt kontrolny niesie czas ostatniego zdarzenia
+                    }
+                    break;
+                case OP_PARKED:
+                    parkingLot.restoreVehicle(in.getInt(), ParkingLot.createVehicle(kind, plate, time));
+                    break;
+                default:
+                    throw new IllegalStateException("Nieznana operacja w dzienniku: " + op);
+            }
+        }
+
+        private static void writeHeader(FileChannel target) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+        }
+
+        @Override
+        public void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+            append(OP_ENTER, vehicle.getEntryTime(), ParkingLot.vehicleKind(vehicle), vehicle.getLicensePlate());
+        }
+
+        @Override
+        public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            append(OP_EXIT, record.getExitTime(), (byte) 0, record.getLicensePlate());
+        }
+
+        /**
+         * Koniec dnia: po wpisie czyszczenia raportu dziennik przechodzi do segmentu z punktem kontrolnym.
+         */
+        @Override
+        public synchronized void onDailyReportCleared() {
+            append(OP_CLEAR, null, (byte) 0, "");
+            checkpoint();
+        }
+
+        /**
+         * Partia jest jedną jednostką zatwierdzenia: po jej zakończeniu wykonywany jest jeden fsync.
+         */
+        @Override
+        public synchronized void onBatchCompleted() {
+            if (pendingEvents > 0) {
+                sync();
+            }
+        }
+
+        private synchronized void append(byte op, LocalDateTime time, byte kind, String plate) {
+            byte[] plateBytes = plate.getBytes(StandardCharsets.UTF_8);
+            if (plateBytes.length > MAX_PLATE_BYTES) {
+                throw new IllegalArgumentException("Numer rejestracyjny jest zbyt długi");
+            }
+            put(channel, op, time, kind, plateBytes, -1);
+            if (time != null) {
+                lastEventTime = time;
+            }
+            if (++pendingEvents >= syncBatchSize) {
+                sync();
+            }
+            try {
+                if (channel.position() + buffer.position() >= maxSegmentBytes) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            reportSyncError();
+        }
+
+        /**
+         * Zakoduj wpis do bufora; pełny bufor jest najpierw zapisywany do target.
+         * Indeks miejsca (spot) zapisywany jest tylko we wpisach zajętego miejsca.
+         */
+        private void put(FileChannel target, byte op, LocalDateTime time, byte kind, byte[] plateBytes, int spot) {
+            int length = 16 + plateBytes.length + (op == OP_PARKED ? 4 : 0);
+            if (buffer.remaining() < length + 8) {
+                flushBuffer(target);
+            }
+            buffer.putInt(length);
+            int payloadStart = buffer.position();
+            buffer.put(op);
+            buffer.putLong(time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(time == null ? 0 : time.getNano());
+            buffer.put(kind);
+            buffer.putShort((short) plateBytes.length);
+            buffer.put(plateBytes);
+            if (op == OP_PARKED) {
+                buffer.putInt(spot);
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(payloadStart).limit(buffer.position());
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt((int) crc.getValue());
+        }
+
+        /**
+         * Zapisz bufor do target. Po błędzie niezapisane bajty zostają w buforze, a następny zapis
+         * kontynuuje od miejsca przerwania.
+         */
+        private void flushBuffer(FileChannel target) {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            } catch (IOException e) {
+                buffer.compact();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Przejdź do nowego, pustego segmentu po przekroczeniu rozmiaru bieżącego.
+         */
+        private void rotate() throws IOException {
+            sync();
+            Path next = segmentPath(segment + 1);
+            FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                writeHeader(out);
+                out.force(false);
+            } catch (IOException e) {
+                out.close();
+                Files.deleteIfExists(next);
+                throw e;
+            }
+            channel.close();
+            channel = out;
+            segment++;
+        }
+
+        /**
+         * Zapisz punkt kontrolny (zajęte miejsca po wyczyszczeniu raportu) jako nowy segment i usuń starsze.
+         * Segment jest widoczny dopiero po atomowej podmianie, więc przy awarii odtwarzane są stare segmenty.
+         */
+        private void checkpoint() {
+            sync();
+            Path next = segmentPath(segment + 1);
+            Path temp = next.resolveSibling(next.getFileName() + ".tmp");
+            try {
+                FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    writeHeader(out);
+                    put(out, OP_CHECKPOINT, lastEventTime, (byte) (lastEventTime == null ? 0 : 1), NO_PLATE, -1);
+                    for (int i = 0; i < parkingLot.getCapacity(); i++) {
+                        Vehicle vehicle = parkingLot.spots.get(i).getParkedVehicle();
+                        if (vehicle != null) {
+                            put(out, OP_PARKED, vehicle.getEntryTime(), ParkingLot.vehicleKind(vehicle),
+                                    vehicle.getLicensePlate().getBytes(StandardCharsets.UTF_8), i);
+                        }
+                    }
+                    flushBuffer(out);
+                    out.force(false);
+                } catch (IOException | RuntimeException e) {
+                    buffer.clear(); // wpisy punktu kontrolnego nie należą do bieżącego segmentu
+                    out.close();
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+                Files.move(temp, next, StandardCopyOption.ATOMIC_MOVE);
+                channel.close();
+                channel = out;
+                segment++;
+                for (long old : listSegments()) {
+                    if (old < segment) {
+                        Files.deleteIfExists(segmentPath(old));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Zapisz zbuforowane zdarzenia i wymuś ich trwałość na dysku.
+         */
+        public synchronized void sync() {
+            flushBuffer(channel);
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pendingEvents = 0;
+            lastSyncNanos = System.nanoTime();
+        }
+
+        /**
+         * Okresowy fsync z wątku w tle. Wyjątek przerwałby dalsze wywołania harmonogramu,
+         * więc błąd jest zapamiętywany i zgłaszany w wątku bramek przy następnym zdarzeniu.
+         */
+        private synchronized void syncIfDue() {
+            try {
+                if (pendingEvents > 0 && channel.isOpen() && System.nanoTime() - lastSyncNanos >= syncIntervalNanos) {
+                    sync();
+                }
+            } catch (RuntimeException e) {
+                pendingSyncError = e;
+                lastSyncError = e;
+            }
+        }
+
+        private void reportSyncError() {
+            RuntimeException error = pendingSyncError;
+            if (error != null) {
+                pendingSyncError = null;
+                throw error;
+            }
+        }
+
+        /**
+         * Pobierz ostatni błąd okresowego fsync w tle (do monitorowania).
+         *
+         * @return wyjątek lub null, jeśli fsync w tle nie zawiódł.
+         */
+        public RuntimeException getLastSyncError() {
+            return lastSyncError;
+        }
+
+        /**
+         * Pobierz liczbę wpisów odtworzonych przy otwarciu dziennika (od ostatniego punktu kontrolnego).
+         *
+         * @return liczba odtworzonych wpisów.
+         */
+        public long getReplayedEvents() {
+            return replayedEvents;
+        }
+
+        /**
+         * Pobierz czas ostatniego zapisanego lub odtworzonego wjazdu/wyjazdu.
+         *
+         * @return czas zdarzenia lub null, jeśli dziennik jest pusty.
+         */
+        public synchronized LocalDateTime getLastEventTime() {
+            return lastEventTime;
+        }
+
+        /**
+         * Zsynchronizuj i zamknij dziennik.
+         *
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (syncTimer != null) {
+                syncTimer.shutdown();
+            }
+            try {
+                sync();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Binarna migawka stanu parkingu: zajęte miejsca z pojazdami (z nich odbudowywany jest indeks
+     * numerów), bieżące sumy dnia oraz kolumny rekordów raportu dziennego ze słownikami.
+     * Migawka jest pobierana w wątku bramek: zajęte miejsca są wyszukiwane w mapie bitowej wolnych miejsc
+     * i kopiowane (czas proporcjonalny do liczby zajętych miejsc plus pojemność / 64 słów), a kolumny
+     * rekordów i słowniki, które są tylko dopisywane, są współdzielone jako (tablica, rozmiar) bez kopiowania
+     * (zob. ParkingRecordStore.share). Zapis na dysk odbywa się w tle.
+     * Plik zapisywany jest do pliku tymczasowego i podmieniany atomowo; odczyt korzysta z mapowania pamięci.
+     *
+     * Format: [int MAGIC][int wersja][int pojemność][long czas utworzenia ms][int zajęte]
+     * {[int miejsce][byte rodzaj][long wjazd s][int wjazd ns][short długość][numer UTF-8]}
+     * [int typy]{[napis][long liczba][double dochód]} [int typy słownika]{[napis]} [int numery słownika]{[napis]}
+     * [int wiersze][long wjazd s × n][long wyjazd s × n][byte typ × n][long grosze × n][int numer × n][int CRC32C].
+     */
+    public static class ParkingSnapshot {
+        private static final int MAGIC = 0x50534E50; // "PSNP"
+        private static final int VERSION = 1;
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final int capacity;
+        private final long createdMillis;
+        private final int parked;
+        private final int[] spotIndexes;
+        private final byte[] kinds;
+        private final long[] entrySeconds;
+        private final int[] entryNanos;
+        private final String[] plates;
+        private final String[] totalTypes;
+        private final long[] totalCounts;
+        private final double[] totalIncome;
+        private final String[] typeNames;
+        private final int typeCount;
+        private final String[] plateNames;
+        private final int plateCount;
+        private final int rows;
+        private final long[] recordEntries;
+        private final long[] recordExits;
+        private final byte[] recordTypes;
+        private final long[] recordFees;
+        private final int[] recordPlates;
+
+        private ParkingSnapshot(ParkingLot lot) {
+            this.capacity = lot.getCapacity();
+            this.createdMillis = System.currentTimeMillis();
+            this.parked = capacity - lot.getAvailableSpots();
+            this.spotIndexes = new int[parked];
+            this.kinds = new byte[parked];
+            this.entrySeconds = new long[parked];
+            this.entryNanos = new int[parked];
+            this.plates = new String[parked];
+            int n = 0;
+            for (int i = lot.freeSpots.nextOccupied(0); i >= 0 && n < parked; i = lot.freeSpots.nextOccupied(i + 1)) {
+                Vehicle vehicle = lot.spots.get(i).getParkedVehicle();
+                spotIndexes[n] = i;
+                kinds[n] = ParkingLot.vehicleKind(vehicle);
+                entrySeconds[n] = vehicle.getEntryTime().toEpochSecond(ZoneOffset.UTC);
+                entryNanos[n] = vehicle.getEntryTime().getNano();
+                plates[n] = vehicle.getLicensePlate();
+                n++;
+            }
+
+            DailyTotals totals = lot.getDailyTotals();
+            List<String> types = totals.getVehicleTypes();
+            this.totalTypes = types.toArray(new String[0]);
+            this.totalCounts = new long[totalTypes.length];
+            this.totalIncome = new double[totalTypes.length];
+            for (int i = 0; i < totalTypes.length; i++) {
+                totalCounts[i] = totals.getVehicleCount(totalTypes[i]);
+                totalIncome[i] = totals.getIncome(totalTypes[i]);
+            }
+
+            ParkingRecordStore store = lot.getDailyRecords();
+            store.share();
+            this.typeNames = store.typeNames;
+            this.typeCount = store.typeCount;
+            this.plateNames = store.plateNames;
+            this.plateCount = store.plateCount;
+            this.rows = store.size();
+            this.recordEntries = store.entryTimes;
+            this.recordExits = store.exitTimes;
+            this.recordTypes = store.typeIds;
+            this.recordFees = store.feeCents;
+            this.recordPlates = store.plateIds;
+        }
+
+        /**
+         * Pobierz migawkę stanu parkingu. Wywoływać w wątku obsługującym parking.
+         *
+         * @param lot parking.
+         * @return migawka gotowa do zapisu w dowolnym wątku.
+         */
+        public static ParkingSnapshot capture(ParkingLot lot) {
+            return new ParkingSnapshot(lot);
+        }
+
+        public int getParked() {
+            return parked;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+
+        /**
+         * Zapisz migawkę do pliku (przez plik tymczasowy i atomową podmianę).
+         *
+         * @param path ścieżka pliku migawki.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void write(Path path) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(channel);
+                out.putInt(MAGIC).putInt(VERSION).putInt(capacity).putLong(createdMillis).putInt(parked);
+                for (int i = 0; i < parked; i++) {
+                    out.putInt(spotIndexes[i]).putByte(kinds[i]).putLong(entrySeconds[i]).putInt(entryNanos[i])
+                            .putString(plates[i]);
+                }
+                out.putInt(totalTypes.length);
+                for (int i = 0; i < totalTypes.length; i++) {
+                    out.putString(totalTypes[i]).putLong(totalCounts[i]).putDouble(totalIncome[i]);
+                }
+                out.putInt(typeCount);
+                for (int i = 0; i < typeCount; i++) {
+                    out.putString(typeNames[i]);
+                }
+                out.putInt(plateCount);
+                for (int i = 0; i < plateCount; i++) {
+                    out.putString(plateNames[i]);
+                }
+                out.putInt(rows);
+                for (int i = 0; i < rows; i++) {
+                    out.putLong(recordEntries[i]);
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.putLong(recordExits[i]);
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.putByte(recordTypes[i]);
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.putLong(recordFees[i]);
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.putInt(recordPlates[i]);
+                }
+                out.finish();
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Wczytaj migawkę do nowego parkingu o pojemności zapisanej w pliku.
+         *
+         * @param path ścieżka pliku migawki.
+         * @return odtworzony parking.
+         * @throws IOException w przypadku błędu odczytu lub uszkodzonego pliku.
+         */
+        public static ParkingLot load(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = map(channel);
+                ParkingLot lot = new ParkingLot(buffer.getInt(8));
+                restore(buffer, lot);
+                return lot;
+            }
+        }
+
+        /**
+         * Wczytaj migawkę do pustego parkingu (np. z podziałem miejsc na klasy wielkości).
+         * Obserwatorzy parkingu nie są powiadamiani o odtworzonych pojazdach.
+         *
+         * @param path ścieżka pliku migawki.
+         * @param lot  pusty parking o tej samej pojemności.
+         * @throws IOException w przypadku błędu odczytu lub uszkodzonego pliku.
+         */
+        public static void restore(Path path, ParkingLot lot) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                restore(map(channel), lot);
+            }
+        }
+
+        private static MappedByteBuffer map(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("Nieprawidłowy rozmiar pliku migawki");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Plik nie jest migawką parkingu w obsługiwanej wersji");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().limit((int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Suma kontrolna migawki jest nieprawidłowa");
+            }
+            return buffer;
+        }
+
+        private static void restore(ByteBuffer in, ParkingLot lot) throws IOException {
+            if (lot.getAvailableSpots() != lot.getCapacity() || !lot.getDailyRecords().isEmpty()
+                    || lot.getDailyTotals().getVehicleCount() != 0) {
+                throw new IllegalStateException("Migawkę można wczytać tylko do pustego parkingu");
+            }
+            in.position(8);
+            int capacity = in.getInt();
+            if (capacity != lot.getCapacity()) {
+                throw new IllegalArgumentException("Pojemność parkingu (" + lot.getCapacity()
+                        + ") różni się od pojemności w migawce (" + capacity + ")");
+            }
+            in.getLong(); // czas utworzenia
+            byte[] scratch = new byte[256];
+            int parked = in.getInt();
+            for (int i = 0; i < parked; i++) {
+                int spotIndex = in.getInt();
+                byte kind = in.get();
+                long entrySecond = in.getLong();
+                int entryNano = in.getInt();
+                String plate = getString(in, scratch);
+                lot.restoreVehicle(spotIndex, ParkingLot.createVehicle(kind, plate,
+                        LocalDateTime.ofEpochSecond(entrySecond, entryNano, ZoneOffset.UTC)));
+            }
+            int totalTypes = in.getInt();
+            for (int i = 0; i < totalTypes; i++) {
+                String type = getString(in, scratch);
+                long count = in.getLong();
+                double income = in.getDouble();
+                lot.getDailyTotals().restore(type, count, income);
+            }
+            ParkingRecordStore store = lot.getDailyRecords();
+            int[] typeIds = new int[in.getInt()];
+            for (int i = 0; i < typeIds.length; i++) {
+                typeIds[i] = store.typeId(getString(in, scratch));
+            }
+            int[] plateIds = new int[in.getInt()];
+            for (int i = 0; i < plateIds.length; i++) {
+                plateIds[i] = store.plateId(getString(in, scratch));
+            }
+            int rows = in.getInt();
+            store.ensureCapacity(rows);
+            int entries = in.position();
+            int exits = entries + rows * 8;
+            int types = exits + rows * 8;
+            int fees = types + rows;
+            int plateColumn = fees + rows * 8;
+            for (int i = 0; i < rows; i++) {
+                store.add(plateIds[in.getInt(plateColumn + i * 4)], typeIds[in.get(types + i) & 0xFF],
+                        in.getLong(entries + i * 8), in.getLong(exits + i * 8), in.getLong(fees + i * 8));
+            }
+            if (plateColumn + rows * 4 != in.limit() - 4) {
+                throw new IOException("Nieprawidłowa długość migawki");
+            }
+        }
+
+        private static String getString(ByteBuffer in, byte[] scratch) {
+            int length = in.getShort() & 0xFFFF;
+            if (length > scratch.length) {
+                scratch = new byte[length];
+            }
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Buforowany zapis do kanału z bieżącym liczeniem sumy kontrolnej.
+         */
+        private static final class Output {
+            private final FileChannel channel;
+            private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            private final CRC32C crc = new CRC32C();
+
+            Output(FileChannel channel) {
+                this.channel = channel;
+            }
+
+            private Output ensure(int bytes) throws IOException {
+                if (buffer.remaining() < bytes) {
+                    flush();
+                }
+                return this;
+            }
+
+            Output putInt(int value) throws IOException {
+                ensure(4).buffer.putInt(value);
+                return this;
+            }
+
+            Output putLong(long value) throws IOException {
+                ensure(8).buffer.putLong(value);
+                return this;
+            }
+
+            Output putDouble(double value) throws IOException {
+                ensure(8).buffer.putDouble(value);
+                return this;
+            }
+
+            Output putByte(byte value) throws IOException {
+                ensure(1).buffer.put(value);
+                return this;
+            }
+
+            Output putString(String value) throws IOException {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Napis jest zbyt długi do zapisu w migawce");
+                }
+                ensure(2 + bytes.length).buffer.putShort((short) bytes.length).put(bytes);
+                return this;
+            }
+
+            private void flush() throws IOException {
+                buffer.flip();
+                crc.update(buffer.array(), 0, buffer.limit());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+
+            void finish() throws IOException {
+                flush();
+                buffer.putInt((int) crc.getValue()).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Okresowe migawki parkingu: po każdych everyEvents zdarzeniach (wjazd, wyjazd, czyszczenie raportu)
+     * pobiera migawkę w wątku bramek i zapisuje ją w tle w osobnym wątku. Jeśli poprzedni zapis
+     * jeszcze trwa, kolejna migawka jest odkładana do następnego zdarzenia.
+     */
+    public static class ParkingSnapshotter implements ParkingLotListener, Closeable {
+        private final ParkingLot parkingLot;
+        private final Path path;
+        private final int everyEvents;
+        private final ExecutorService writer;
+        private int events;
+        private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        private volatile IOException lastError;
+
+        private ParkingSnapshotter(ParkingLot parkingLot, Path path, int everyEvents) {
+            if (everyEvents < 1) {
+                throw new IllegalArgumentException("Odstęp migawek musi być dodatni");
+            }
+            this.parkingLot = parkingLot;
+            this.path = path;
+            this.everyEvents = everyEvents;
+            this.writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "migawki");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Zarejestruj okresowe migawki parkingu.
+         *
+         * @param parkingLot  parking.
+         * @param path        ścieżka pliku migawki (nadpisywanego przy każdej migawce).
+         * @param everyEvents liczba zdarzeń między migawkami.
+         * @return obiekt zarejestrowany jako obserwator parkingu.
+         */
+        public static ParkingSnapshotter attach(ParkingLot parkingLot, Path path, int everyEvents) {
+            ParkingSnapshotter snapshotter = new ParkingSnapshotter(parkingLot, path, everyEvents);
+            parkingLot.addListener(snapshotter);
+            return snapshotter;
+        }
+
+        @Override
+        public void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+            tick();
+        }
+
+        @Override
+        public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            tick();
+        }
+
+        @Override
+        public void onDailyReportCleared() {
+            tick();
+        }
+
+        private void tick() {
+            if (++events >= everyEvents && pending.isDone()) {
+                snapshotNow();
+            }
+        }
+
+        /**
+         * Pobierz migawkę teraz i zleć jej zapis w tle. Wywoływać w wątku obsługującym parking.
+         *
+         * @return zakończenie zapisu.
+         */
+        public CompletableFuture<Void> snapshotNow() {
+            ParkingSnapshot snapshot = ParkingSnapshot.capture(parkingLot);
+            events = 0;
+            pending = CompletableFuture.runAsync(() -> {
+                try {
+                    snapshot.write(path);
+                } catch (IOException e) {
+                    lastError = e;
+                    throw new UncheckedIOException(e);
+                }
+            }, writer);
+            return pending;
+        }
+
+        /**
+         * Pobierz błąd ostatniego nieudanego zapisu.
+         *
+         * @return wyjątek lub null.
+         */
+        public IOException getLastError() {
+            return lastError;
+        }
+
+        /**
+         * Wyrejestruj obserwatora, zapisz końcową migawkę i zatrzymaj wątek zapisu.
+         */
+        @Override
+        public void close() throws IOException {
+            parkingLot.removeListener(this);
+            try {
+                snapshotNow().join();
+            } catch (CompletionException e) {
+                throw lastError != null ? lastError : new IOException(e.getCause());
+            } finally {
+                writer.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Archiwum zamkniętych dni: przy zmianie dnia magazyn rekordów parkingu jest podmieniany na pusty
+     * (w wątku bramek, bez kopiowania i bez dostępu do dysku), a zamknięty dzień zapisywany w tle
+     * do skompresowanego pliku kolumnowego, utrwalanego fsync przed atomową podmianą. Po zapisie magazyn
+     * jest czyszczony razem ze słownikami i wraca jako bufor na kolejną zmianę dnia. Dzień, którego
+     * zapis się nie powiódł, pozostaje w pamięci w kolejce ponowień (getLastError, getFailedDays)
+     * i jest zapisywany ponownie przy kolejnej zmianie dnia, retryFailed lub zamknięciu archiwum.
+     *
+     * Format pliku (GZIP): [int MAGIC][int wersja][long dzień epoki][int wiersze]
+     * [int typy]{[UTF typ]} [int numery]{[UTF numer]} i kolumny: wjazd (pierwsza wartość, potem różnice
+     * zigzag varint), czas postoju varint, typ (bajt), opłata w groszach zigzag varint, numer varint.
+     * Słownik numerów zawiera tylko numery z danego dnia. Kolejne zapisy tego samego dnia trafiają
+     * do osobnych części (dzień.pcol.gz, dzień.1.pcol.gz, ...).
+     */
+    public static class DailyArchive implements Closeable {
+        private static final int MAGIC = 0x50444159; // "PDAY"
+        private static final int VERSION = 1;
+        private static final String SUFFIX = ".pcol.gz";
+
+        private final Path directory;
+        private final ExecutorService writer;
+        private final Map<LocalDate, Integer> nextParts = new HashMap<>(); // dzień -> numer kolejnej części
+        private final ConcurrentLinkedQueue<SealedDay> failed = new ConcurrentLinkedQueue<>();
+        private volatile ParkingRecordStore spare; // wyczyszczony bufor na kolejny dzień
+        private volatile IOException lastError;
+
+        /** Zamknięty dzień czekający na zapis wraz z zarezerwowaną ścieżką części. */
+        private static final class SealedDay {
+            final ParkingRecordStore records;
+            final LocalDate day;
+            final Path file;
+
+            SealedDay(ParkingRecordStore records, LocalDate day, Path file) {
+                this.records = records;
+                this.day = day;
+                this.file = file;
+            }
+        }
+
+        /**
+         * Konstruktor archiwum. Numery istniejących części dni są odczytywane z katalogu jednorazowo,
+         * aby zmiana dnia nie sprawdzała plików.
+         *
+         * @param directory katalog plików (tworzony w razie potrzeby).
+         * @throws IOException jeśli nie można utworzyć lub odczytać katalogu.
+         */
+        public DailyArchive(Path directory) throws IOException {
+            this.directory = Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String stem = name.substring(0, name.length() - SUFFIX.length());
+                    int dot = stem.indexOf('.');
+                    try {
+                        LocalDate day = LocalDate.parse(dot < 0 ? stem : stem.substring(0, dot));
+                        int part = dot < 0 ? 0 : Integer.parseInt(stem.substring(dot + 1));
+                        nextParts.merge(day, part + 1, Math::max);
+                    } catch (RuntimeException e) {
+                        // plik spoza archiwum
+                    }
+                }
+            }
+            this.writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "archiwum");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Zamknij dzień: podmień rekordy dnia parkingu na pusty bufor i zleć zapis zamkniętego dnia w tle
+         * (po ponowieniu wcześniej nieudanych zapisów). Wywoływać w wątku obsługującym parking;
+         * koszt nie zależy od liczby rekordów.
+         *
+         * @param lot parking.
+         * @param day zamykany dzień.
+         * @return ścieżka zapisanego pliku po zakończeniu zapisu; przy błędzie dzień czeka w kolejce ponowień.
+         */
+        public CompletableFuture<Path> rollover(ParkingLot lot, LocalDate day) {
+            ParkingRecordStore fresh = spare;
+            spare = null;
+            if (fresh == null) {
+                fresh = new ParkingRecordStore();
+                fresh.ensureCapacity(lot.getDailyRecords().size());
+            }
+            SealedDay sealed = new SealedDay(lot.rolloverDailyRecords(fresh), day, nextPart(day));
+            return CompletableFuture.supplyAsync(() -> {
+                retry();
+                try {
+                    archive(sealed);
+                } catch (IOException e) {
+                    failed.add(sealed);
+                    throw new UncheckedIOException(e);
+                }
+                return sealed.file;
+            }, writer);
+        }
+
+        /**
+         * Ponów zapis dni, których archiwizacja się nie powiodła.
+         *
+         * @return liczba dni nadal czekających na zapis.
+         */
+        public CompletableFuture<Integer> retryFailed() {
+            return CompletableFuture.supplyAsync(() -> {
+                retry();
+                return failed.size();
+            }, writer);
+        }
+
+        /**
+         * Pobierz liczbę zamkniętych dni, których zapis się nie powiódł i które czekają w pamięci.
+         *
+         * @return liczba dni w kolejce ponowień.
+         */
+        public int getFailedDays() {
+            return failed.size();
+        }
+
+        /**
+         * Pobierz ostatni błąd zapisu archiwum.
+         *
+         * @return wyjątek lub null, jeśli żaden zapis się nie powiódł.
+         */
+        public IOException getLastError() {
+            return lastError;
+        }
+
+        /**
+         * Zapisz dni z kolejki ponowień w kolejności zamykania; przerywa przy pierwszym błędzie.
+         */
+        private void retry() {
+            SealedDay next;
+            while ((next = failed.peek()) != null) {
+                try {
+                    archive(next);
+                } catch (IOException e) {
+                    return;
+                }
+                failed.poll();
+            }
+        }
+
+        /**
+         * Zapisz zamknięty dzień i oddaj jego wyczyszczony magazyn jako bufor na kolejną zmianę dnia.
+         */
+        private void archive(SealedDay sealed) throws IOException {
+            try {
+                write(sealed.records, sealed.day, sealed.file);
+            } catch (IOException e) {
+                lastError = e;
+                throw e;
+            }
+            sealed.records.reset();
+            spare = sealed.records;
+        }
+
+        /**
+         * Zapisz rekordy dnia do pliku (przez plik tymczasowy i atomową podmianę).
+         *
+         * @param store rekordy dnia.
+         * @param day   dzień.
+         * @param file  plik docelowy.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public static void write(ParkingRecordStore store, LocalDate day, Path file) throws IOException {
+            int rows = store.size();
+            int[] plateMap = new int[store.plateCount];
+            Arrays.fill(plateMap, -1);
+            List<String> plates = new ArrayList<>();
+            for (int i = 0; i < rows; i++) {
+                int plateId = store.plateIds[i];
+                if (plateMap[plateId] == -1) {
+                    plateMap[plateId] = plates.size();
+                    plates.add(store.plateNames[plateId]);
+                }
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                writeColumns(store, day, temp, plateMap, plates);
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+
+        private static void writeColumns(ParkingRecordStore store, LocalDate day, Path temp, int[] plateMap,
+                                         List<String> plates) throws IOException {
+            int rows = store.size();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(day.toEpochDay());
+                out.writeInt(rows);
+                out.writeInt(store.typeCount);
+                for (int i = 0; i < store.typeCount; i++) {
+                    out.writeUTF(store.typeNames[i]);
+                }
+                out.writeInt(plates.size());
+                for (String plate : plates) {
+                    out.writeUTF(plate);
+                }
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    writeVarLong(out, zigzag(store.entryTimes[i] - previous));
+                    previous = store.entryTimes[i];
+                }
+                for (int i = 0; i < rows; i++) {
+                    writeVarLong(out, zigzag(store.exitTimes[i] - store.entryTimes[i]));
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.writeByte(store.typeIds[i]);
+                }
+                for (int i = 0; i < rows; i++) {
+                    writeVarLong(out, zigzag(store.feeCents[i]));
+                }
+                for (int i = 0; i < rows; i++) {
+                    writeVarLong(out, plateMap[store.plateIds[i]]);
+                }
+            }
+        }
+
+        /**
+         * Wczytaj plik archiwum.
+         *
+         * @param file plik dnia.
+         * @return rekordy dnia.
+         * @throws IOException w przypadku błędu odczytu lub nieprawidłowego pliku.
+         */
+        public static ParkingRecordStore read(Path file) throws IOException {
+            ParkingRecordStore store = new ParkingRecordStore();
+            readInto(file, store);
+            return store;
+        }
+
+        private static void readInto(Path file, ParkingRecordStore store) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(file), 1 << 16), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Plik nie jest archiwum dnia w obsługiwanej wersji: " + file);
+                }
+                in.readLong(); // dzień
+                int rows = in.readInt();
+                int[] typeIds = new int[in.readInt()];
+                for (int i = 0; i < typeIds.length; i++) {
+                    typeIds[i] = store.typeId(in.readUTF());
+                }
+                int[] plateIds = new int[in.readInt()];
+                for (int i = 0; i < plateIds.length; i++) {
+                    plateIds[i] = store.plateId(in.readUTF());
+                }
+                long[] entries = new long[rows];
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    previous += unzigzag(readVarLong(in));
+                    entries[i] = previous;
+                }
+                long[] durations = new long[rows];
+                for (int i = 0; i < rows; i++) {
+                    durations[i] = unzigzag(readVarLong(in));
+                }
+                byte[] types = new byte[rows];
+                in.readFully(types);
+                long[] fees = new long[rows];
+                for (int i = 0; i < rows; i++) {
+                    fees[i] = unzigzag(readVarLong(in));
+                }
+                store.ensureCapacity(store.size() + rows);
+                for (int i = 0; i < rows; i++) {
+                    int plate = (int) readVarLong(in);
+                    store.add(plateIds[plate], typeIds[types[i] & 0xFF], entries[i], entries[i] + durations[i], fees[i]);
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Uszkodzony plik archiwum: " + file, e);
+            }
+        }
+
+        /**
+         * Wczytaj wszystkie zapisane części dnia.
+         *
+         * @param day dzień.
+         * @return rekordy dnia (puste, jeśli dzień nie był archiwizowany).
+         * @throws IOException w przypadku błędu odczytu.
+         */
+        public ParkingRecordStore readDay(LocalDate day) throws IOException {
+            ParkingRecordStore store = new ParkingRecordStore();
+            for (Path part : parts(day)) {
+                readInto(part, store);
+            }
+            return store;
+        }
+
+        /**
+         * Strumień rekordów z zarchiwizowanych dni w zakresie; dni są wczytywane kolejno,
+         * dopiero gdy strumień do nich dojdzie.
+         *
+         * @param from pierwszy dzień (włącznie).
+         * @param to   ostatni dzień (włącznie).
+         * @return strumień rekordów.
+         */
+        public Stream<ParkingLot.ParkingRecord> records(LocalDate from, LocalDate to) {
+            return from.datesUntil(to.plusDays(1)).flatMap(day -> {
+                try {
+                    return StreamSupport.stream(readDay(day).spliterator(), false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        /**
+         * Ponów nieudane zapisy, poczekaj na zakończenie zleconych zapisów i zatrzymaj wątek zapisu.
+         *
+         * @throws IOException jeśli któryś dzień nadal nie został zapisany (dni pozostają w pamięci).
+         */
+        @Override
+        public void close() throws IOException {
+            retryFailed();
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                    throw new IOException("Przekroczono czas oczekiwania na zapis archiwum");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Przerwano oczekiwanie na zapis archiwum", e);
+            }
+            if (!failed.isEmpty()) {
+                throw new IOException("Nie zapisano " + failed.size() + " dni archiwum", lastError);
+            }
+        }
+
+        /**
+         * Znajdź zapisane części dnia w kolejności numerów; część czekająca na ponowienie zapisu
+         * nie przerywa odczytu kolejnych.
+         */
+        private List<Path> parts(LocalDate day) throws IOException {
+            TreeMap<Integer, Path> parts = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, day + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String middle = name.substring(day.toString().length(), name.length() - SUFFIX.length());
+                    if (middle.isEmpty()) {
+                        parts.put(0, file);
+                    } else if (middle.matches("\\.[0-9]{1,9}")) {
+                        parts.put(Integer.parseInt(middle.substring(1)), file);
+                    }
+                }
+            }
+            return new ArrayList<>(parts.values());
+        }
+
+        /**
+         * Zarezerwuj kolejną część dnia (tylko w pamięci, w wątku obsługującym parking).
+         */
+        private Path nextPart(LocalDate day) {
+            int part = nextParts.merge(day, 1, Integer::sum) - 1;
+            return partPath(day, part);
+        }
+
+        private Path partPath(LocalDate day, int part) {
+            return directory.resolve(part == 0 ? day + SUFFIX : day + "." + part + SUFFIX);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long readVarLong(DataInputStream in) throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Nieprawidłowa liczba w archiwum");
+        }
+    }
+
+    /**
+     * Pełna historia wizyt dla każdego numeru rejestracyjnego.
+     * Wizyty dopisywane są do pliku na dysku; każdy wpis wskazuje poprzednią wizytę tego samego numeru,
+     * więc historia numeru odczytywana jest bez przeglądania całego pliku. Indeks numer -> ostatni wpis
+     * leży w osobnym pliku (path.idx, zob. OffsetIndex), a w pamięci trzymany jest tylko jego wycinek
+     * ostatnio używanych numerów oraz pamięć podręczna LRU wizyt, ograniczona łączną liczbą wizyt.
+     * Każdy wpis ma sumę CRC32C, a fsync pliku historii wykonywany jest co syncBatchSize wizyt
+     * i po każdej partii. Indeks jest zapisywany przy zamknięciu; po awarii (indeks bez znacznika
+     * poprawnego zamknięcia) jest odbudowywany strumieniowym przejściem pliku historii.
+     *
+     * Format wpisu: [int długość][long poprzedni wpis][long wjazd s][int wjazd ns][long wyjazd s]
+     * [int wyjazd ns][long opłata w groszach][short długość numeru][numer UTF-8][short długość typu][typ UTF-8]
+     * [int CRC32C].
+     */
+    public static class PlateHistoryStore implements ParkingLotListener, Closeable {
+        private static final int MAGIC = 0x50485354; // "PHST"
+        private static final int VERSION = 1; // wersja 0: wpisy bez CRC
+        private static final int HEADER_SIZE = 8;
+        private static final int FIXED_SIZE = 8 + 8 + 4 + 8 + 4 + 8 + 2 + 2;
+        private static final int MAX_VARIABLE_BYTES = 1024;
+        private static final int MAX_ENTRY_SIZE = 4 + FIXED_SIZE + MAX_VARIABLE_BYTES + 4;
+        private static final long NO_PREVIOUS = -1L;
+
+        private final FileChannel channel;
+        private final OffsetIndex index;
+        private final ByteBuffer writeBuffer = ByteBuffer.allocate(1 << 16);
+        private final CRC32C crc = new CRC32C();
+        private long endPosition; // koniec pliku łącznie z buforem zapisu
+        private final LinkedHashMap<String, List<ParkingLot.ParkingRecord>> cache =
+                new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxCachedVisits;
+        private final int syncBatchSize;
+        private int cachedVisits;
+        private int pendingVisits;
+        private long diskReads;
+
+        private PlateHistoryStore(FileChannel channel, OffsetIndex index, int maxCachedVisits, int syncBatchSize) {
+            this.channel = channel;
+            this.index = index;
+            this.maxCachedVisits = maxCachedVisits;
+            this.syncBatchSize = Math.max(1, syncBatchSize);
+        }
+
+        /**
+         * Otwórz (lub utwórz) magazyn historii z wycinkiem indeksu na 65 536 numerów i fsync co 256 wizyt.
+         * Aby zapisywać wizyty, zarejestruj magazyn przez ParkingLot.addListener.
+         *
+         * @param path            ścieżka pliku historii.
+         * @param maxCachedVisits maksymalna liczba wizyt w pamięci podręcznej.
+         * @return otwarty magazyn.
+         * @throws IOException w przypadku błędu odczytu.
+         */
+        public static PlateHistoryStore open(Path path, int maxCachedVisits) throws IOException {
+            return open(path, maxCachedVisits, 1 << 16, 256);
+        }
+
+        /**
+         * Otwórz (lub utwórz) magazyn historii.
+         * Aby zapisywać wizyty, zarejestruj magazyn przez ParkingLot.addListener.
+         *
+         * @param path            ścieżka pliku historii.
+         * @param maxCachedVisits maksymalna liczba wizyt w pamięci podręcznej.
+         * @param maxIndexEntries maksymalna liczba numerów z indeksu trzymanych w pamięci.
+         * @param syncBatchSize   liczba wizyt na jeden fsync (1 = każda wizyta trwała od razu).
+         * @return otwarty magazyn.
+         * @throws IOException w przypadku błędu odczytu.
+         */
+        public static PlateHistoryStore open(Path path, int maxCachedVisits, int maxIndexEntries,
+                                             int syncBatchSize) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            OffsetIndex index = null;
+            try {
+                index = OffsetIndex.open(path.resolveSibling(path.getFileName() + ".idx"), maxIndexEntries);
+                PlateHistoryStore store = new PlateHistoryStore(channel, index, maxCachedVisits, syncBatchSize);
+                store.recover();
+                return store;
+            } catch (IOException | RuntimeException e) {
+                if (index != null) {
+                    index.channel.close();
+                }
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Ustal koniec poprawnych wpisów. Po poprawnym zamknięciu indeks obejmuje cały plik i nic nie jest
+         * czytane; w przeciwnym razie indeks jest odbudowywany, a przerwany zapis obcinany.
+         */
+        private void recover() throws IOException {
+            long size = channel.size();
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                channel.write(header, 0);
+                endPosition = HEADER_SIZE;
+                index.reset();
+                return;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Nieprawidłowy plik historii");
+            }
+            long start = index.getIndexedEnd();
+            if (!index.isClean() || start < HEADER_SIZE || start > size) {
+                index.reset();
+                start = HEADER_SIZE;
+            }
+            long valid = start;
+            ByteBuffer window = ByteBuffer.allocate(1 << 20);
+            window.limit(0);
+            long readPosition = start;
+            while (true) {
+                if (window.remaining() < MAX_ENTRY_SIZE && readPosition < size) {
+                    window.compact();
+                    int n;
+                    while (window.hasRemaining() && (n = channel.read(window, readPosition)) > 0) {
+                        readPosition += n;
+                    }
+                    window.flip();
+                }
+                int entryStart = window.position();
+                if (window.remaining() < 4) {
+                    break;
+                }
+                int length = window.getInt(entryStart);
+                if (length < FIXED_SIZE || length > FIXED_SIZE + MAX_VARIABLE_BYTES
+                        || window.remaining() < length + 8 || !checksumMatches(window, entryStart, length)) {
+                    break; // przerwany zapis
+                }
+                window.position(entryStart + 4 + FIXED_SIZE - 4);
+                byte[] plateBytes = new byte[window.getShort()];
+                window.get(plateBytes);
+                String plate = new String(plateBytes, StandardCharsets.UTF_8);
+                index.put(plate, valid, index.get(plate) == NO_PREVIOUS);
+                window.position(entryStart + 8 + length);
+                valid += 8 + length;
+            }
+            if (valid < size) {
+                channel.truncate(valid);
+            }
+            endPosition = valid;
+        }
+
+        private boolean checksumMatches(ByteBuffer in, int entryStart, int length) {
+            ByteBuffer payload = in.duplicate();
+            payload.position(entryStart + 4).limit(entryStart + 4 + length);
+            crc.reset();
+            crc.update(payload);
+            return (int) crc.getValue() == in.getInt(entryStart + 4 + length);
+        }
+
+        @Override
+        public synchronized void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            String plate = ParkingLot.canonicalPlate(record.getLicensePlate());
+            byte[] plateBytes = plate.getBytes(StandardCharsets.UTF_8);
+            byte[] typeBytes = record.getVehicleType().getBytes(StandardCharsets.UTF_8);
+            if (plateBytes.length + typeBytes.length > MAX_VARIABLE_BYTES) {
+                throw new IllegalArgumentException("Numer rejestracyjny lub typ pojazdu jest zbyt długi");
+            }
+            int length = FIXED_SIZE + plateBytes.length + typeBytes.length;
+            if (writeBuffer.remaining() < length + 8) {
+                flush();
+            }
+            long previous = index.get(plate);
+            long offset = endPosition;
+            writeBuffer.putInt(length);
+            int payloadStart = writeBuffer.position();
+            writeBuffer.putLong(previous);
+            writeBuffer.putLong(record.getEntryTime().toEpochSecond(ZoneOffset.UTC));
+            writeBuffer.putInt(record.getEntryTime().getNano());
+            writeBuffer.putLong(record.getExitTime().toEpochSecond(ZoneOffset.UTC));
+            writeBuffer.putInt(record.getExitTime().getNano());
+            writeBuffer.putLong(Math.round(record.getFee() * 100));
+            writeBuffer.putShort((short) plateBytes.length);
+            writeBuffer.put(plateBytes);
+            writeBuffer.putShort((short) typeBytes.length);
+            writeBuffer.put(typeBytes);
+            crc.reset();
+            crc.update(writeBuffer.array(), payloadStart, length);
+            writeBuffer.putInt((int) crc.getValue());
+            endPosition += 8 + length;
+            index.put(plate, offset, previous == NO_PREVIOUS);
+
+            List<ParkingLot.ParkingRecord> cached = cache.get(plate);
+            if (cached != null) {
+                cached.add(record);
+                cachedVisits++;
+                evict();
+            }
+            if (++pendingVisits >= syncBatchSize) {
+                sync();
+            }
+        }
+
+        /**
+         * Partia wyjazdów kończy się jednym fsync.
+         */
+        @Override
+        public synchronized void onBatchCompleted() {
+            if (pendingVisits > 0) {
+                sync();
+            }
+        }
+
+        /**
+         * Pobierz wszystkie wizyty pojazdu, od najstarszej.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return lista wizyt (pusta, jeśli brak historii).
+         */
+        public List<ParkingLot.ParkingRecord> history(String licensePlate) {
+            return history(licensePlate, null, null);
+        }
+
+        /**
+         * Pobierz wizyty pojazdu, które nakładają się na podany przedział czasu, od najstarszej.
+         * Wizyty numeru nie nakładają się, więc odczyt łańcucha (od najnowszej) kończy się
+         * na pierwszej wizycie zakończonej przed from.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @param from         początek przedziału lub null (bez ograniczenia).
+         * @param to           koniec przedziału lub null (bez ograniczenia).
+         * @return lista wizyt.
+         */
+        public synchronized List<ParkingLot.ParkingRecord> history(String licensePlate,
+                                                                    LocalDateTime from, LocalDateTime to) {
+            String plate = ParkingLot.canonicalPlate(licensePlate);
+            List<ParkingLot.ParkingRecord> visits = cache.get(plate);
+            if (visits == null) {
+                visits = load(plate, from);
+                if (from == null && !visits.isEmpty() && visits.size() <= maxCachedVisits) {
+                    cache.put(plate, visits);
+                    cachedVisits += visits.size();
+                    evict();
+                }
+            }
+            List<ParkingLot.ParkingRecord> result = new ArrayList<>();
+            for (ParkingLot.ParkingRecord visit : visits) {
+                if ((to == null || !visit.getEntryTime().isAfter(to))
+                        && (from == null || !visit.getExitTime().isBefore(from))) {
+                    result.add(visit);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Odczytaj łańcuch wizyt numeru od najnowszej, kończąc na pierwszej wizycie zakończonej przed from.
+         */
+        private List<ParkingLot.ParkingRecord> load(String plate, LocalDateTime from) {
+            long offset = index.get(plate);
+            List<ParkingLot.ParkingRecord> visits = new ArrayList<>();
+            if (offset == NO_PREVIOUS) {
+                return visits;
+            }
+            flush();
+            ByteBuffer in = ByteBuffer.allocate(MAX_ENTRY_SIZE);
+            try {
+                long position = offset;
+                while (position != NO_PREVIOUS) {
+                    in.clear();
+                    while (in.hasRemaining() && channel.read(in, position + in.position()) > 0) {
+                        // odczyt do wypełnienia bufora lub końca pliku
+                    }
+                    in.flip();
+                    diskReads++;
+                    int length = in.remaining() >= 4 ? in.getInt(0) : -1;
+                    if (length < FIXED_SIZE || length > FIXED_SIZE + MAX_VARIABLE_BYTES
+                            || in.remaining() < length + 8 || !checksumMatches(in, 0, length)) {
+                        throw new IOException("Uszkodzony wpis historii na pozycji " + position);
+                    }
+                    in.position(4);
+                    long previous = in.getLong();
+                    LocalDateTime entry = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+                    LocalDateTime exit = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+                    if (from != null && exit.isBefore(from)) {
+                        break; // starsze wizyty kończą się jeszcze wcześniej
+                    }
+                    double fee = in.getLong() / 100.0;
+                    byte[] plateBytes = new byte[in.getShort()];
+                    in.get(plateBytes);
+                    byte[] typeBytes = new byte[in.getShort()];
+                    in.get(typeBytes);
+                    visits.add(new ParkingLot.ParkingRecord(new String(plateBytes, StandardCharsets.UTF_8),
+                            new String(typeBytes, StandardCharsets.UTF_8), entry, exit, fee));
+                    position = previous;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Collections.reverse(visits);
+            return visits;
+        }
+
+        private void evict() {
+            Iterator<List<ParkingLot.ParkingRecord>> eldest = cache.values().iterator();
+            while (cachedVisits > maxCachedVisits && eldest.hasNext()) {
+                cachedVisits -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+
+        /**
+         * Zapisz zbuforowane wizyty do pliku (bez fsync). Po błędzie niezapisane bajty zostają w buforze.
+         */
+        public synchronized void flush() {
+            writeBuffer.flip();
+            try {
+                long position = endPosition - writeBuffer.remaining();
+                while (writeBuffer.hasRemaining()) {
+                    position += channel.write(writeBuffer, position);
+                }
+                writeBuffer.clear();
+            } catch (IOException e) {
+                writeBuffer.compact();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Zapisz zbuforowane wizyty i wymuś ich trwałość na dysku.
+         */
+        public synchronized void sync() {
+            flush();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pendingVisits = 0;
+        }
+
+        /**
+         * Pobierz liczbę wizyt aktualnie trzymanych w pamięci podręcznej.
+         *
+         * @return liczba wizyt w pamięci.
+         */
+        public synchronized int getCachedVisits() {
+            return cachedVisits;
+        }
+
+        /**
+         * Pobierz liczbę numerów rejestracyjnych z zapisaną historią.
+         *
+         * @return liczba numerów.
+         */
+        public synchronized long getPlateCount() {
+            return index.getCount();
+        }
+
+        /**
+         * Pobierz liczbę numerów indeksu trzymanych w pamięci.
+         *
+         * @return liczba numerów w wycinku indeksu.
+         */
+        public synchronized int getIndexSliceSize() {
+            return index.slice.size();
+        }
+
+        /**
+         * Pobierz liczbę wpisów odczytanych z dysku (chybienia pamięci podręcznej).
+         *
+         * @return liczba odczytów.
+         */
+        public synchronized long getDiskReads() {
+            return diskReads;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                sync();
+                index.close(endPosition);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                index.channel.close();
+                channel.close();
+            }
+        }
+
+        /**
+         * Indeks numer -> ostatni wpis historii na dysku: tablica mieszająca z adresowaniem otwartym
+         * i sondowaniem liniowym. Kluczem jest 128-bitowy odcisk numeru (dwie niezależne funkcje
+         * mieszające), więc pozycja nie przechowuje numeru, a kolizja odcisków jest praktycznie wykluczona.
+         * W pamięci trzymany jest wycinek LRU ostatnio używanych numerów; zmienione pozycje zapisywane są
+         * przy usunięciu z wycinka i przy zamknięciu. Tablica podwaja się przez plik tymczasowy,
+         * gdy zapełnienie przekroczy 70%.
+         *
+         * Format: [int MAGIC][int poprawnie zamknięty][long pozycje][long numery][long koniec historii]
+         * {[long odcisk 1][long odcisk 2][long wpis]}.
+         */
+        private static final class OffsetIndex {
+            private static final int MAGIC = 0x50484958; // "PHIX"
+            private static final int HEADER_SIZE = 32;
+            private static final int SLOT_SIZE = 24;
+            private static final int PROBE_SLOTS = 16;
+            private static final long INITIAL_SLOTS = 1 << 10;
+
+            private final Path path;
+            private final LinkedHashMap<String, HotPlate> slice;
+            private final ByteBuffer probe = ByteBuffer.allocate(PROBE_SLOTS * SLOT_SIZE);
+            private final ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+            private FileChannel channel;
+            private long slots;
+            private long count;
+            private long indexedEnd;
+            private boolean clean;
+            private long probedOffset; // wpis w pozycji znalezionej przez find lub NO_PREVIOUS
+
+            /** Numer z wycinka w pamięci: odcisk, ostatni wpis i znacznik zmiany niezapisanej na dysku. */
+            private static final class HotPlate {
+                final long hash1;
+                final long hash2;
+                long offset;
+                boolean dirty;
+
+                HotPlate(long hash1, long hash2, long offset) {
+                    this.hash1 = hash1;
+                    this.hash2 = hash2;
+                    this.offset = offset;
+                }
+            }
+
+            private OffsetIndex(Path path, FileChannel channel, int maxEntries) {
+                this.path = path;
+                this.channel = channel;
+                this.slice = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, HotPlate> eldest) {
+                        if (size() <= maxEntries) {
+                            return false;
+                        }
+                        if (eldest.getValue().dirty) {
+                            store(eldest.getValue());
+                        }
+                        return true;
+                    }
+                };
+            }
+
+            static OffsetIndex open(Path path, int maxEntries) throws IOException {
+                FileChannel channel = FileChannel.open(path,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                OffsetIndex index = new OffsetIndex(path, channel, Math.max(1, maxEntries));
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                    // czytaj nagłówek
+                }
+                if (!header.hasRemaining() && header.getInt(0) == MAGIC) {
+                    index.clean = header.getInt(4) == 1;
+                    index.slots = header.getLong(8);
+                    index.count = header.getLong(16);
+                    index.indexedEnd = header.getLong(24);
+                }
+                if (Long.bitCount(index.slots) != 1) {
+                    index.clean = false; // uszkodzony nagłówek: właściciel wywoła reset
+                }
+                return index;
+            }
+
+            boolean isClean() {
+                return clean;
+            }
+
+            long getIndexedEnd() {
+                return indexedEnd;
+            }
+
+            long getCount() {
+                return count;
+            }
+
+            /**
+             * Wyczyść indeks przed odbudową z pliku historii.
+             */
+            void reset() throws IOException {
+                slice.clear();
+                channel.truncate(0);
+                slots = INITIAL_SLOTS;
+                count = 0;
+                indexedEnd = PlateHistoryStore.HEADER_SIZE;
+                clean = false;
+                allocate(channel, slots);
+                writeHeader(channel, false);
+            }
+
+            /**
+             * Pobierz ostatni wpis numeru.
+             *
+             * @return pozycja wpisu lub NO_PREVIOUS.
+             */
+            long get(String plate) {
+                HotPlate hot = slice.get(plate);
+                if (hot != null) {
+                    return hot.offset;
+                }
+                long hash1 = hash1(plate);
+                long hash2 = hash2(plate);
+                try {
+                    find(channel, slots, hash1, hash2);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                long offset = probedOffset; // usunięcie z wycinka może nadpisać probedOffset
+                if (offset != NO_PREVIOUS) {
+                    slice.put(plate, new HotPlate(hash1, hash2, offset));
+                }
+                return offset;
+            }
+
+            /**
+             * Ustaw ostatni wpis numeru (zapis na dysk przy usunięciu z wycinka lub zamknięciu).
+             */
+            void put(String plate, long offset, boolean isNew) {
+                if (clean) {
+                    try {
+                        writeHeader(channel, false); // po awarii od tej chwili indeks wymaga odbudowy
+                        channel.force(false);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    clean = false;
+                }
+                HotPlate hot = slice.get(plate);
+                if (hot == null) {
+                    hot = new HotPlate(hash1(plate), hash2(plate), offset);
+                    slice.put(plate, hot);
+                }
+                hot.offset = offset;
+                hot.dirty = true;
+                if (isNew) {
+                    count++;
+                }
+            }
+
+            void close(long historyEnd) {
+                try {
+                    for (HotPlate hot : slice.values()) {
+                        if (hot.dirty) {
+                            store(hot);
+                        }
+                    }
+                    indexedEnd = historyEnd;
+                    writeHeader(channel, true);
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private void store(HotPlate hot) {
+                try {
+                    if ((count + 1) * 10 > slots * 7) {
+                        grow();
+                    }
+                    long position = find(channel, slots, hot.hash1, hot.hash2);
+                    writeSlot(channel, position, hot.hash1, hot.hash2, hot.offset);
+                    hot.dirty = false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            /**
+             * Znajdź pozycję z podanym odciskiem lub pierwszą wolną na ścieżce sondowania.
+             *
+             * @return indeks pozycji; wpis zapisany w tej pozycji trafia do probedOffset.
+             */
+            private long find(FileChannel table, long tableSlots, long hash1, long hash2) throws IOException {
+                long i = hash1 & (tableSlots - 1);
+                while (true) {
+                    int n = (int) Math.min(PROBE_SLOTS, tableSlots - i);
+                    probe.clear().limit(n * SLOT_SIZE);
+                    long position = HEADER_SIZE + i * SLOT_SIZE;
+                    while (probe.hasRemaining() && table.read(probe, position + probe.position()) > 0) {
+                        // odczyt grupy pozycji
+                    }
+                    for (int k = 0; k < n; k++) {
+                        int base = k * SLOT_SIZE;
+                        long a = probe.getLong(base);
+                        long b = probe.getLong(base + 8);
+                        if (a == 0 && b == 0) {
+                            probedOffset = NO_PREVIOUS;
+                            return i + k;
+                        }
+                        if (a == hash1 && b == hash2) {
+                            probedOffset = probe.getLong(base + 16);
+                            return i + k;
+                        }
+                    }
+                    i = (i + n) & (tableSlots - 1);
+                }
+            }
+
+            private void writeSlot(FileChannel table, long index, long hash1, long hash2, long offset)
+                    throws IOException {
+                slot.clear();
+                slot.putLong(hash1).putLong(hash2).putLong(offset).flip();
+                long position = HEADER_SIZE + index * SLOT_SIZE;
+                while (slot.hasRemaining()) {
+                    position += table.write(slot, position);
+                }
+            }
+
+            /**
+             * Podwój tablicę, przepisując pozycje do pliku tymczasowego podmienianego atomowo.
+             */
+            private void grow() throws IOException {
+                long grown = slots * 2;
+                Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+                FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    allocate(target, grown);
+                    ByteBuffer chunk = ByteBuffer.allocate(4096 * SLOT_SIZE);
+                    for (long first = 0; first < slots; first += 4096) {
+                        chunk.clear().limit((int) Math.min(4096, slots - first) * SLOT_SIZE);
+                        long position = HEADER_SIZE + first * SLOT_SIZE;
+                        while (chunk.hasRemaining() && channel.read(chunk, position + chunk.position()) > 0) {
+                            // odczyt kolejnego fragmentu tablicy
+                        }
+                        for (int base = 0; base < chunk.limit(); base += SLOT_SIZE) {
+                            long a = chunk.getLong(base);
+                            long b = chunk.getLong(base + 8);
+                            if (a != 0 || b != 0) {
+                                writeSlot(target, find(target, grown, a, b), a, b, chunk.getLong(base + 16));
+                            }
+                        }
+                    }
+                    slots = grown;
+                    writeHeader(target, false);
+                    target.force(false);
+                } catch (IOException | RuntimeException e) {
+                    target.close();
+                    Files.deleteIfExists(temp);
+                    slots = grown / 2;
+                    throw e;
+                }
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                channel.close();
+                channel = target;
+            }
+
+            /**
+             * Ustaw rozmiar pliku na nagłówek i tablicę; nowe pozycje są puste (zera, plik rzadki).
+             */
+            private static void allocate(FileChannel table, long tableSlots) throws IOException {
+                table.write(ByteBuffer.allocate(1), HEADER_SIZE + tableSlots * SLOT_SIZE - 1);
+            }
+
+            private void writeHeader(FileChannel table, boolean closed) throws IOException {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(closed ? 1 : 0).putLong(slots).putLong(count).putLong(indexedEnd).flip();
+                while (header.hasRemaining()) {
+                    table.write(header, header.position());
+                }
+            }
+
+            private static long hash1(String plate) {
+                long h = 0xCBF29CE484222325L; // FNV-1a
+                for (int i = 0; i < plate.length(); i++) {
+                    h = (h ^ plate.charAt(i)) * 0x100000001B3L;
+                }
+                return mix(h);
+            }
+
+            private static long hash2(String plate) {
+                long h = 0x9E3779B97F4A7C15L;
+                for (int i = 0; i < plate.length(); i++) {
+                    h = Long.rotateLeft(h ^ plate.charAt(i), 23) * 0xC2B2AE3D27D4EB4FL;
+                }
+                return mix(h) | 1; // odcisk nigdy nie jest zerowy, więc zero oznacza wolną pozycję
+            }
+
+            private static long mix(long h) {
+                h ^= h >>> 33;
+                h *= 0xFF51AFD7ED558CCDL;
+                h ^= h >>> 33;
+                h *= 0xC4CEB9FE1A85EC53L;
+                return h ^ (h >>> 33);
+            }
+        }
+    }
+
+    /**
+     * Wielobramkowa, bezpieczna wątkowo odmiana parkingu.
+     * Miejsca zajmowane są bez blokad przez CAS na słowach mapy bitowej, a każda bramka
+     * zaczyna przeszukiwanie od własnego segmentu, aby bramki nie rywalizowały o te same słowa.
+     * Wyłączność numeru rejestracyjnego zapewnia rezerwacja w ConcurrentHashMap,
+     * a rekordy dnia dopisywane są do struktur współbieżnych. Parking nie przechowuje historii numerów,
+     * więc pamięć nie rośnie z liczbą różnych numerów, które wjechały.
+     */
+    public static class ConcurrentParkingLot {
+        private static final int PENDING = -1; // numer zarezerwowany, miejsce jeszcze nieprzydzielone
+
+        private final int capacity;
+        private final AtomicReferenceArray<Vehicle> occupants;
+        private final AtomicLongArray freeWords; // bit = 1 -> miejsce wolne
+        private final int stripes;
+        private final int wordsPerStripe;
+        private final LongAdder occupied;
+        private final ConcurrentHashMap<String, Integer> plateIndex; // kanoniczny numer -> indeks miejsca
+        private final ConcurrentLinkedQueue<ParkingLot.ParkingRecord> dailyRecords;
+        private final DailyTotals dailyTotals;
+        private final ConcurrentHashMap<String, Tariff> tariffs = new ConcurrentHashMap<>();
+        private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        /**
+         * Konstruktor dla ConcurrentParkingLot.
+         *
+         * @param capacity liczba miejsc parkingowych.
+         */
+        public ConcurrentParkingLot(int capacity) {
+            this.capacity = capacity;
+            this.occupants = new AtomicReferenceArray<>(capacity);
+            int words = (capacity + 63) >>> 6;
+            this.freeWords = new AtomicLongArray(words);
+            for (int w = 0; w < words; w++) {
+                int bits = Math.min(64, capacity - (w << 6));
+                freeWords.set(w, bits == 64 ? -1L : (1L << bits) - 1);
+            }
+            this.stripes = Math.max(1, Math.min(words, Runtime.getRuntime().availableProcessors() * 2));
+            this.wordsPerStripe = (words + stripes - 1) / stripes;
+            this.occupied = new LongAdder();
+            this.plateIndex = new ConcurrentHashMap<>();
+            this.dailyRecords = new ConcurrentLinkedQueue<>();
+            this.dailyTotals = new DailyTotals();
+        }
+
+        /**
+         * Pobierz całkowitą liczbę miejsc.
+         *
+         * @return liczba miejsc.
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Zwraca liczbę dostępnych miejsc parkingowych.
+         * Przy równoczesnych wjazdach i wyjazdach wynik jest chwilową migawką.
+         *
+         * @return liczba dostępnych miejsc.
+         */
+        public int getAvailableSpots() {
+            return capacity - (int) occupied.sum();
+        }
+
+        /**
+         * Zajmij wolne miejsce, zaczynając od segmentu przypisanego do bieżącej bramki.
+         *
+         * @return indeks miejsca lub -1, jeśli pełne.
+         */
+        private int claimSpot() {
+            int words = freeWords.length();
+            if (words == 0) {
+                return -1;
+            }
+            long probe = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            int start = (int) ((probe >>> 33) % stripes) * wordsPerStripe;
+            for (int n = 0; n < words; n++) {
+                int w = start + n;
+                if (w >= words) {
+                    w -= words;
+                }
+                long bits;
+                while ((bits = freeWords.get(w)) != 0) {
+                    long bit = Long.lowestOneBit(bits);
+                    if (freeWords.compareAndSet(w, bits, bits & ~bit)) {
+                        return (w << 6) + Long.numberOfTrailingZeros(bit);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Zwolnij miejsce o danym indeksie.
+         *
+         * @param index indeks miejsca.
+         */
+        private void releaseSpot(int index) {
+            int w = index >>> 6;
+            long bit = 1L << index;
+            long bits;
+            do {
+                bits = freeWords.get(w);
+            } while (!freeWords.compareAndSet(w, bits, bits | bit));
+        }
+
+        /**
+         * Ustaw taryfę dla typu pojazdu (domyślnie stała stawka Vehicle.getHourlyRate()).
+         *
+         * @param vehicleType typ pojazdu (Vehicle.getType()).
+         * @param tariff      skompilowana taryfa.
+         */
+        public void setTariff(String vehicleType, Tariff tariff) {
+            tariffs.put(vehicleType, tariff);
+        }
+
+        /**
+         * Zarejestruj wjazd pojazdu. Bezpieczne przy wywołaniach z wielu bramek jednocześnie.
+         *
+         * @param vehicle Pojazd do wjazdu.
+         * @return true, jeśli pomyślnie zaparkowano, false, jeśli pełne lub pojazd jest już zaparkowany.
+         */
+        public boolean enterVehicle(Vehicle vehicle) {
+            String plate = ParkingLot.canonicalPlate(vehicle.getLicensePlate());
+            if (plateIndex.putIfAbsent(plate, PENDING) != null) {
+                return false; // pojazd już zaparkowany lub właśnie wjeżdża inną bramką
+            }
+            int spotIndex = claimSpot();
+            if (spotIndex == -1) {
+                plateIndex.remove(plate, PENDING);
+                return false; // brak miejsca
+            }
+            occupants.set(spotIndex, vehicle);
+            occupied.increment();
+            plateIndex.put(plate, spotIndex);
+            return true;
+        }
+
+        /**
+         * Zarejestruj wyjazd pojazdu. Tylko jedna bramka może skutecznie wypuścić dany pojazd.
+         *
+         * @param licensePlate Numer rejestracyjny wyjeżdżającego pojazdu.
+         * @param exitTime     Czas wyjazdu.
+         * @return obiekt ParkingPayment, jeśli znaleziono i wyjechał, null, jeśli nie znaleziono.
+         */
+        public ParkingLot.ParkingPayment exitVehicle(String licensePlate, LocalDateTime exitTime) {
+            String plate = ParkingLot.canonicalPlate(licensePlate);
+            Integer spotIndex = plateIndex.get(plate);
+            if (spotIndex == null || spotIndex == PENDING || !plateIndex.remove(plate, spotIndex)) {
+                return null; // pojazd nie znaleziony lub obsłużony przez inną bramkę
+            }
+            Vehicle vehicle = occupants.getAndSet(spotIndex, null);
+            occupied.decrement();
+            releaseSpot(spotIndex);
+
+            LocalDateTime entryTime = vehicle.getEntryTime();
+            long entrySecond = entryTime.toEpochSecond(ZoneOffset.UTC);
+            long minutes = ParkingLot.billableMinutes(entrySecond, entryTime.getNano(),
+                    exitTime.toEpochSecond(ZoneOffset.UTC), exitTime.getNano());
+            double hoursParked = ParkingLot.billableHours(minutes);
+            Tariff tariff = tariffs.get(vehicle.getType());
+            if (tariff == null) {
+                tariff = tariffs.computeIfAbsent(vehicle.getType(), t -> Tariff.flat(vehicle.getHourlyRate()));
+            }
+            double fee = tariff.feeCentsForMinutes(entrySecond, minutes) / 100.0;
+            ParkingLot.ParkingRecord record = new ParkingLot.ParkingRecord(vehicle.getLicensePlate(),
+                    vehicle.getType(), vehicle.getEntryTime(), exitTime, fee);
+            dailyRecords.add(record);
+            dailyTotals.add(record.getVehicleType(), fee);
+
+            return new ParkingLot.ParkingPayment(record, hoursParked, fee);
+        }
+
+        /**
+         * Sprawdź, czy pojazd o podanym numerze rejestracyjnym jest aktualnie zaparkowany
+         * (lub właśnie wjeżdża).
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return true, jeśli numer jest zajęty.
+         */
+        public boolean isParked(String licensePlate) {
+            return plateIndex.containsKey(ParkingLot.canonicalPlate(licensePlate));
+        }
+
+        /**
+         * Znajdź miejsce zajmowane przez pojazd o podanym numerze rejestracyjnym.
+         *
+         * @param licensePlate numer rejestracyjny (wielkość liter bez znaczenia).
+         * @return migawka ParkingSpot lub null, jeśli pojazdu nie ma na parkingu.
+         */
+        public ParkingSpot findSpot(String licensePlate) {
+            Integer spotIndex = plateIndex.get(ParkingLot.canonicalPlate(licensePlate));
+            if (spotIndex == null || spotIndex == PENDING) {
+                return null;
+            }
+            Vehicle vehicle = occupants.get(spotIndex);
+            if (vehicle == null) {
+                return null;
+            }
+            ParkingSpot spot = new ParkingSpot(spotIndex + 1);
+            spot.parkVehicle(vehicle);
+            return spot;
+        }
+
+        /**
+         * Lista aktualnie zaparkowanych pojazdów (migawka).
+         *
+         * @return Lista stringów opisujących zaparkowane pojazdy.
+         */
+        public List<String> listParkedVehicles() {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < capacity; i++) {
+                Vehicle v = occupants.get(i);
+                if (v != null) {
+                    list.add(ParkingLot.formatParkedVehicle(i + 1, v, dtf));
+                }
+            }
+            return list;
+        }
+
+        /**
+         * Generuje raport dzienny jako string.
+         *
+         * @return raport z całkowitą liczbą pojazdów i dochodem.
+         */
+        public String generateDailyReport() {
+            StringBuilder sb = new StringBuilder();
+            try {
+                new DailyReportWriter(sb).writeReport(dailyRecords, dailyTotals);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // StringBuilder nie zgłasza IOException
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Zapisz raport dzienny bezpośrednio do wyjścia. Przy równoczesnych wyjazdach wiersze
+         * i podsumowanie są migawkami wykonanymi w nieco innych chwilach.
+         *
+         * @param out wyjście znakowe.
+         * @throws IOException w przypadku błędu zapisu.
+         */
+        public void writeDailyReport(Writer out) throws IOException {
+            new DailyReportWriter(out).writeReport(dailyRecords, dailyTotals);
+        }
+
+        /**
+         * Pobierz bieżące sumy dnia w czasie stałym.
+         *
+         * @return bieżące sumy dnia.
+         */
+        public DailyTotals getDailyTotals() {
+            return dailyTotals;
+        }
+
+        /**
+         * Wyczyść dzienne rekordy (symuluj nowy dzień).
+         */
+        public void clearDailyReport() {
+            dailyRecords.clear();
+            dailyTotals.clear();
+        }
+    }
+
+    /**
+     * Obiekt wielopoziomowy złożony z wielu parkingów (shardów).
+     * Każdy ParkingLot jest obsługiwany wyłącznie przez własny jednowątkowy wykonawca, więc shardy
+     * pracują równolegle bez blokad wewnątrz parkingu. Wjazdy kierowane są do shardu z największą
+     * liczbą wolnych miejsc; miejsce jest rezerwowane przez CAS na liczniku shardu jeszcze przed
+     * przekazaniem zadania. Wyjazdy trafiają do właściwego shardu dzięki globalnemu katalogowi numerów.
+     * Globalna liczba wolnych miejsc jest licznikiem atomowym odczytywanym w czasie stałym.
+     */
+    public static class ParkingFacility implements Closeable {
+        private static final int PENDING = -1; // numer zarezerwowany, wjazd w toku
+
+        private final ParkingLot[] shards;
+        private final ExecutorService[] executors;
+        private final AtomicIntegerArray shardFree;
+        private final AtomicInteger totalFree;
+        private final ConcurrentHashMap<String, Integer> directory; // kanoniczny numer -> shard
+        private final int capacity;
+
+        /**
+         * Konstruktor obiektu.
+         *
+         * @param shardCapacities liczba miejsc na każdym poziomie/parkingu.
+         */
+        public ParkingFacility(int... shardCapacities) {
+            if (shardCapacities.length == 0) {
+                throw new IllegalArgumentException("Obiekt musi mieć co najmniej jeden parking");
+            }
+            this.shards = new ParkingLot[shardCapacities.length];
+            this.executors = new ExecutorService[shardCapacities.length];
+            this.shardFree = new AtomicIntegerArray(shardCapacities.length);
+            int total = 0;
+            for (int i = 0; i < shardCapacities.length; i++) {
+                shards[i] = new ParkingLot(shardCapacities[i]);
+                shardFree.set(i, shardCapacities[i]);
+                total += shardCapacities[i];
+                final int shard = i;
+                executors[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "parking-" + (shard + 1));
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            this.capacity = total;
+            this.totalFree = new AtomicInteger(total);
+            this.directory = new ConcurrentHashMap<>();
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getShardCount() {
+            return shards.length;
+        }
+
+        /**
+         * Zwraca globalną liczbę wolnych miejsc (z uwzględnieniem wjazdów w toku).
+         *
+         * @return liczba wolnych miejsc.
+         */
+        public int getAvailableSpots() {
+            return totalFree.get();
+        }
+
+        /**
+         * Zwraca liczbę wolnych miejsc w danym parkingu.
+         *
+         * @param shard numer parkingu (od 0).
+         * @return liczba wolnych miejsc.
+         */
+        public int getAvailableSpots(int shard) {
+            return shardFree.get(shard);
+        }
+
+        /**
+         * Zarezerwuj miejsce w parkingu z największą liczbą wolnych miejsc.
+         *
+         * @return numer parkingu lub -1, jeśli cały obiekt jest pełny.
+         */
+        private int reserveShard() {
+            while (true) {
+                int best = -1;
+                int bestFree = 0;
+                for (int i = 0; i < shards.length; i++) {
+                    int free = shardFree.get(i);
+                    if (free > bestFree) {
+                        best = i;
+                        bestFree = free;
+                    }
+                }
+                if (best == -1) {
+                    return -1;
+                }
+                if (shardFree.compareAndSet(best, bestFree, bestFree - 1)) {
+                    totalFree.decrementAndGet();
+                    return best;
+                }
+            }
+        }
+
+        private void releaseShard(int shard) {
+            shardFree.incrementAndGet(shard);
+            totalFree.incrementAndGet();
+        }
+
+        /**
+         * Zarejestruj wjazd pojazdu asynchronicznie. Błąd obserwatora shardu zgłoszony po zajęciu
+         * miejsca nie cofa wjazdu: o wyniku decyduje stan shardu sprawdzany w jego wątku.
+         *
+         * @param vehicle pojazd do wjazdu.
+         * @return wynik: true, jeśli zaparkowano; false, jeśli obiekt pełny lub pojazd już zaparkowany.
+         */
+        public CompletableFuture<Boolean> enterVehicleAsync(Vehicle vehicle) {
+            String plate = ParkingLot.canonicalPlate(vehicle.getLicensePlate());
+            if (directory.putIfAbsent(plate, PENDING) != null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            int shard = reserveShard();
+            if (shard == -1) {
+                directory.remove(plate, PENDING);
+                return CompletableFuture.completedFuture(false);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                boolean parked = false;
+                try {
+                    parked = shards[shard].enterVehicle(vehicle);
+                } catch (RuntimeException e) {
+                    // obserwator mógł zgłosić błąd już po zaparkowaniu pojazdu
+                    parked = shards[shard].isParked(plate);
+                } finally {
+                    if (parked) {
+                        directory.put(plate, shard);
+                    } else {
+                        directory.remove(plate, PENDING);
+                        releaseShard(shard);
+                    }
+                }
+                return parked;
+            }, executors[shard]);
+        }
+
+        /**
+         * Zarejestruj wjazd pojazdu i poczekaj na wynik.
+         *
+         * @param vehicle pojazd do wjazdu.
+         * @return true, jeśli zaparkowano.
+         */
+        public boolean enterVehicle(Vehicle vehicle) {
+            return enterVehicleAsync(vehicle).join();
+        }
+
+        /**
+         * Zarejestruj wyjazd pojazdu asynchronicznie. Jeśli wyjazd zakończy się błędem (np. obserwatora
+         * shardu po zwolnieniu miejsca), wynik kończy się tym błędem, a katalog i liczniki wolnych miejsc
+         * są uzgadniane ze stanem shardu.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @param exitTime     czas wyjazdu.
+         * @return płatność lub null, jeśli pojazdu nie ma w obiekcie.
+         */
+        public CompletableFuture<ParkingLot.ParkingPayment> exitVehicleAsync(String licensePlate,
+                                                                            LocalDateTime exitTime) {
+            String plate = ParkingLot.canonicalPlate(licensePlate);
+            Integer shard = directory.get(plate);
+            if (shard == null || shard == PENDING) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return shards[shard].exitVehicle(plate, exitTime);
+                } finally {
+                    if (!shards[shard].isParked(plate) && directory.remove(plate, shard)) {
+                        releaseShard(shard);
+                    }
+                }
+            }, executors[shard]);
+        }
+
+        /**
+         * Zarejestruj wyjazd pojazdu i poczekaj na wynik.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @param exitTime     czas wyjazdu.
+         * @return płatność lub null, jeśli pojazdu nie ma w obiekcie.
+         */
+        public ParkingLot.ParkingPayment exitVehicle(String licensePlate, LocalDateTime exitTime) {
+            return exitVehicleAsync(licensePlate, exitTime).join();
+        }
+
+        /**
+         * Sprawdź, czy pojazd jest w obiekcie (lub właśnie wjeżdża).
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return true, jeśli numer jest zajęty.
+         */
+        public boolean isParked(String licensePlate) {
+            return directory.containsKey(ParkingLot.canonicalPlate(licensePlate));
+        }
+
+        /**
+         * Pobierz numer parkingu, w którym stoi pojazd.
+         *
+         * @param licensePlate numer rejestracyjny.
+         * @return numer parkingu (od 0) lub -1.
+         */
+        public int findShard(String licensePlate) {
+            Integer shard = directory.get(ParkingLot.canonicalPlate(licensePlate));
+            return shard == null ? -1 : shard;
+        }
+
+        /**
+         * Wykonaj operację na parkingu w jego własnym wątku (np. rejestracja obserwatora, raport).
+         *
+         * @param shard     numer parkingu (od 0).
+         * @param operation operacja na parkingu.
+         * @param <T>       typ wyniku.
+         * @return wynik operacji.
+         */
+        public <T> CompletableFuture<T> onShard(int shard, Function<ParkingLot, T> operation) {
+            return CompletableFuture.supplyAsync(() -> operation.apply(shards[shard]), executors[shard]);
+        }
+
+        /**
+         * Lista zaparkowanych pojazdów we wszystkich parkingach.
+         *
+         * @return lista opisów z numerem parkingu.
+         */
+        public List<String> listParkedVehicles() {
+            List<CompletableFuture<List<String>>> parts = new ArrayList<>();
+            for (int i = 0; i < shards.length; i++) {
+                parts.add(onShard(i, ParkingLot::listParkedVehicles));
+            }
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i++) {
+                for (String s : parts.get(i).join()) {
+                    list.add("Parking " + (i + 1) + ", " + s);
+                }
+            }
+            return list;
+        }
+
+        /**
+         * Łączna liczba pojazdów, które wyjechały dziś ze wszystkich parkingów.
+         *
+         * @return liczba pojazdów.
+         */
+        public long getDailyVehicleCount() {
+            long sum = 0;
+            for (ParkingLot shard : shards) {
+                sum += shard.getDailyTotals().getVehicleCount();
+            }
+            return sum;
+        }
+
+        /**
+         * Łączny dzisiejszy dochód wszystkich parkingów.
+         *
+         * @return dochód w jednostkach walutowych.
+         */
+        public double getDailyIncome() {
+            double sum = 0;
+            for (ParkingLot shard : shards) {
+                sum += shard.getDailyTotals().getTotalIncome();
+            }
+            return sum;
+        }
+
+        /**
+         * Zatrzymaj wątki parkingów po dokończeniu przyjętych operacji.
+         */
+        @Override
+        public void close() {
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Proces przyjazdów pojazdów danego typu w symulacji zdarzeń dyskretnych.
+     * Czas liczony jest w milisekundach od północy dnia rozpoczęcia symulacji.
+     */
+    public interface ArrivalProcess {
+
+        /**
+         * Wylosuj czas następnego przyjazdu.
+         *
+         * @param now    aktualny czas wirtualny w milisekundach.
+         * @param random generator liczb losowych symulacji.
+         * @return czas następnego przyjazdu w milisekundach lub Long.MAX_VALUE, jeśli brak dalszych przyjazdów.
+         */
+        long nextArrival(long now, SplittableRandom random);
+
+        /**
+         * Jednorodny proces Poissona.
+         *
+         * @param arrivalsPerHour średnia liczba przyjazdów na godzinę.
+         * @return proces przyjazdów.
+         */
+        static ArrivalProcess poisson(double arrivalsPerHour) {
+            if (arrivalsPerHour <= 0) {
+                return (now, random) -> Long.MAX_VALUE;
+            }
+            double meanGap = 3_600_000.0 / arrivalsPerHour;
+            return (now, random) -> now + Math.max(1L, Math.round(-meanGap * Math.log(1.0 - random.nextDouble())));
+        }
+
+        /**
+         * Niejednorodny proces Poissona z profilem dobowym (metoda przerzedzania).
+         *
+         * @param arrivalsPerHour 24 intensywności przyjazdów, po jednej na każdą godzinę doby.
+         * @return proces przyjazdów.
+         */
+        static ArrivalProcess timeOfDay(double[] arrivalsPerHour) {
+            if (arrivalsPerHour.length != 24) {
+                throw new IllegalArgumentException("Profil dobowy musi mieć 24 wartości");
+            }
+            double[] rates = arrivalsPerHour.clone();
+            double max = 0;
+            for (double r : rates) {
+                if (r < 0) {
+                    throw new IllegalArgumentException("Intensywność przyjazdów nie może być ujemna");
+                }
+                max = Math.max(max, r);
+            }
+            if (max == 0) {
+                return (now, random) -> Long.MAX_VALUE;
+            }
+            double maxRate = max;
+            double meanGap = 3_600_000.0 / maxRate;
+            return (now, random) -> {
+                long t = now;
+                while (true) {
+                    t += Math.max(1L, Math.round(-meanGap * Math.log(1.0 - random.nextDouble())));
+                    int hour = (int) ((t / 3_600_000) % 24);
+                    if (random.nextDouble() * maxRate < rates[hour]) {
+                        return t;
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Rozkład czasu postoju pojazdu w symulacji.
+     */
+    public interface DwellTimeDistribution {
+
+        /**
+         * Wylosuj czas postoju.
+         *
+         * @param random generator liczb losowych symulacji.
+         * @return czas postoju w milisekundach (co najmniej 1).
+         */
+        long sampleMillis(SplittableRandom random);
+
+        /**
+         * Stały czas postoju.
+         *
+         * @param minutes czas postoju w minutach.
+         * @return rozkład czasu postoju.
+         */
+        static DwellTimeDistribution fixed(double minutes) {
+            long millis = Math.max(1L, Math.round(minutes * 60_000));
+            return random -> millis;
+        }
+
+        /**
+         * Rozkład wykładniczy.
+         *
+         * @param meanMinutes średni czas postoju w minutach.
+         * @return rozkład czasu postoju.
+         */
+        static DwellTimeDistribution exponential(double meanMinutes) {
+            double mean = meanMinutes * 60_000;
+            return random -> Math.max(1L, Math.round(-mean * Math.log(1.0 - random.nextDouble())));
+        }
+
+        /**
+         * Rozkład jednostajny.
+         *
+         * @param minMinutes minimalny czas postoju w minutach.
+         * @param maxMinutes maksymalny czas postoju w minutach.
+         * @return rozkład czasu postoju.
+         */
+        static DwellTimeDistribution uniform(double minMinutes, double maxMinutes) {
+            double min = minMinutes * 60_000;
+            double span = (maxMinutes - minMinutes) * 60_000;
+            return random -> Math.max(1L, Math.round(min + span * random.nextDouble()));
+        }
+
+        /**
+         * Rozkład logarytmicznie normalny.
+         *
+         * @param medianMinutes mediana czasu postoju w minutach.
+         * @param sigma         odchylenie standardowe logarytmu czasu postoju.
+         * @return rozkład czasu postoju.
+         */
+        static DwellTimeDistribution logNormal(double medianMinutes, double sigma) {
+            double mu = Math.log(medianMinutes * 60_000);
+            return random -> {
+                // Box-Muller
+                double u1 = 1.0 - random.nextDouble();
+                double u2 = random.nextDouble();
+                double z = Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+                return Math.max(1L, Math.round(Math.exp(mu + sigma * z)));
+            };
+        }
+    }
+
+    /**
+     * Profil ruchu jednego typu pojazdu: sposób tworzenia pojazdu, proces przyjazdów i rozkład postoju.
+     */
+    public static class VehicleProfile {
+        private final String name;
+        private final BiFunction<String, LocalDateTime, Vehicle> factory;
+        private final ArrivalProcess arrivals;
+        private final DwellTimeDistribution dwellTime;
+
+        /**
+         * Konstruktor profilu.
+         *
+         * @param name      nazwa profilu (używana jako prefiks numerów rejestracyjnych).
+         * @param factory   tworzy pojazd z numeru rejestracyjnego i czasu wjazdu, np. Car::new.
+         * @param arrivals  proces przyjazdów.
+         * @param dwellTime rozkład czasu postoju.
+         */
+        public VehicleProfile(String name, BiFunction<String, LocalDateTime, Vehicle> factory,
+                              ArrivalProcess arrivals, DwellTimeDistribution dwellTime) {
+            this.name = name;
+            this.factory = factory;
+            this.arrivals = arrivals;
+            this.dwellTime = dwellTime;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BiFunction<String, LocalDateTime, Vehicle> getFactory() {
+            return factory;
+        }
+
+        public ArrivalProcess getArrivals() {
+            return arrivals;
+        }
+
+        public DwellTimeDistribution getDwellTime() {
+            return dwellTime;
+        }
+    }
+
+    /**
+     * Bezgłowy silnik symulacji zdarzeń dyskretnych sterujący parkingiem.
+     * Utrzymuje wirtualny zegar i kolejkę priorytetową zdarzeń (przyjazdy, wyjazdy, próbkowanie zajętości)
+     * zapisaną w tablicach prymitywnych, bez obiektu na każde zdarzenie. Przyjazdy i wyjazdy
+     * wywołują bezpośrednio ParkingLot.enterVehicle i ParkingLot.exitVehicle (wyjazd w wariancie bez alokacji).
+     *
+     * Ograniczenie: jeden przebieg jest jednowątkowy, a koszt zdarzenia to głównie obsługa parkingu
+     * (indeksy numerów i czasów wjazdu, zapis sesji), więc przepustowość zależy od wielkości parkingu:
+     * około 0,7 mln zdarzeń/s przy 2 tys. miejsc i 0,3 mln zdarzeń/s przy 100 tys. miejsc na jednym rdzeniu.
+     * Miliony zdarzeń na sekundę osiąga się tylko łącznie, przez równoległe repliki (MonteCarloRunner).
+     */
+    public static class SimulationEngine {
+        private static final int DEPARTURE = -1;
+        private static final int SAMPLE = -2;
+        private static final int MAX_SAMPLES = 1 << 20; // 4 MB szeregu zajętości
+
+        private final ParkingLot parkingLot;
+        private final LocalDateTime midnight; // zegar wirtualny liczony od północy dnia startu
+        private final long startMillis;
+        private final SplittableRandom random;
+        private final List<VehicleProfile> profiles = new ArrayList<>();
+
+        // Kopiec binarny zdarzeń w tablicach równoległych
+        private long[] eventTimes = new long[1024];
+        private int[] eventKinds = new int[1024];
+        private String[] eventPlates = new String[1024];
+        private int eventCount;
+
+        /**
+         * Konstruktor silnika.
+         *
+         * @param parkingLot parking, na którym odbywa się symulacja.
+         * @param start      czas rozpoczęcia symulacji.
+         * @param seed       ziarno generatora liczb losowych.
+         */
+        public SimulationEngine(ParkingLot parkingLot, LocalDateTime start, long seed) {
+            this.parkingLot = parkingLot;
+            this.midnight = start.toLocalDate().atStartOfDay();
+            this.startMillis = start.toLocalTime().toNanoOfDay() / 1_000_000;
+            this.random = new SplittableRandom(seed);
+        }
+
+        /**
+         * Dodaj profil ruchu dla typu pojazdu.
+         *
+         * @param profile profil ruchu.
+         * @return ten silnik (do łączenia wywołań).
+         */
+        public SimulationEngine addProfile(VehicleProfile profile) {
+            profiles.add(profile);
+            return this;
+        }
+
+        /**
+         * Uruchom symulację.
+         *
+         * @param length         długość symulowanego okresu.
+         * @param sampleInterval odstęp między próbkami zajętości (co najwyżej 2^20 próbek na przebieg).
+         * @return wynik symulacji.
+         */
+        public SimulationResult run(Duration length, Duration sampleInterval) {
+            long end = startMillis + length.toMillis();
+            long sampleStep = Math.max(1L, sampleInterval.toMillis());
+            long sampleCount = length.toMillis() / sampleStep + 1;
+            if (sampleCount > MAX_SAMPLES) {
+                throw new IllegalArgumentException("Zbyt mały odstęp próbkowania: " + sampleCount
+                        + " próbek (maksymalnie " + MAX_SAMPLES + ")");
+            }
+            int[] occupancy = new int[(int) sampleCount];
+            int samples = 0;
+
+            int profileCount = profiles.size();
+            long[] arrivals = new long[profileCount];
+            long[] rejected = new long[profileCount];
+            long[] plateCounters = new long[profileCount];
+            long departures = 0;
+            long events = 0;
+            long revenueCents = 0;
+            long midnightSecond = midnight.toEpochSecond(ZoneOffset.UTC);
+            ParkingLot.PaymentView payment = new ParkingLot.PaymentView();
+
+            eventCount = 0;
+            for (int p = 0; p < profileCount; p++) {
+                push(profiles.get(p).getArrivals().nextArrival(startMillis, random), p, null);
+            }
+            push(startMillis, SAMPLE, null);
+
+            long wallStart = System.nanoTime();
+            while (eventCount > 0 && eventTimes[0] <= end) {
+                long now = eventTimes[0];
+                int kind = eventKinds[0];
+                String plate = eventPlates[0];
+                pop();
+                events++;
+
+                if (kind == DEPARTURE) {
+                    // opłata liczona jest z pełnych sekund, więc wyjazd bez obiektów daje ten sam wynik
+                    if (parkingLot.exitVehicle(plate, midnightSecond + now / 1000, payment)) {
+                        departures++;
+                        revenueCents += payment.getFeeCents();
+                    }
+                } else if (kind == SAMPLE) {
+                    if (samples < occupancy.length) {
+                        occupancy[samples++] = parkingLot.getCapacity() - parkingLot.getAvailableSpots();
+                    }
+                    push(now + sampleStep, SAMPLE, null);
+                } else {
+                    VehicleProfile profile = profiles.get(kind);
+                    arrivals[kind]++;
+                    String newPlate = profile.getName() + (++plateCounters[kind]);
+                    Vehicle vehicle = profile.getFactory().apply(newPlate, midnight.plus(now, ChronoUnit.MILLIS));
+                    if (parkingLot.enterVehicle(vehicle)) {
+                        push(now + profile.getDwellTime().sampleMillis(random), DEPARTURE, newPlate);
+                    } else {
+                        rejected[kind]++;
+                    }
+                    push(profile.getArrivals().nextArrival(now, random), kind, null);
+                }
+            }
+            long wallNanos = System.nanoTime() - wallStart;
+
+            String[] names = new String[profileCount];
+            for (int p = 0; p < profileCount; p++) {
+                names[p] = profiles.get(p).getName();
+            }
+            return new SimulationResult(names, arrivals, rejected, departures, revenueCents / 100.0,
+                    Arrays.copyOf(occupancy, samples), sampleStep, events, wallNanos);
+        }
+
+        private void push(long time, int kind, String plate) {
+            if (time == Long.MAX_VALUE) {
+                return;
+            }
+            if (eventCount == eventTimes.length) {
+                int newLength = eventCount * 2;
+                eventTimes = Arrays.copyOf(eventTimes, newLength);
+                eventKinds = Arrays.copyOf(eventKinds, newLength);
+                eventPlates = Arrays.copyOf(eventPlates, newLength);
+            }
+            int i = eventCount++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (eventTimes[parent] <= time) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            eventTimes[i] = time;
+            eventKinds[i] = kind;
+            eventPlates[i] = plate;
+        }
+
+        private void pop() {
+            int last = --eventCount;
+            long time = eventTimes[last];
+            int kind = eventKinds[last];
+            String plate = eventPlates[last];
+            eventPlates[last] = null;
+            int i = 0;
+            int half = last >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < last && eventTimes[child + 1] < eventTimes[child]) {
+                    child++;
+                }
+                if (time <= eventTimes[child]) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            if (last > 0) {
+                eventTimes[i] = time;
+                eventKinds[i] = kind;
+                eventPlates[i] = plate;
+            }
+        }
+
+        private void move(int from, int to) {
+            eventTimes[to] = eventTimes[from];
+            eventKinds[to] = eventKinds[from];
+            eventPlates[to] = eventPlates[from];
+        }
+
+        /**
+         * Uruchom przykładową symulację jednej doby bez interakcji z użytkownikiem.
+         *
+         * @param args [liczba miejsc] [liczba dni] [ziarno]
+         */
+        public static void main(String[] args) {
+            int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+            int days = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+            double[] carProfile = {
+                    0.2, 0.1, 0.1, 0.1, 0.2, 0.5, 2, 6, 9, 7, 5, 5,
+                    6, 5, 5, 5, 6, 7, 5, 3, 2, 1, 0.5, 0.3};
+            double scale = capacity / 20.0;
+            for (int h = 0; h < carProfile.length; h++) {
+                carProfile[h] *= scale;
+            }
+            SimulationEngine engine = new SimulationEngine(new ParkingLot(capacity),
+                    LocalDate.now().atStartOfDay(), seed)
+                    .addProfile(new VehicleProfile("C", Car::new,
+                            ArrivalProcess.timeOfDay(carProfile), DwellTimeDistribution.logNormal(90, 0.8)))
+                    .addProfile(new VehicleProfile("V", DeliveryVan::new,
+                            ArrivalProcess.poisson(1.5 * scale), DwellTimeDistribution.uniform(15, 60)));
+            System.out.print(engine.run(Duration.ofDays(days), Duration.ofMinutes(15)));
+        }
+    }
+
+    /**
+     * Wynik przebiegu symulacji: przyjazdy i odrzucenia na typ pojazdu, dochód
+     * oraz szereg czasowy zajętości parkingu.
+     */
+    public static class SimulationResult {
+        private final String[] profileNames;
+        private final long[] arrivals;
+        private final long[] rejected;
+        private final long departures;
+        private final double revenue;
+        private final int[] occupancy;
+        private final long sampleIntervalMillis;
+        private final long events;
+        private final long wallNanos;
+
+        public SimulationResult(String[] profileNames, long[] arrivals, long[] rejected, long departures,
+                                double revenue, int[] occupancy, long sampleIntervalMillis,
+                                long events, long wallNanos) {
+            this.profileNames = profileNames;
+            this.arrivals = arrivals;
+            this.rejected = rejected;
+            this.departures = departures;
+            this.revenue = revenue;
+            this.occupancy = occupancy;
+            this.sampleIntervalMillis = sampleIntervalMillis;
+            this.events = events;
+            this.wallNanos = wallNanos;
+        }
+
+        public long getTotalArrivals() {
+            long sum = 0;
+            for (long a : arrivals) {
+                sum += a;
+            }
+            return sum;
+        }
+
+        public long getTotalRejected() {
+            long sum = 0;
+            for (long r : rejected) {
+                sum += r;
+            }
+            return sum;
+        }
+
+        public long getArrivals(int profile) {
+            return arrivals[profile];
+        }
+
+        public long getRejected(int profile) {
+            return rejected[profile];
+        }
+
+        public long getDepartures() {
+            return departures;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+
+        /**
+         * Pobierz szereg czasowy zajętości (liczba zajętych miejsc w kolejnych próbkach).
+         *
+         * @return kopia tablicy próbek.
+         */
+        public int[] getOccupancy() {
+            return occupancy.clone();
+        }
+
+        public long getSampleIntervalMillis() {
+            return sampleIntervalMillis;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public double getEventsPerSecond() {
+            return wallNanos == 0 ? 0 : events * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Wynik Symulacji\n");
+            sb.append("====================\n");
+            for (int p = 0; p < profileNames.length; p++) {
+                sb.append(String.format("%-10s przyjazdy: %d, odrzucone: %d\n",
+                        profileNames[p], arrivals[p], rejected[p]));
+            }
+            int peak = 0;
+            double mean = 0;
+            for (int o : occupancy) {
+                peak = Math.max(peak, o);
+                mean += o;
+            }
+            if (occupancy.length > 0) {
+                mean /= occupancy.length;
+            }
+            sb.append(String.format("Wyjazdy: %d\n", departures));
+            sb.append(String.format("Zajętość średnia: %.1f, maksymalna: %d (%d próbek co %d s)\n",
+                    mean, peak, occupancy.length, sampleIntervalMillis / 1000));
+            sb.append(String.format("Łączny dochód: %.2f\n", revenue));
+            sb.append(String.format("Zdarzenia: %d (%.0f zdarzeń/s)\n", events, getEventsPerSecond()));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Planowanie pojemności metodą Monte Carlo: dla każdego scenariusza (liczba miejsc, udział vanów,
+     * intensywność przyjazdów) uruchamia wiele niezależnych replik SimulationEngine, każdą na własnym
+     * ParkingLot, równolegle w ForkJoinPool. Ziarna replik wyprowadzane są z ziarna głównego przed
+     * startem, a wyniki agregowane w stałej kolejności, więc wynik nie zależy od liczby wątków.
+     * Przedziały ufności 95% wyznaczane są z przybliżenia normalnego (średnia ± 1,96·s/√n).
+     */
+    public static class MonteCarloRunner {
+        private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+        private static final double Z_95 = 1.96;
+
+        private final int replicas;
+        private final Duration length;
+        private final long seed;
+        private final ForkJoinPool pool;
+
+        /**
+         * Scenariusz planowania.
+         */
+        public static class Scenario {
+            private final int capacity;
+            private final double vanShare;
+            private final double arrivalsPerHour;
+
+            /**
+             * @param capacity        liczba miejsc.
+             * @param vanShare        udział vanów dostawczych wśród przyjazdów (0..1).
+             * @param arrivalsPerHour średnia łączna liczba przyjazdów na godzinę.
+             */
+            public Scenario(int capacity, double vanShare, double arrivalsPerHour) {
+                if (vanShare < 0 || vanShare > 1) {
+                    throw new IllegalArgumentException("Udział vanów musi być z przedziału [0, 1]");
+                }
+                this.capacity = capacity;
+                this.vanShare = vanShare;
+                this.arrivalsPerHour = arrivalsPerHour;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public double getVanShare() {
+                return vanShare;
+            }
+
+            public double getArrivalsPerHour() {
+                return arrivalsPerHour;
+            }
+
+            SimulationEngine engine(long seed) {
+                return new SimulationEngine(new ParkingLot(capacity), START, seed)
+                        .addProfile(new VehicleProfile("C", Car::new,
+                                ArrivalProcess.poisson(arrivalsPerHour * (1 - vanShare)),
+                                DwellTimeDistribution.logNormal(90, 0.8)))
+                        .addProfile(new VehicleProfile("V", DeliveryVan::new,
+                                ArrivalProcess.poisson(arrivalsPerHour * vanShare),
+                                DwellTimeDistribution.uniform(15, 60)));
+            }
+        }
+
+        /**
+         * Estymata: średnia z replik i połowa szerokości przedziału ufności 95%.
+         */
+        public static class Estimate {
+            private final double mean;
+            private final double halfWidth;
+
+            Estimate(double[] values) {
+                double sum = 0;
+                for (double v : values) {
+                    sum += v;
+                }
+                this.mean = sum / values.length;
+                double squares = 0;
+                for (double v : values) {
+                    squares += (v - mean) * (v - mean);
+                }
+                double sd = values.length > 1 ? Math.sqrt(squares / (values.length - 1)) : 0;
+                this.halfWidth = Z_95 * sd / Math.sqrt(values.length);
+            }
+
+            public double getMean() {
+                return mean;
+            }
+
+            public double getHalfWidth() {
+                return halfWidth;
+            }
+
+            public double getLower() {
+                return mean - halfWidth;
+            }
+
+            public double getUpper() {
+                return mean + halfWidth;
+            }
+        }
+
+        /**
+         * Zagregowany wynik scenariusza.
+         */
+        public static class Summary {
+            private final Scenario scenario;
+            private final Estimate rejectionRate;
+            private final Estimate revenuePerDay;
+            private final Estimate meanOccupancy;
+
+            Summary(Scenario scenario, Estimate rejectionRate, Estimate revenuePerDay, Estimate meanOccupancy) {
+                this.scenario = scenario;
+                this.rejectionRate = rejectionRate;
+                this.revenuePerDay = revenuePerDay;
+                this.meanOccupancy = meanOccupancy;
+            }
+
+            public Scenario getScenario() {
+                return scenario;
+            }
+
+            public Estimate getRejectionRate() {
+                return rejectionRate;
+            }
+
+            public Estimate getRevenuePerDay() {
+                return revenuePerDay;
+            }
+
+            public Estimate getMeanOccupancy() {
+                return meanOccupancy;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%6d %8.0f%% %9.1f %9.2f%% ± %5.2f %11.2f ± %8.2f %8.1f ± %5.1f",
+                        scenario.capacity, scenario.vanShare * 100, scenario.arrivalsPerHour,
+                        rejectionRate.mean * 100, rejectionRate.halfWidth * 100,
+                        revenuePerDay.mean, revenuePerDay.halfWidth,
+                        meanOccupancy.mean, meanOccupancy.halfWidth);
+            }
+        }
+
+        /**
+         * Konstruktor.
+         *
+         * @param replicas    liczba replik na scenariusz.
+         * @param length      długość symulowanego okresu jednej repliki.
+         * @param seed        ziarno główne.
+         * @param parallelism liczba wątków roboczych.
+         */
+        public MonteCarloRunner(int replicas, Duration length, long seed, int parallelism) {
+            if (replicas < 1) {
+                throw new IllegalArgumentException("Liczba replik musi być dodatnia");
+            }
+            this.replicas = replicas;
+            this.length = length;
+            this.seed = seed;
+            this.pool = new ForkJoinPool(parallelism);
+        }
+
+        /**
+         * Uruchom wszystkie repliki wszystkich scenariuszy.
+         *
+         * @param scenarios scenariusze (np. siatka parametrów z grid).
+         * @return wyniki w kolejności scenariuszy.
+         */
+        public List<Summary> run(List<Scenario> scenarios) {
+            int total = scenarios.size() * replicas;
+            long[] seeds = new long[total];
+            SplittableRandom root = new SplittableRandom(seed);
+            for (int i = 0; i < total; i++) {
+                seeds[i] = root.nextLong();
+            }
+            double[] rejection = new double[total];
+            double[] revenue = new double[total];
+            double[] occupancy = new double[total];
+            double days = length.toMillis() / 86_400_000.0;
+            try {
+                pool.submit(() -> IntStream.range(0, total).parallel().forEach(i -> {
+                    SimulationResult result = scenarios.get(i / replicas).engine(seeds[i])
+                            .run(length, Duration.ofMinutes(15));
+                    long arrivals = result.getTotalArrivals();
+                    rejection[i] = arrivals == 0 ? 0 : (double) result.getTotalRejected() / arrivals;
+                    revenue[i] = result.getRevenue() / days;
+                    int[] samples = result.getOccupancy();
+                    long sum = 0;
+                    for (int s : samples) {
+                        sum += s;
+                    }
+                    occupancy[i] = samples.length == 0 ? 0 : (double) sum / samples.length;
+                })).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Przerwano symulację", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Błąd repliki symulacji", e.getCause());
+            }
+            List<Summary> summaries = new ArrayList<>(scenarios.size());
+            for (int s = 0; s < scenarios.size(); s++) {
+                int from = s * replicas;
+                int to = from + replicas;
+                summaries.add(new Summary(scenarios.get(s),
+                        new Estimate(Arrays.copyOfRange(rejection, from, to)),
+                        new Estimate(Arrays.copyOfRange(revenue, from, to)),
+                        new Estimate(Arrays.copyOfRange(occupancy, from, to))));
+            }
+            return summaries;
+        }
+
+        /**
+         * Zatrzymaj pulę wątków.
+         */
+        public void shutdown() {
+            pool.shutdown();
+        }
+
+        /**
+         * Zbuduj siatkę scenariuszy (iloczyn kartezjański parametrów).
+         *
+         * @param capacities      liczby miejsc.
+         * @param vanShares       udziały vanów.
+         * @param arrivalsPerHour intensywności przyjazdów.
+         * @return scenariusze w kolejności: pojemność, udział vanów, intensywność.
+         */
+        public static List<Scenario> grid(int[] capacities, double[] vanShares, double[] arrivalsPerHour) {
+            List<Scenario> scenarios = new ArrayList<>();
+            for (int capacity : capacities) {
+                for (double vanShare : vanShares) {
+                    for (double rate : arrivalsPerHour) {
+                        scenarios.add(new Scenario(capacity, vanShare, rate));
+                    }
+                }
+            }
+            return scenarios;
+        }
+
+        /**
+         * Przykładowe przeszukanie siatki parametrów.
+         *
+         * @param args [repliki] [dni] [ziarno] [wątki]
+         */
+        public static void main(String[] args) {
+            int replicas = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+            int days = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+            List<Scenario> scenarios = grid(new int[]{50, 100, 150, 200},
+                    new double[]{0.1, 0.3}, new double[]{40, 80});
+            MonteCarloRunner runner = new MonteCarloRunner(replicas, Duration.ofDays(days), seed, threads);
+            long start = System.nanoTime();
+            List<Summary> summaries = runner.run(scenarios);
+            runner.shutdown();
+            System.out.printf("%6s %9s %9s %18s %22s %16s%n",
+                    "Miejsca", "Vany", "Przyj./h", "Odrzucenia (95%)", "Dochód/dobę (95%)", "Zajętość (95%)");
+            for (Summary summary : summaries) {
+                System.out.println(summary);
+            }
+            System.out.printf("Replik: %d w %.2f s%n", scenarios.size() * replicas, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Sieciowa usługa bramek: prosty protokół tekstowy po TCP (jedna linia na żądanie i odpowiedź).
+     * <pre>
+     * ENTER numer [C|V]  -> OK miejsce | FULL | DUP
+     * EXIT numer         -> OK opłata | NOTFOUND
+     * AVAIL              -> OK wolne pojemność
+     * LIST               -> OK n, a po nim n linii z opisem pojazdów
+     * QUIT               -> zamknięcie połączenia
+     * </pre>
+     * Wszystkie połączenia obsługuje jeden wątek z selektorem NIO, który jest jedynym właścicielem
+     * ParkingLot, więc rdzeń parkingu nie wymaga blokad, a liczba połączeń nie zwiększa liczby wątków.
+     * Czas wjazdu i wyjazdu pobierany jest z zegara przekazanego w konstruktorze.
+     */
+    public static class GateServer implements Closeable {
+        private static final int BUFFER_SIZE = 4096;
+
+        private final ParkingLot parkingLot;
+        private final Clock clock;
+        private final Selector selector;
+        private final ServerSocketChannel serverChannel;
+        private final Thread loop;
+        private final StringBuilder line = new StringBuilder(64);
+        private volatile boolean running = true;
+
+        /**
+         * Bufory jednego połączenia; bufor wyjściowy jest zawsze w trybie zapisu.
+         */
+        private static final class Connection {
+            final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean closing;
+        }
+
+        /**
+         * Konstruktor serwera; nasłuchiwanie zaczyna się po wywołaniu start().
+         *
+         * @param parkingLot parking obsługiwany przez serwer (nie może być używany przez inne wątki).
+         * @param address    adres nasłuchiwania (port 0 - dowolny wolny).
+         * @param clock      zegar wyznaczający czasy wjazdu i wyjazdu.
+         * @throws IOException jeśli nie można otworzyć gniazda.
+         */
+        public GateServer(ParkingLot parkingLot, InetSocketAddress address, Clock clock) throws IOException {
+            this.parkingLot = parkingLot;
+            this.clock = clock;
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address, 1024);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            this.loop = new Thread(this::run, "bramki-serwer");
+        }
+
+        /**
+         * Uruchom wątek obsługi połączeń.
+         */
+        public synchronized void start() {
+            if (!running) {
+                throw new IllegalStateException("Serwer został zamknięty");
+            }
+            loop.start();
+        }
+
+        /**
+         * Pobierz port, na którym serwer nasłuchuje.
+         *
+         * @return numer portu.
+         */
+        public int getPort() {
+            return serverChannel.socket().getLocalPort();
+        }
+
+        /**
+         * Zatrzymaj serwer i zamknij wszystkie połączenia.
+         */
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                running = false;
+                if (loop.getState() == Thread.State.NEW) {
+                    // wątek nie działał, więc gniazdo i selektor trzeba zamknąć tutaj
+                    try {
+                        serverChannel.close();
+                    } finally {
+                        selector.close();
+                    }
+                    return;
+                }
+            }
+            selector.wakeup();
+            try {
+                loop.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            if (key.isAcceptable()) {
+                                accept();
+                            } else {
+                                if (key.isReadable()) {
+                                    read(key);
+                                }
+                                if (key.isValid() && key.isWritable()) {
+                                    flush(key);
+                                }
+                            }
+                        } catch (IOException e) {
+                            closeConnection(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    try {
+                        key.channel().close();
+                    } catch (IOException ignored) {
+                        // zamykanie serwera
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // zamykanie serwera
+                }
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, new Connection());
+            }
+        }
+
+        private static void closeConnection(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // połączenie i tak jest zamykane
+            }
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            Connection c = (Connection) key.attachment();
+            SocketChannel channel = (SocketChannel) key.channel();
+            if (channel.read(c.in) == -1) {
+                closeConnection(key);
+                return;
+            }
+            byte[] data = c.in.array();
+            int limit = c.in.position();
+            int start = 0;
+            for (int i = 0; i < limit && !c.closing; i++) {
+                if (data[i] == '\n') {
+                    handle(c, data, start, i > start && data[i - 1] == '\r' ? i - 1 : i);
+                    start = i + 1;
+                }
+            }
+            if (start == 0 && limit == data.length) {
+                respond(c, "ERR linia zbyt długa");
+                c.closing = true;
+            }
+            System.arraycopy(data, start, data, 0, limit - start);
+            c.in.position(limit - start);
+            flush(key);
+        }
+
+        private void flush(SelectionKey key) throws IOException {
+            Connection c = (Connection) key.attachment();
+            c.out.flip();
+            ((SocketChannel) key.channel()).write(c.out);
+            c.out.compact();
+            if (c.out.position() > 0) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else if (c.closing) {
+                closeConnection(key);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Wykonaj jedno polecenie i dopisz odpowiedź do bufora wyjściowego połączenia.
+         */
+        private void handle(Connection c, byte[] data, int from, int to) {
+            int cmdEnd = TraceReplay.skipToken(data, from, to);
+            int argStart = TraceReplay.skipBlanks(data, cmdEnd, to);
+            int argEnd = TraceReplay.skipToken(data, argStart, to);
+            if (matches(data, from, cmdEnd, "ENTER") && argStart < argEnd) {
+                String plate = new String(data, argStart, argEnd - argStart, StandardCharsets.UTF_8)
+                        .toUpperCase(Locale.ROOT);
+                int kindStart = TraceReplay.skipBlanks(data, argEnd, to);
+                byte kind = kindStart < to ? data[kindStart] : (byte) 'C';
+                LocalDateTime now = LocalDateTime.now(clock);
+                Vehicle vehicle = kind == 'V' || kind == 'v' ? new DeliveryVan(plate, now) : new Car(plate, now);
+                if (parkingLot.isParked(plate)) {
+                    respond(c, "DUP");
+                } else if (parkingLot.enterVehicle(vehicle)) {
+                    line.setLength(0);
+                    respond(c, line.append("OK ").append(parkingLot.findSpot(plate).getSpotNumber()));
+                } else {
+                    respond(c, "FULL");
+                }
+            } else if (matches(data, from, cmdEnd, "EXIT") && argStart < argEnd) {
+                String plate = new String(data, argStart, argEnd - argStart, StandardCharsets.UTF_8);
+                ParkingLot.ParkingPayment payment = parkingLot.exitVehicle(plate, LocalDateTime.now(clock));
+                if (payment == null) {
+                    respond(c, "NOTFOUND");
+                } else {
+                    long cents = Math.round(payment.getFee() * 100);
+                    line.setLength(0);
+                    line.append("OK ").append(cents / 100).append('.').append(cents % 100 < 10 ? "0" : "")
+                            .append(cents % 100);
+                    respond(c, line);
+                }
+            } else if (matches(data, from, cmdEnd, "AVAIL")) {
+                line.setLength(0);
+                respond(c, line.append("OK ").append(parkingLot.getAvailableSpots()).append(' ')
+                        .append(parkingLot.getCapacity()));
+            } else if (matches(data, from, cmdEnd, "LIST")) {
+                List<String> vehicles = parkingLot.listParkedVehicles();
+                line.setLength(0);
+                respond(c, line.append("OK ").append(vehicles.size()));
+                for (String vehicle : vehicles) {
+                    respond(c, vehicle);
+                }
+            } else if (matches(data, from, cmdEnd, "QUIT")) {
+                c.closing = true;
+            } else if (cmdEnd > from) {
+                respond(c, "ERR nieznane polecenie");
+            }
+        }
+
+        private static boolean matches(byte[] data, int from, int to, String command) {
+            if (to - from != command.length()) {
+                return false;
+            }
+            for (int i = 0; i < command.length(); i++) {
+                if ((data[from + i] & ~0x20) != command.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static void respond(Connection c, CharSequence text) {
+            int length = text.length();
+            ensureCapacity(c, length * 3 + 1);
+            for (int i = 0; i < length; i++) {
+                char ch = text.charAt(i);
+                if (ch < 0x80) {
+                    c.out.put((byte) ch);
+                } else {
+                    c.out.put(String.valueOf(ch).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            c.out.put((byte) '\n');
+        }
+
+        private static void ensureCapacity(Connection c, int bytes) {
+            if (c.out.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(c.out.capacity() * 2, c.out.position() + bytes));
+                c.out.flip();
+                larger.put(c.out);
+                c.out = larger;
+            }
+        }
+    }
+
+    /**
+     * Generator obciążenia dla GateServer: otwiera wiele połączeń bramek i wysyła naprzemiennie
+     * ENTER i EXIT, mierząc opóźnienie każdego żądania (od wysłania do odebrania odpowiedzi).
+     * Połączenia dzielone są między kilka wątków; każdy wątek obsługuje swoje połączenia po kolei.
+     * Argumenty: [host] [port] [liczba połączeń] [cykle na połączenie] [wątki].
+     */
+    public static class GateLoadGenerator {
+        public static void main(String[] args) throws Exception {
+            String host = args.length > 0 ? args[0] : "127.0.0.1";
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 9500;
+            int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            int cycles = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+            int threads = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+
+            LatencyHistogram latency = new LatencyHistogram();
+            LongAdder errors = new LongAdder();
+            Thread[] workers = new Thread[threads];
+            CountDownLatch connected = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                workers[t] = new Thread(() -> {
+                    List<Socket> sockets = new ArrayList<>();
+                    List<InputStream> inputs = new ArrayList<>();
+                    try {
+                        for (int c = thread; c < connections; c += threads) {
+                            Socket socket = new Socket(host, port);
+                            socket.setTcpNoDelay(true);
+                            sockets.add(socket);
+                            inputs.add(new BufferedInputStream(socket.getInputStream()));
+                        }
+                        connected.countDown();
+                        connected.await();
+                        byte[] response = new byte[256];
+                        for (int cycle = 0; cycle < cycles; cycle++) {
+                            for (int i = 0; i < sockets.size(); i++) {
+                                String plate = "G" + (thread + i * threads) + "X" + cycle;
+                                Socket socket = sockets.get(i);
+                                for (String command : new String[]{"ENTER " + plate + " C\n", "EXIT " + plate + "\n"}) {
+                                    long start = System.nanoTime();
+                                    socket.getOutputStream().write(command.getBytes(StandardCharsets.US_ASCII));
+                                    if (!readLine(inputs.get(i), response)) {
+                                        errors.increment();
+                                    }
+                                    latency.record(System.nanoTime() - start);
+                                }
+                            }
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors.increment();
+                        connected.countDown();
+                    } finally {
+                        for (Socket socket : sockets) {
+                            try {
+                                socket.close();
+                            } catch (IOException ignored) {
+                                // koniec testu
+                            }
+                        }
+                    }
+                }, "generator-" + t);
+                workers[t].start();
+            }
+            connected.await();
+            long start = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] p = latency.percentiles(0.5, 0.99, 0.999);
+            System.out.printf("Połączenia: %d, żądania: %d w %.2f s (%.0f/s), błędy: %d%n",
+                    connections, latency.getCount(), seconds, latency.getCount() / seconds, errors.sum());
+            System.out.printf("Opóźnienie p50: %.1f µs, p99: %.1f µs, p99.9: %.1f µs%n",
+                    p[0] / 1e3, p[1] / 1e3, p[2] / 1e3);
+            if (errors.sum() > 0) {
+                System.exit(1);
+            }
+        }
+
+        /**
+         * Odczytaj jedną linię odpowiedzi; zwraca false, jeśli odpowiedź nie zaczyna się od "OK".
+         */
+        private static boolean readLine(InputStream in, byte[] buffer) throws IOException {
+            int length = 0;
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (length < buffer.length) {
+                    buffer[length++] = (byte) b;
+                }
+            }
+            if (b == -1) {
+                throw new EOFException("Serwer zamknął połączenie");
+            }
+            return length >= 2 && buffer[0] == 'O' && buffer[1] == 'K';
+        }
+    }
+
+    /**
+     * Odtwarzanie śladu zdarzeń bramek bez interfejsu konsolowego.
+     * Plik tekstowy zawiera jeden rekord na linię (pola rozdzielone spacjami lub tabulatorami):
+     * <pre>
+     * E WA12345 C   wjazd samochodu (V lub D - van dostawczy)
+     * X WA12345     wyjazd
+     * T 90          przesunięcie czasu o podaną liczbę minut
+     * R             wyczyszczenie raportu dziennego (nowy dzień)
+     * </pre>
+     * Puste linie i linie zaczynające się od '#' są pomijane. Plik czytany jest blokami przez
+     * FileChannel, a rekordy parsowane bezpośrednio z bajtów bufora; numery rejestracyjne
+     * są internowane, więc powtarzające się numery nie tworzą nowych obiektów String.
+     * Wynik każdego wjazdu i wyjazdu trafia do buforowanego wyjścia:
+     * "E numer miejsce" / "X numer opłata_w_groszach", a "-" oznacza odmowę.
+     */
+    public static class TraceReplay {
+        private static final int BUFFER_SIZE = 1 << 20;
+        private static final int OUTPUT_FLUSH = 1 << 15;
+        private static final int MAX_INTERNED_PLATES = 1 << 20;
+
+        private final ParkingLot parkingLot;
+        private final Writer out; // null, jeśli wyniki nie są zapisywane
+        private final StringBuilder pending = new StringBuilder(OUTPUT_FLUSH + 128);
+        private LocalDateTime currentTime;
+        private long lineNumber;
+        private long entries;
+        private long rejectedEntries;
+        private long exits;
+        private long rejectedExits;
+
+        // tablica internowania numerów: adresowanie otwarte, klucz = bajty numeru
+        private byte[][] internKeys = new byte[1024][];
+        private String[] internValues = new String[1024];
+        private int internSize;
+
+        /**
+         * Konstruktor odtwarzania.
+         *
+         * @param parkingLot parking, na którym odtwarzane są zdarzenia.
+         * @param start      czas początkowy śladu.
+         * @param out        wyjście wyników lub null.
+         */
+        public TraceReplay(ParkingLot parkingLot, LocalDateTime start, Writer out) {
+            this.parkingLot = parkingLot;
+            this.currentTime = start;
+            this.out = out;
+        }
+
+        /**
+         * Odtwórz cały plik śladu.
+         *
+         * @param trace ścieżka pliku.
+         * @return liczba przetworzonych rekordów.
+         * @throws IOException w przypadku błędu odczytu lub zapisu.
+         */
+        public long replay(Path trace) throws IOException {
+            long records = 0;
+            try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte[] data = buffer.array();
+                boolean eof = false;
+                while (!eof) {
+                    eof = channel.read(buffer) == -1;
+                    int limit = buffer.position();
+                    int start = 0;
+                    for (int i = 0; i < limit; i++) {
+                        if (data[i] == '\n') {
+                            if (processLine(data, start, i)) {
+                                records++;
+                            }
+                            start = i + 1;
+                        }
+                    }
+                    if (eof && start < limit) {
+                        if (processLine(data, start, limit)) {
+                            records++;
+                        }
+                        start = limit;
+                    }
+                    if (!eof && start == 0 && limit == data.length) {
+                        throw new IllegalArgumentException("Linia " + (lineNumber + 1) + " jest zbyt długa");
+                    }
+                    System.arraycopy(data, start, data, 0, limit - start);
+                    buffer.position(limit - start);
+                }
+            }
+            if (out != null) {
+                out.append(pending);
+                pending.setLength(0);
+                out.flush();
+            }
+            return records;
+        }
+
+        /**
+         * Przetwórz jedną linię z bufora.
+         *
+         * @return true, jeśli linia zawierała rekord.
+         */
+        private boolean processLine(byte[] data, int from, int to) throws IOException {
+            lineNumber++;
+            if (to > from && data[to - 1] == '\r') {
+                to--;
+            }
+            int p = skipBlanks(data, from, to);
+            if (p == to || data[p] == '#') {
+                return false;
+            }
+            byte op = data[p++];
+            int plateStart = skipBlanks(data, p, to);
+            int plateEnd = skipToken(data, plateStart, to);
+            switch (op) {
+                case 'E':
+                case 'e': {
+                    if (plateStart == plateEnd) {
+                        throw malformed();
+                    }
+                    int kindStart = skipBlanks(data, plateEnd, to);
+                    byte kind = kindStart < to ? data[kindStart] : (byte) 'C';
+                    String plate = plate(data, plateStart, plateEnd);
+                    Vehicle vehicle = kind == 'V' || kind == 'v' || kind == 'D' || kind == 'd'
+                            ? new DeliveryVan(plate, currentTime)
+                            : new Car(plate, currentTime);
+                    entries++;
+                    int spotNumber = parkingLot.enterVehicle(vehicle) ? parkingLot.findSpot(plate).getSpotNumber() : -1;
+                    if (spotNumber == -1) {
+                        rejectedEntries++;
+                    }
+                    writeResult('E', plate, spotNumber);
+                    return true;
+                }
+                case 'X':
+                case 'x': {
+                    if (plateStart == plateEnd) {
+                        throw malformed();
+                    }
+                    String plate = plate(data, plateStart, plateEnd);
+                    exits++;
+                    ParkingLot.ParkingPayment payment = parkingLot.exitVehicle(plate, currentTime);
+                    if (payment == null) {
+                        rejectedExits++;
+                    }
+                    writeResult('X', plate, payment == null ? -1 : Math.round(payment.getFee() * 100));
+                    return true;
+                }
+                case 'T':
+                case 't': {
+                    currentTime = currentTime.plusMinutes(parseLong(data, plateStart, plateEnd));
+                    return true;
+                }
+                case 'R':
+                case 'r':
+                    parkingLot.clearDailyReport();
+                    return true;
+                default:
+                    throw malformed();
+            }
+        }
+
+        static int skipBlanks(byte[] data, int from, int to) {
+            while (from < to && (data[from] == ' ' || data[from] == '\t')) {
+                from++;
+            }
+            return from;
+        }
+
+        static int skipToken(byte[] data, int from, int to) {
+            while (from < to && data[from] != ' ' && data[from] != '\t') {
+                from++;
+            }
+            return from;
+        }
+
+        private long parseLong(byte[] data, int from, int to) {
+            if (from == to) {
+                throw malformed();
+            }
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformed();
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Nieprawidłowy rekord śladu w linii " + lineNumber);
+        }
+
+        /**
+         * Zwróć internowany numer rejestracyjny (wielkie litery) dla bajtów z bufora.
+         */
+        private String plate(byte[] data, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                byte b = data[i];
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                    data[i] = b;
+                }
+                hash = 31 * hash + b;
+            }
+            int mask = internKeys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            byte[] key;
+            while ((key = internKeys[slot]) != null) {
+                if (Arrays.equals(key, 0, key.length, data, from, to)) {
+                    return internValues[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            String plate = new String(data, from, to - from, StandardCharsets.UTF_8);
+            if (internSize >= MAX_INTERNED_PLATES) {
+                Arrays.fill(internKeys, null);
+                Arrays.fill(internValues, null);
+                internSize = 0;
+                return plate;
+            }
+            internKeys[slot] = Arrays.copyOfRange(data, from, to);
+            internValues[slot] = plate;
+            if (++internSize * 2 > internKeys.length) {
+                growInternTable();
+            }
+            return plate;
+        }
+
+        private void growInternTable() {
+            byte[][] oldKeys = internKeys;
+            String[] oldValues = internValues;
+            internKeys = new byte[oldKeys.length * 2][];
+            internValues = new String[oldKeys.length * 2];
+            int mask = internKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                byte[] key = oldKeys[i];
+                if (key == null) {
+                    continue;
+                }
+                int hash = 1;
+                for (byte b : key) {
+                    hash = 31 * hash + b;
+                }
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (internKeys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                internKeys[slot] = key;
+                internValues[slot] = oldValues[i];
+            }
+        }
+
+        private void writeResult(char op, String plate, long value) throws IOException {
+            if (out == null) {
+                return;
+            }
+            pending.append(op).append(' ').append(plate).append(' ');
+            if (value < 0) {
+                pending.append('-');
+            } else {
+                pending.append(value);
+            }
+            pending.append('\n');
+            if (pending.length() >= OUTPUT_FLUSH) {
+                out.append(pending);
+                pending.setLength(0);
+            }
+        }
+
+        public LocalDateTime getCurrentTime() {
+            return currentTime;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getRejectedEntries() {
+            return rejectedEntries;
+        }
+
+        public long getExits() {
+            return exits;
+        }
+
+        public long getRejectedExits() {
+            return rejectedExits;
+        }
+    }
+
+    /**
+     * Główny program z interfejsem użytkownika w konsoli.
+     * Obsługuje:
+     * - Wjazd pojazdu
+     * - Wyjazd pojazdu
+     * - Sprawdzenie dostępności
+     * - Lista aktualnie zaparkowanych pojazdów
+     * - Generowanie raportu dziennego
+     * - Wyczyść raport dzienny (symuluj nowy dzień)
+     * - Symulacja czasu: ręczne przesunięcie aktualnego czasu
+     */
+    public static class Program {
+        private static final Scanner scanner = new Scanner(System.in);
+        private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        private static final Duration OVERSTAY_LIMIT = Duration.ofHours(24);
+        private final ParkingLot parkingLot;
+        private final ParkingJournal journal; // null, jeśli program działa bez dziennika
+        private final OverstayMonitor overstayMonitor;
+        private HttpServer metricsServer; // null, jeśli metryki nie są udostępniane
+        private DailyArchive archive; // null, jeśli zamknięte dni nie są archiwizowane
+        private LocalDateTime currentSimTime;
+
+        /**
+         * Inicjalizuje program z podaną wielkością parkingu i ustawia czas rozpoczęcia symulacji.
+         *
+         * @param capacity całkowita liczba miejsc parkingowych
+         */
+        public Program(int capacity) {
+            this.parkingLot = new ParkingLot(capacity);
+            this.journal = null;
+            this.currentSimTime = LocalDateTime.now();
+            this.overstayMonitor = OverstayMonitor.attach(parkingLot, OVERSTAY_LIMIT, currentSimTime);
+        }
+
+        /**
+         * Inicjalizuje program z trwałym dziennikiem zdarzeń. Stan parkingu jest odtwarzany z dziennika,
+         * a czas symulacji nie cofa się przed ostatnie zapisane zdarzenie.
+         *
+         * @param capacity    całkowita liczba miejsc parkingowych
+         * @param journalPath ścieżka pliku dziennika
+         * @throws IOException w przypadku błędu odczytu dziennika
+         */
+        public Program(int capacity, Path journalPath) throws IOException {
+            this.parkingLot = new ParkingLot(capacity);
+            this.journal = ParkingJournal.open(journalPath, parkingLot, 64, 50);
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime last = journal.getLastEventTime();
+            this.currentSimTime = last != null && last.isAfter(now) ? last : now;
+            this.overstayMonitor = OverstayMonitor.attach(parkingLot, OVERSTAY_LIMIT, currentSimTime);
+        }
+
+        /**
+         * Uruchamia interfejs konsolowy, obsługując polecenia użytkownika.
+         */
+        public void run() {
+            printWelcome();
+            boolean exitRequested = false;
+
+            while (!exitRequested) {
+                printMenu();
+                int choice = readInt("Wybierz opcję: ");
+                switch (choice) {
+                    case 1:
+                        handleVehicleEntry();
+                        break;
+                    case 2:
+                        handleVehicleExit();
+                        break;
+                    case 3:
+                        showAvailability();
+                        break;
+                    case 4:
+                        listParkedVehicles();
+                        break;
+                    case 5:
+                        generateDailyReport();
+                        break;
+                    case 6:
+                        clearDailyReport();
+                        break;
+                    case 7:
+                        advanceTime();
+                        break;
+                    case 8:
+                        exitRequested = true;
+                        closeJournal();
+                        System.out.println("Zamykam program. Do widzenia!");
+                        break;
+                    default:
+                        System.out.println("Nieprawidłowy wybór, proszę wybrać prawidłową opcję.");
+                }
+            }
+        }
+
+        private void printWelcome() {
+            System.out.println("====================================");
+            System.out.println("    WITAMY W SYMULATORZE PARKINGU    ");
+            System.out.println("====================================");
+            System.out.println("Aktualny czas systemowy: " + currentSimTime.format(TIME_FORMAT));
+            if (journal != null) {
+                System.out.println("Odtworzono zdarzeń z dziennika: " + journal.getReplayedEvents());
+            }
+            System.out.println();
+        }
+
+        /**
+         * Archiwizuj zamykane dni: czyszczenie raportu zapisuje rekordy dnia w tle do katalogu.
+         *
+         * @param directory katalog archiwum
+         * @throws IOException jeśli nie można utworzyć katalogu
+         */
+        public void startArchive(Path directory) throws IOException {
+            archive = new DailyArchive(directory);
+            System.out.println("Zamknięte dni są archiwizowane w katalogu " + directory);
+        }
+
+        /**
+         * Włącz metryki parkingu i udostępnij je w formacie Prometheus pod http://127.0.0.1:port/metrics.
+         *
+         * @param port port serwera metryk
+         * @throws IOException jeśli nie można otworzyć portu
+         */
+        public void startMetrics(int port) throws IOException {
+            ParkingMetrics metrics = new ParkingMetrics(parkingLot.getCapacity());
+            parkingLot.setMetrics(metrics);
+            metricsServer = metrics.startServer(port);
+            System.out.println("Metryki dostępne pod adresem http://127.0.0.1:"
+                    + metricsServer.getAddress().getPort() + "/metrics");
+        }
+
+        private void closeJournal() {
+            if (metricsServer != null) {
+                metricsServer.stop(0);
+            }
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    System.out.println("Nie udało się zapisać archiwum: " + e.getMessage());
+                }
+            }
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Nie udało się zapisać dziennika: " + e.getMessage());
+            }
+        }
+
+        private void printMenu() {
+            System.out.println("\nMenu:");
+            System.out.println("1. Rejestracja wjazdu pojazdu");
+            System.out.println("2. Rejestracja wyjazdu pojazdu");
+            System.out.println("3. Sprawdzenie dostępności miejsc parkingowych");
+            System.out.println("4. Lista aktualnie zaparkowanych pojazdów");
+            System.out.println("5. Generowanie raportu dziennego");
+            System.out.println("6. Wyczyść raport dzienny (symuluj nowy dzień)");
+            System.out.println("7. Przesuń czas symulacji");
+            System.out.println("8. Zamknij program");
+        }
+
+        private int readInt(String prompt) {
+            int result = -1;
+            while (result < 0) {
+                System.out.print(prompt);
+                try {
+                    result = Integer.parseInt(scanner.nextLine());
+                    if (result < 0) {
+                        System.out.println("Proszę wprowadzić liczbę całkowitą nieujemną.");
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Nieprawidłowe dane, proszę wprowadzić liczbę całkowitą.");
+                }
+            }
+            return result;
+        }
+
+        private String readNonEmptyString(String prompt) {
+            String result = "";
+            while (result.isEmpty()) {
+                System.out.print(prompt);
+                result = scanner.nextLine().trim();
+                if (result.isEmpty()) {
+                    System.out.println("Wprowadzenie nie może być puste, proszę spróbować ponownie.");
+                }
+            }
+            return result;
+        }
+
+        private void handleVehicleEntry() {
+            System.out.println("\nRejestracja Wjazdu Pojazdu");
+            System.out.println("---------------------");
+
+            if (parkingLot.getAvailableSpots() == 0) {
+                System.out.println("Przykro mi, parking jest pełny. Brak dostępnych miejsc.");
+                return;
+            }
+
+            String licensePlate = readNonEmptyString("Wprowadź numer rejestracyjny: ").toUpperCase();
+            if (isVehicleAlreadyParked(licensePlate)) {
+                System.out.println("Ten pojazd jest już zaparkowany.");
+                return;
+            }
+
+            System.out.println("Wybierz typ pojazdu:");
+            System.out.println("1. Samochód (stawka: 5.00 za godzinę)");
+            System.out.println("2. Van dostawczy (stawka: 8.00 za godzinę)");
+            int typeChoice = readInt("Wybór: ");
+
+            Vehicle vehicle = null;
+            switch (typeChoice) {
+                case 1:
+                    vehicle = new Car(licensePlate, currentSimTime);
+                    break;
+                case 2:
+                    vehicle = new DeliveryVan(licensePlate, currentSimTime);
+                    break;
+                default:
+                    System.out.println("Nieprawidłowy wybór typu pojazdu.");
+                    return;
+            }
+
+            if (parkingLot.enterVehicle(vehicle)) {
+                System.out.println("Pojazd wjechał i został pomyślnie zaparkowany o " + currentSimTime.format(TIME_FORMAT));
+            } else {
+                System.out.println("Nie udało się zaparkować pojazdu. Parking może być pełny.");
+            }
+        }
+
+        private boolean isVehicleAlreadyParked(String licensePlate) {
+            return parkingLot.isParked(licensePlate);
+        }
+
+        private void handleVehicleExit() {
+            System.out.println("\nRejestracja Wyjazdu Pojazdu");
+            System.out.println("---------------------");
+
+            String licensePlate = readNonEmptyString("Wprowadź numer rejestracyjny: ").toUpperCase();
+
+            ParkingLot.ParkingPayment payment = parkingLot.exitVehicle(licensePlate, currentSimTime);
+            if (payment == null) {
+                System.out.println("Pojazd o numerze rejestracyjnym '" + licensePlate + "' nie został znaleziony na parkingu.");
+                return;
+            }
+
+            System.out.println("Pojazd wyjechał pomyślnie.");
+            System.out.printf("Typ: %s\n", payment.getRecord().getVehicleType());
+            System.out.printf("Czas wjazdu: %s\n", payment.getRecord().getEntryTime().format(TIME_FORMAT));
+            System.out.printf("Czas wyjazdu: %s\n", payment.getRecord().getExitTime().format(TIME_FORMAT));
+            System.out.printf("Czas trwania: %.1f godz.(y)\n", payment.getHoursParked());
+            System.out.printf("Kwota do zapłaty: %.2f jednostek walutowych\n", payment.getFee());
+        }
+
+        private void showAvailability() {
+            int available = parkingLot.getAvailableSpots();
+            System.out.printf("Aktualnie dostępne miejsca parkingowe: %d z %d\n", available, parkingLot.capacity);
+        }
+
+        private void listParkedVehicles() {
+            System.out.println("\nAktualnie Zaparkowane Pojazdy:");
+            System.out.println("--------------------------");
+            List<String> parkedVehicles = parkingLot.listParkedVehicles();
+            if (parkedVehicles.isEmpty()) {
+                System.out.println("Parking jest pusty.");
+            } else {
+                for (String s : parkedVehicles) {
+                    System.out.println(s);
+                }
+            }
+        }
+
+        private void generateDailyReport() {
+            System.out.println("\nDzienny Raport Parkingowy");
+            System.out.println("--------------------");
+            System.out.print(parkingLot.generateDailyReport());
+        }
+
+        private void clearDailyReport() {
+            if (archive == null) {
+                parkingLot.clearDailyReport();
+            } else {
+                archive.rollover(parkingLot, currentSimTime.toLocalDate()).whenComplete((file, error) -> {
+                    if (error != null) {
+                        System.out.println("Nie udało się zarchiwizować dnia: " + error.getMessage());
+                    }
+                });
+            }
+            System.out.println("Raport dzienny wyczyszczony. Rozpoczęto nowy dzień.");
+        }
+
+        private void advanceTime() {
+            System.out.println("\nPrzesunięcie Czasu Symulacji");
+            System.out.println("-----------------------");
+            System.out.println("Aktualny czas symulacji: " + currentSimTime.format(TIME_FORMAT));
+            int hours = readInt("Wprowadź godziny do przesunięcia: ");
+            int minutes = readInt("Wprowadź minuty do przesunięcia: ");
+            currentSimTime = currentSimTime.plusHours(hours).plusMinutes(minutes);
+            System.out.println("Czas symulacji przesunięty do: " + currentSimTime.format(TIME_FORMAT));
+            overstayMonitor.advanceTo(currentSimTime, (vehicle, spotNumber, deadline) ->
+                    System.out.println("Uwaga: przekroczony czas postoju - miejsce #" + spotNumber + ": "
+                            + vehicle + ", termin: " + deadline.format(TIME_FORMAT)));
+        }
+
+        /**
+         * Tryb bez interfejsu: odtwarza plik śladu bramek (patrz TraceReplay) i wypisuje podsumowanie.
+         *
+         * @param args --trace plik_śladu [liczba_miejsc] [plik_wyników]
+         * @throws IOException w przypadku błędu odczytu lub zapisu
+         */
+        private static void replayTrace(String[] args) throws IOException {
+            if (args.length < 2) {
+                System.out.println("Użycie: --trace plik_śladu [liczba_miejsc] [plik_wyników]");
+                return;
+            }
+            int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+            ParkingLot parkingLot = new ParkingLot(capacity);
+            Writer out = args.length > 3
+                    ? Files.newBufferedWriter(Path.of(args[3]))
+                    : null;
+            TraceReplay replay = new TraceReplay(parkingLot, LocalDateTime.now(), out);
+            long start = System.nanoTime();
+            long records;
+            try {
+                records = replay.replay(Path.of(args[1]));
+            } finally {
+                if (out != null) {
+                    out.close();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Rekordy: %d w %.2f s (%.0f/s)\n", records, seconds, records / seconds);
+            System.out.printf("Wjazdy: %d (odmowy: %d), wyjazdy: %d (nieznalezione: %d)\n",
+                    replay.getEntries(), replay.getRejectedEntries(), replay.getExits(), replay.getRejectedExits());
+            System.out.printf("Zajęte miejsca: %d z %d, dochód dnia: %.2f\n",
+                    capacity - parkingLot.getAvailableSpots(), capacity, parkingLot.getDailyTotals().getTotalIncome());
+        }
+
+        /**
+         * Tryb serwera: udostępnia parking bramkom przez GateServer do naciśnięcia Enter.
+         *
+         * @param args --serve port [liczba_miejsc]
+         * @throws IOException jeśli nie można otworzyć portu
+         */
+        private static void serve(String[] args) throws IOException {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 9500;
+            int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+            try (GateServer server = new GateServer(new ParkingLot(capacity), new InetSocketAddress(port),
+                    Clock.systemDefaultZone())) {
+                server.start();
+                System.out.println("Serwer bramek nasłuchuje na porcie " + server.getPort()
+                        + ". Naciśnij Enter, aby zatrzymać.");
+                if (scanner.hasNextLine()) {
+                    scanner.nextLine();
+                }
+            }
+        }
+
+        /**
+         * Program entry point.
+         *
+         * @param args [--metrics port] [--archive katalog] [ścieżka pliku dziennika zdarzeń]
+         *             albo --trace plik_śladu [liczba_miejsc] [plik_wyników]
+         *             albo --serve port [liczba_miejsc]
+         * @throws IOException w przypadku błędu odczytu dziennika
+         */
+        public static void main(String[] args) throws IOException {
+            if (args.length > 0 && args[0].equals("--trace")) {
+                replayTrace(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--serve")) {
+                serve(args);
+                return;
+            }
+            int metricsPort = -1;
+            Path archiveDirectory = null;
+            int first = 0;
+            while (args.length > first + 1) {
+                if (args[first].equals("--metrics")) {
+                    metricsPort = Integer.parseInt(args[first + 1]);
+                } else if (args[first].equals("--archive")) {
+                    archiveDirectory = Path.of(args[first + 1]);
+                } else {
+                    break;
+                }
+                first += 2;
+            }
+            final int parkingCapacity = 20; // Stała liczba miejsc parkingowych do demonstracji; można dostosować
+            Program program = args.length > first
+                    ? new Program(parkingCapacity, Path.of(args[first]))
+                    : new Program(parkingCapacity);
+            if (metricsPort >= 0) {
+                program.startMetrics(metricsPort);
+            }
+            if (archiveDirectory != null) {
+                program.startArchive(archiveDirectory);
+            }
+            program.run();
+        }}}
+
+
@@ -0,0 +1,123 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ConcurrentParkingLot;
+import symulator.ParkingSimulator.ParkingSpot;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test obciążeniowy ConcurrentParkingLot: bramki jednocześnie wpuszczają i wypuszczają pojazdy na parking,
+ * który mieści tylko połowę ich pojazdów, więc bramki rywalizują o te same słowa mapy bitowej, a wjazdy
+ * często kończą się brakiem miejsca (wycofanie rezerwacji numeru). Każde zajęcie miejsca jest rejestrowane
+ * w niezależnej tablicy właścicieli, więc podwójny przydział miejsca lub dwukrotne zaparkowanie
+ * wspólnego numeru jest wykrywane.
+ */
+class ConcurrentParkingLotTest {
+    private static final int GATES = 8;
+    private static final int PLATES_PER_GATE = 8;
+    private static final int CAPACITY = GATES * PLATES_PER_GATE / 2;
+    private static final int OPS_PER_GATE = 100_000;
+    private static final String SHARED_PLATE = "WSPOLNY1";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @Test
+    void noSpotOrPlateIsDoubleAllocatedUnderContention() throws InterruptedException {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(CAPACITY);
+        AtomicIntegerArray owners = new AtomicIntegerArray(CAPACITY + 1); // 0 -> miejsce wolne
+        AtomicInteger sharedHolders = new AtomicInteger();
+        LongAdder violations = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        int[][] heldSpots = new int[GATES][PLATES_PER_GATE + 1]; // 0 -> pojazd bramki nie stoi
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] threads = new Thread[GATES];
+
+        for (int g = 0; g < GATES; g++) {
+            final int gate = g + 1;
+            final int[] held = heldSpots[g];
+            threads[g] = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int op = 0; op < OPS_PER_GATE; op++) {
+                    // pozycja PLATES_PER_GATE to numer wspólny wszystkim bramkom
+                    int i = (op * 5 + (op >>> 4)) % (PLATES_PER_GATE + 1);
+                    String plate = i == PLATES_PER_GATE ? SHARED_PLATE : "G" + gate + "X" + i;
+                    if (held[i] != 0) {
+                        // zwolnij wpis właściciela przed wyjazdem: po wyjeździe miejsce może zająć inna bramka
+                        if (!owners.compareAndSet(held[i], gate, 0)) {
+                            violations.increment();
+                        }
+                        if (i == PLATES_PER_GATE) {
+                            sharedHolders.decrementAndGet();
+                        }
+                        if (lot.exitVehicle(plate, START.plusMinutes(op & 255)) == null) {
+                            violations.increment();
+                        }
+                        held[i] = 0;
+                    } else if (lot.enterVehicle(new Car(plate, START))) {
+                        ParkingSpot spot = lot.findSpot(plate);
+                        if (spot == null || !owners.compareAndSet(spot.getSpotNumber(), 0, gate)) {
+                            violations.increment();
+                        }
+                        if (i == PLATES_PER_GATE && sharedHolders.incrementAndGet() > 1) {
+                            violations.increment();
+                        }
+                        held[i] = spot == null ? 0 : spot.getSpotNumber();
+                    } else if (i != PLATES_PER_GATE) {
+                        rejected.increment(); // własny numer nie stoi, więc odmowa oznacza brak miejsca
+                    }
+                }
+            }, "bramka-" + gate);
+            threads[g].start();
+        }
+        ready.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(0, violations.sum());
+        assertTrue(rejected.sum() > 0, "parking ani razu się nie zapełnił");
+        int parked = 0;
+        for (int g = 0; g < GATES; g++) {
+            for (int i = 0; i < PLATES_PER_GATE; i++) {
+                String plate = "G" + (g + 1) + "X" + i;
+                assertEquals(heldSpots[g][i] != 0, lot.isParked(plate), plate);
+                if (heldSpots[g][i] != 0) {
+                    parked++;
+                    assertEquals(heldSpots[g][i], lot.findSpot(plate).getSpotNumber());
+                    assertEquals(g + 1, owners.get(heldSpots[g][i]));
+                }
+            }
+            if (heldSpots[g][PLATES_PER_GATE] != 0) {
+                parked++;
+            }
+        }
+        assertEquals(sharedHolders.get() == 1, lot.isParked(SHARED_PLATE));
+        assertEquals(parked, lot.listParkedVehicles().size());
+        assertEquals(CAPACITY - parked, lot.getAvailableSpots());
+
+        for (int g = 0; g < GATES; g++) {
+            for (int i = 0; i <= PLATES_PER_GATE; i++) {
+                if (heldSpots[g][i] != 0) {
+                    lot.exitVehicle(i == PLATES_PER_GATE ? SHARED_PLATE : "G" + (g + 1) + "X" + i, START.plusHours(5));
+                }
+            }
+        }
+        assertEquals(CAPACITY, lot.getAvailableSpots());
+        assertTrue(lot.listParkedVehicles().isEmpty());
+        assertFalse(lot.isParked(SHARED_PLATE));
+    }
+}
@@ -0,0 +1,112 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DailyArchive;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ParkingRecordStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DailyArchiveTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 1);
+
+    @TempDir
+    Path dir;
+
+    private static void traffic(ParkingLot lot, LocalDate day, int sessions) {
+        LocalDateTime start = day.atTime(6, 0);
+        for (int i = 0; i < sessions; i++) {
+            LocalDateTime entry = start.plusMinutes(i);
+            lot.enterVehicle(i % 3 == 0 ? new DeliveryVan("A" + i, entry) : new Car("A" + i, entry));
+            lot.exitVehicle("A" + i, entry.plusMinutes(37 + i % 200));
+        }
+    }
+
+    private static List<String> rows(Iterable<ParkingLot.ParkingRecord> records) {
+        return StreamSupport.stream(records.spliterator(), false)
+                .map(r -> r.getLicensePlate() + "|" + r.getVehicleType() + "|" + r.getEntryTime()
+                        + "|" + r.getExitTime() + "|" + r.getFee())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        ParkingLot lot = new ParkingLot(10);
+        traffic(lot, DAY, 500);
+        Path file = dir.resolve("day.pcol.gz");
+        DailyArchive.write(lot.getDailyRecords(), DAY, file);
+        ParkingRecordStore read = DailyArchive.read(file);
+        assertEquals(rows(lot.getDailyRecords()), rows(read));
+    }
+
+    @Test
+    void rolloverArchivesEachDayAndPartsOfTheSameDay() throws IOException {
+        ParkingLot lot = new ParkingLot(10);
+        List<String> expected;
+        try (DailyArchive archive = new DailyArchive(dir)) {
+            traffic(lot, DAY, 300);
+            expected = rows(lot.getDailyRecords());
+            archive.rollover(lot, DAY).join();
+            assertTrue(lot.getDailyRecords().isEmpty());
+            assertEquals(0, lot.getDailyTotals().getVehicleCount());
+
+            traffic(lot, DAY.plusDays(1), 200);
+            List<String> second = rows(lot.getDailyRecords());
+            archive.rollover(lot, DAY).join(); // druga część tego samego dnia
+            expected.addAll(second);
+
+            traffic(lot, DAY.plusDays(2), 10);
+            archive.rollover(lot, DAY.plusDays(2));
+        }
+        try (DailyArchive archive = new DailyArchive(dir)) {
+            assertEquals(expected, rows(archive.readDay(DAY)));
+            assertEquals(10, archive.readDay(DAY.plusDays(2)).size());
+            assertEquals(0, archive.readDay(DAY.plusDays(1)).size());
+            assertEquals(510, archive.records(DAY, DAY.plusDays(2)).count());
+        }
+    }
+
+    @Test
+    void failedWriteKeepsTheDayForRetry() throws IOException {
+        ParkingLot lot = new ParkingLot(10);
+        try (DailyArchive archive = new DailyArchive(dir)) {
+            // katalog w miejscu pliku części uniemożliwia atomową podmianę
+            Path blocker = dir.resolve(DAY + ".pcol.gz");
+            Files.createDirectories(blocker.resolve("x"));
+            traffic(lot, DAY, 120);
+            List<String> expected = rows(lot.getDailyRecords());
+            assertThrows(CompletionException.class, () -> archive.rollover(lot, DAY).join());
+            assertEquals(1, archive.getFailedDays());
+            assertNotNull(archive.getLastError());
+            assertFalse(Files.exists(dir.resolve(DAY + ".pcol.gz.tmp")));
+            assertTrue(lot.getDailyRecords().isEmpty());
+
+            Files.delete(blocker.resolve("x"));
+            Files.delete(blocker);
+            assertEquals(0, archive.retryFailed().join());
+            assertEquals(expected, rows(archive.readDay(DAY)));
+
+            // magazyn z zapisanego dnia wraca jako bufor z pustymi słownikami
+            traffic(lot, DAY.plusDays(1), 5);
+            archive.rollover(lot, DAY.plusDays(1)).join();
+            assertEquals(-1, lot.getDailyRecords().findTypeId(Car.TYPE));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.EntryTimeIndex;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.Vehicle;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EntryTimeIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @Test
+    void selectPagesThroughAllSpotsInKeyOrder() {
+        int capacity = 500;
+        EntryTimeIndex index = new EntryTimeIndex(capacity);
+        Vehicle[] vehicles = new Vehicle[capacity];
+        SplittableRandom random = new SplittableRandom(11);
+        for (int spot = 0; spot < capacity; spot++) {
+            // mało różnych czasów, więc kolejność często rozstrzyga dopiero indeks miejsca
+            LocalDateTime entry = START.plusMinutes(random.nextInt(40)).plusNanos(random.nextInt(2));
+            vehicles[spot] = spot % 3 == 0 ? new DeliveryVan("V" + spot, entry) : new Car("C" + spot, entry);
+            index.add(spot, vehicles[spot]);
+        }
+        for (int spot = 0; spot < capacity; spot += 7) {
+            index.remove(spot);
+            vehicles[spot] = null;
+        }
+
+        for (int type = -1; type <= 1; type++) {
+            String typeName = type == -1 ? null : index.typeIndex(Car.TYPE) == type ? Car.TYPE : DeliveryVan.TYPE;
+            List<Integer> expected = new ArrayList<>();
+            for (int spot = 0; spot < capacity; spot++) {
+                if (vehicles[spot] != null && (typeName == null || vehicles[spot].getType().equals(typeName))) {
+                    expected.add(spot);
+                }
+            }
+            Comparator<Integer> byKey = Comparator.<Integer, LocalDateTime>comparing(s -> vehicles[s].getEntryTime())
+                    .thenComparingInt(s -> s);
+            expected.sort(byKey);
+            assertEquals(expected, page(index, type, false, 13));
+            expected.sort(byKey.reversed());
+            assertEquals(expected, page(index, type, true, 13));
+        }
+    }
+
+    private static List<Integer> page(EntryTimeIndex index, int type, boolean descending, int pageSize) {
+        List<Integer> all = new ArrayList<>();
+        long lowSecond = Long.MIN_VALUE;
+        int lowNano = 0;
+        int lowSpot = -1;
+        long highSecond = Long.MAX_VALUE;
+        int highNano = 0;
+        int highSpot = -1;
+        int[] out = new int[pageSize];
+        while (true) {
+            int count = index.select(type, descending, lowSecond, lowNano, lowSpot, highSecond, highNano, highSpot, out);
+            for (int i = 0; i < count; i++) {
+                all.add(out[i]);
+            }
+            if (count < pageSize) {
+                return all;
+            }
+            int last = out[count - 1];
+            if (descending) {
+                highSecond = index.getEntrySecond(last);
+                highNano = index.getEntryNano(last);
+                highSpot = last;
+            } else {
+                lowSecond = index.getEntrySecond(last);
+                lowNano = index.getEntryNano(last);
+                lowSpot = last;
+            }
+        }
+    }
+
+    @Test
+    void listParkedCursorIsStableWhileVehiclesLeave() {
+        ParkingLot lot = new ParkingLot(100);
+        for (int i = 0; i < 100; i++) {
+            lot.enterVehicle(new Car("P" + i, START.plusMinutes(i)));
+        }
+        ParkingLot.ParkedQuery query = ParkingLot.ParkedQuery.all().limit(10)
+                .enteredBefore(START.plusMinutes(95));
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ParkingLot.ParkedPage page = lot.listParked(query, cursor);
+            for (ParkingLot.ParkedVehicle parked : page.getVehicles()) {
+                seen.add(parked.getVehicle().getLicensePlate());
+            }
+            // wyjazd pojazdu z już zwróconej strony nie przesuwa kolejnych stron
+            if (!page.getVehicles().isEmpty()) {
+                lot.exitVehicle(page.getVehicles().get(0).getVehicle().getLicensePlate(), START.plusHours(5));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(95, seen.size());
+        for (int i = 0; i < 95; i++) {
+            assertEquals("P" + i, seen.get(i));
+        }
+        assertNull(lot.listParked(query.ofType("Rower"), null).getNextCursor());
+        assertEquals(START.plusMinutes(99).toEpochSecond(ZoneOffset.UTC) + ":0:99",
+                lot.listParked(ParkingLot.ParkedQuery.all().newestFirst().limit(1), null).getNextCursor());
+    }
+}
@@ -0,0 +1,177 @@
+package symulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.GateServer;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Protokół GateServer przez połączenie lokalne.
+ */
+class GateServerTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-06-03T08:00:00Z"));
+    private GateServer server;
+
+    /**
+     * Zegar przesuwany ręcznie przez test.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Połączenie bramki: wysyła surowe bajty i czyta odpowiedzi liniami.
+     */
+    private static final class Gate implements AutoCloseable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final BufferedReader in;
+
+        Gate(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(5000);
+            out = socket.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        void send(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        String call(String request) throws IOException {
+            send(request + "\n");
+            return in.readLine();
+        }
+
+        String readLine() throws IOException {
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private int startServer(int capacity) throws IOException {
+        server = new GateServer(new ParkingLot(capacity), new InetSocketAddress("127.0.0.1", 0), clock);
+        server.start();
+        return server.getPort();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void commandsAndResponses() throws IOException {
+        try (Gate gate = new Gate(startServer(2))) {
+            assertEquals("OK 1", gate.call("ENTER AB1"));
+            assertEquals("DUP", gate.call("enter ab1"));
+            assertEquals("OK 2", gate.call("ENTER VAN1 V"));
+            assertEquals("FULL", gate.call("ENTER XY9"));
+            assertEquals("OK 0 2", gate.call("AVAIL"));
+
+            assertEquals("OK 2", gate.call("LIST"));
+            String first = gate.readLine();
+            String second = gate.readLine();
+            assertTrue(first.contains("AB1") && second.contains("VAN1"), first + " / " + second);
+
+            clock.advance(Duration.ofMinutes(90));
+            assertEquals("OK 10.00", gate.call("EXIT ab1"));
+            assertEquals("NOTFOUND", gate.call("EXIT AB1"));
+            assertEquals("OK 1 2", gate.call("AVAIL"));
+            assertEquals("ERR nieznane polecenie", gate.call("PARK AB1"));
+            gate.send("QUIT\n");
+            assertNull(gate.readLine());
+        }
+    }
+
+    @Test
+    void requestSplitAcrossReads() throws IOException, InterruptedException {
+        try (Gate gate = new Gate(startServer(5))) {
+            gate.send("ENT");
+            Thread.sleep(50);
+            gate.send("ER SPL");
+            Thread.sleep(50);
+            gate.send("IT1\r\nAVA");
+            assertEquals("OK 1", gate.readLine());
+            Thread.sleep(50);
+            gate.send("IL\n");
+            assertEquals("OK 4 5", gate.readLine());
+        }
+    }
+
+    @Test
+    void tooLongLineClosesTheConnection() throws IOException {
+        int port = startServer(5);
+        try (Gate gate = new Gate(port)) {
+            char[] plate = new char[5000];
+            Arrays.fill(plate, 'A');
+            gate.send("ENTER " + new String(plate));
+            assertEquals("ERR linia zbyt długa", gate.readLine());
+            assertNull(gate.readLine());
+        }
+        // serwer obsługuje dalej pozostałe połączenia
+        try (Gate gate = new Gate(port)) {
+            assertEquals("OK 5 5", gate.call("AVAIL"));
+        }
+    }
+
+    @Test
+    void closeWithoutStartReleasesThePort() throws IOException {
+        GateServer idle = new GateServer(new ParkingLot(1), new InetSocketAddress("127.0.0.1", 0), clock);
+        int port = idle.getPort();
+        idle.close();
+        assertThrows(ConnectException.class, () -> new Socket("127.0.0.1", port).close());
+        assertThrows(IllegalStateException.class, idle::start);
+    }
+}
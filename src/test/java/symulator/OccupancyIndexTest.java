@@ -0,0 +1,134 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.OccupancyIndex;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ParkingRecordStore;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * OccupancyIndex porównywany z naiwnym przeglądem wszystkich sesji. Czasy leżą na siatce 10 s,
+ * więc wjazdy i wyjazdy często wypadają w tej samej sekundzie; część sesji ma zerową długość
+ * lub wyjazd przed wjazdem (traktowany jak wyjazd w chwili wjazdu).
+ */
+class OccupancyIndexTest {
+    private static final long BASE = LocalDateTime.of(2024, 6, 1, 8, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final List<long[]> sessions = new ArrayList<>(); // {wjazd, wyjazd po przycięciu}
+
+    private static LocalDateTime at(long second) {
+        return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    private ParkingRecordStore randomStore(long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ParkingRecordStore store = new ParkingRecordStore();
+        int type = store.typeId("Samochód");
+        for (int i = 0; i < count; i++) {
+            long entry = BASE + random.nextInt(60) * 10L;
+            long exit;
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                exit = entry; // zerowa długość
+            } else if (kind == 1) {
+                exit = entry - 10; // wyjazd przed wjazdem
+            } else {
+                exit = entry + random.nextInt(1, 20) * 10L;
+            }
+            store.add(store.plateId("P" + i), type, entry, exit, 100);
+            sessions.add(new long[]{entry, Math.max(exit, entry)});
+        }
+        return store;
+    }
+
+    private int naiveOccupancy(long t) {
+        int count = 0;
+        for (long[] s : sessions) {
+            if (s[0] <= t && t < s[1]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<String> naiveOverlapping(long from, long to) {
+        List<long[]> hits = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            long[] s = sessions.get(i);
+            if (to > from && s[0] < to && s[1] > from) {
+                hits.add(new long[]{s[0], i});
+            }
+        }
+        hits.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        List<String> plates = new ArrayList<>();
+        for (long[] hit : hits) {
+            plates.add("P" + hit[1]);
+        }
+        return plates;
+    }
+
+    @Test
+    void queriesMatchANaiveScan() {
+        ParkingRecordStore store = randomStore(5, 400);
+        OccupancyIndex index = OccupancyIndex.build(store);
+        SplittableRandom random = new SplittableRandom(11);
+        for (long t = BASE - 20; t <= BASE + 820; t++) {
+            assertEquals(naiveOccupancy(t), index.occupancyAt(at(t)), "t=" + (t - BASE));
+        }
+        for (int q = 0; q < 2000; q++) {
+            // granice okien na siatce lub sekundę obok, także okna puste i odwrócone
+            long from = BASE + random.nextInt(-2, 82) * 10L + random.nextInt(-1, 2);
+            long to = from + random.nextInt(-2, 30) * 10L + random.nextInt(-1, 2);
+            String window = "[" + (from - BASE) + ", " + (to - BASE) + ")";
+
+            int peak = naiveOccupancy(from);
+            for (long t = from + 1; t <= to; t++) {
+                peak = Math.max(peak, naiveOccupancy(t));
+            }
+            if (to >= from) {
+                assertEquals(peak, index.peakOccupancy(at(from), at(to)), window);
+            }
+
+            List<String> expected = naiveOverlapping(from, to);
+            assertEquals(expected.size(), index.countOverlapping(at(from), at(to)), window);
+            List<String> actual = new ArrayList<>();
+            for (ParkingLot.ParkingRecord record : index.sessionsOverlapping(at(from), at(to))) {
+                actual.add(record.getLicensePlate());
+            }
+            assertEquals(expected, actual, window);
+        }
+    }
+
+    @Test
+    void boundariesAreHalfOpen() {
+        ParkingRecordStore store = new ParkingRecordStore();
+        int type = store.typeId("Samochód");
+        store.add(store.plateId("A"), type, BASE, BASE + 60, 100);
+        store.add(store.plateId("B"), type, BASE + 60, BASE + 120, 100); // wjeżdża, gdy A wyjeżdża
+        store.add(store.plateId("Z"), type, BASE + 90, BASE + 90, 100);  // zerowa długość
+        OccupancyIndex index = OccupancyIndex.build(store);
+
+        assertEquals(1, index.occupancyAt(at(BASE)));
+        assertEquals(1, index.occupancyAt(at(BASE + 60))); // wyjazd A przed wjazdem B
+        assertEquals(0, index.occupancyAt(at(BASE + 120)));
+        assertEquals(1, index.peakOccupancy(at(BASE), at(BASE + 120)));
+        // szczyt obejmuje chwilę to
+        assertEquals(0, index.peakOccupancy(at(BASE - 10), at(BASE - 1)));
+        assertEquals(1, index.peakOccupancy(at(BASE - 10), at(BASE)));
+
+        // sesja zerowej długości: liczona wewnątrz okna, pomijana na jego początku
+        assertEquals(2, index.countOverlapping(at(BASE + 89), at(BASE + 91)));
+        assertEquals(2, index.sessionsOverlapping(at(BASE + 89), at(BASE + 91)).size());
+        assertEquals(1, index.countOverlapping(at(BASE + 90), at(BASE + 91)));
+        assertEquals("B", index.sessionsOverlapping(at(BASE + 90), at(BASE + 91)).get(0).getLicensePlate());
+        assertEquals(1, index.countOverlapping(at(BASE + 60), at(BASE + 61)));
+        assertEquals(0, index.countOverlapping(at(BASE + 60), at(BASE + 60)));
+    }
+}
@@ -0,0 +1,79 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.OverstayMonitor;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OverstayMonitorTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    @Test
+    void advanceToCascadesDeadlinesFromEveryLevelInOrder() {
+        int vehicles = 2000;
+        ParkingLot lot = new ParkingLot(vehicles);
+        OverstayMonitor monitor = OverstayMonitor.attach(lot, null, START);
+        SplittableRandom random = new SplittableRandom(5);
+        List<LocalDateTime> deadlines = new ArrayList<>();
+        for (int i = 0; i < vehicles; i++) {
+            lot.enterVehicle(new Car("T" + i, START));
+            // terminy od sekund do miesięcy trafiają na różne poziomy koła
+            long seconds = 1 + (long) Math.pow(2, random.nextDouble() * 22);
+            LocalDateTime deadline = START.plusSeconds(seconds);
+            assertTrue(monitor.setDeadline("T" + i, deadline));
+            deadlines.add(deadline);
+        }
+        assertEquals(vehicles, monitor.size());
+
+        Set<String> fired = new HashSet<>();
+        LocalDateTime[] last = {START};
+        LocalDateTime now = START;
+        // kroki różnej długości: część przeskakuje wiele przedziałów wyższych poziomów naraz
+        while (fired.size() < vehicles) {
+            now = now.plusSeconds(1 + random.nextInt(random.nextBoolean() ? 90 : 400_000));
+            LocalDateTime limit = now;
+            monitor.advanceTo(now, (vehicle, spotNumber, deadline) -> {
+                assertFalse(deadline.isAfter(limit), "alarm przed terminem");
+                assertFalse(deadline.isBefore(last[0]), "alarmy poza kolejnością terminów");
+                assertTrue(fired.add(vehicle.getLicensePlate()), "alarm zgłoszony dwukrotnie");
+                assertEquals(deadlines.get(Integer.parseInt(vehicle.getLicensePlate().substring(1))), deadline);
+                last[0] = deadline;
+            });
+            for (int i = 0; i < vehicles; i++) {
+                boolean due = !deadlines.get(i).isAfter(now);
+                assertEquals(due, fired.contains("T" + i), "T" + i);
+            }
+        }
+        assertEquals(0, monitor.size());
+    }
+
+    @Test
+    void exitCancelsDeadlineAndPastDeadlinesFireFirst() {
+        ParkingLot lot = new ParkingLot(3);
+        OverstayMonitor monitor = OverstayMonitor.attach(lot, Duration.ofHours(2), START);
+        lot.enterVehicle(new Car("A", START));
+        lot.enterVehicle(new Car("B", START));
+        lot.enterVehicle(new Car("C", START.minusHours(3))); // termin minął przed rejestracją
+        lot.exitVehicle("A", START.plusHours(1));
+        assertNull(monitor.getDeadline("A"));
+        assertEquals(START.plusHours(2), monitor.getDeadline("B"));
+
+        List<String> fired = new ArrayList<>();
+        assertEquals(1, monitor.advanceTo(START.plusMinutes(1), (v, spot, deadline) -> fired.add(v.getLicensePlate())));
+        assertEquals(1, monitor.advanceTo(START.plusDays(1), (v, spot, deadline) -> fired.add(v.getLicensePlate())));
+        assertEquals(List.of("C", "B"), fired);
+    }
+}
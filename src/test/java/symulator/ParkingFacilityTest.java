@@ -0,0 +1,105 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingFacility;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ParkingLotListener;
+import symulator.ParkingSimulator.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingFacilityTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    /**
+     * Obserwator zgłaszający błąd przy wjeździe lub wyjeździe, gdy ustawiono odpowiednią flagę.
+     */
+    private static class FailingListener implements ParkingLotListener {
+        volatile boolean failEnter;
+        volatile boolean failExit;
+
+        @Override
+        public void onVehicleEntered(Vehicle vehicle, int spotNumber) {
+            if (failEnter) {
+                throw new IllegalStateException("awaria obserwatora przy wjeździe");
+            }
+        }
+
+        @Override
+        public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+            if (failExit) {
+                throw new IllegalStateException("awaria obserwatora przy wyjeździe");
+            }
+        }
+    }
+
+    @Test
+    void entriesGoToTheEmptiestShardAndExitsFindThem() {
+        try (ParkingFacility facility = new ParkingFacility(2, 3)) {
+            assertEquals(5, facility.getCapacity());
+            for (int i = 0; i < 5; i++) {
+                assertTrue(facility.enterVehicle(new Car("F" + i, START.plusMinutes(i))));
+            }
+            assertFalse(facility.enterVehicle(new Car("F9", START)));
+            assertFalse(facility.enterVehicle(new Car("f0", START)));
+            assertEquals(0, facility.getAvailableSpots());
+            assertEquals(1, facility.findShard("F0"));
+            assertEquals(5, facility.listParkedVehicles().size());
+
+            assertNotNull(facility.exitVehicle("f0", START.plusHours(2)));
+            assertNull(facility.exitVehicle("F0", START.plusHours(2)));
+            assertEquals(1, facility.getAvailableSpots(1));
+            assertEquals(1, facility.getDailyVehicleCount());
+            assertEquals(10.0, facility.getDailyIncome());
+        }
+    }
+
+    @Test
+    void listenerErrorAfterParkingKeepsTheVehicleInTheDirectory() {
+        try (ParkingFacility facility = new ParkingFacility(2)) {
+            FailingListener listener = new FailingListener();
+            facility.onShard(0, lot -> {
+                lot.addListener(listener);
+                return null;
+            }).join();
+            listener.failEnter = true;
+            assertTrue(facility.enterVehicle(new Car("BLAD1", START)));
+            listener.failEnter = false;
+
+            assertTrue(facility.isParked("BLAD1"));
+            assertEquals(1, facility.getAvailableSpots());
+            assertEquals(1, (int) facility.onShard(0, ParkingLot::getAvailableSpots).join());
+            assertNotNull(facility.exitVehicle("BLAD1", START.plusHours(1)));
+            assertEquals(2, facility.getAvailableSpots());
+        }
+    }
+
+    @Test
+    void listenerErrorAfterReleaseStillFreesTheSpotAndPlate() {
+        try (ParkingFacility facility = new ParkingFacility(1)) {
+            FailingListener listener = new FailingListener();
+            facility.onShard(0, lot -> {
+                lot.addListener(listener);
+                return null;
+            }).join();
+            assertTrue(facility.enterVehicle(new Car("BLAD2", START)));
+            listener.failExit = true;
+            assertThrows(CompletionException.class, () -> facility.exitVehicle("BLAD2", START.plusHours(1)));
+            listener.failExit = false;
+
+            assertFalse(facility.isParked("BLAD2"));
+            assertEquals(1, facility.getAvailableSpots());
+            assertEquals(1, facility.getAvailableSpots(0));
+            assertTrue(facility.enterVehicle(new Car("BLAD2", START.plusHours(2))));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingJournal;
+import symulator.ParkingSimulator.ParkingLot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingJournalTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRestoresLotState() throws IOException {
+        Path path = dir.resolve("parking.journal");
+        ParkingLot lot = new ParkingLot(50);
+        try (ParkingJournal journal = ParkingJournal.open(path, lot, 16, 0)) {
+            for (int i = 0; i < 40; i++) {
+                Car car = i % 4 == 0 ? null : new Car("J" + i, START.plusMinutes(i));
+                lot.enterVehicle(car != null ? car : new DeliveryVan("J" + i, START.plusMinutes(i)));
+            }
+            lot.clearDailyReport();
+            for (int i = 0; i < 40; i += 3) {
+                lot.exitVehicle("J" + i, START.plusHours(3));
+            }
+            assertEquals(0, journal.getReplayedEvents());
+        }
+
+        ParkingLot restored = new ParkingLot(50);
+        try (ParkingJournal journal = ParkingJournal.open(path, restored, 16, 0)) {
+            assertEquals(40 + 1 + 14, journal.getReplayedEvents());
+            assertEquals(START.plusHours(3), journal.getLastEventTime());
+        }
+        assertEquals(lot.getAvailableSpots(), restored.getAvailableSpots());
+        assertEquals(lot.listParkedVehicles(), restored.listParkedVehicles());
+        assertEquals(lot.generateDailyReport(), restored.generateDailyReport());
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path path = dir.resolve("parking.journal");
+        ParkingLot lot = new ParkingLot(10);
+        try (ParkingJournal journal = ParkingJournal.open(path, lot, 1, 0)) {
+            lot.enterVehicle(new Car("A1", START));
+            lot.enterVehicle(new Car("B2", START));
+        }
+        long validSize = Files.size(path);
+        // przerwany zapis: długość wpisu bez treści
+        Files.write(path, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        ParkingLot restored = new ParkingLot(10);
+        try (ParkingJournal journal = ParkingJournal.open(path, restored, 1, 0)) {
+            assertEquals(2, journal.getReplayedEvents());
+            assertEquals(validSize, Files.size(path));
+            restored.exitVehicle("A1", START.plusHours(1));
+        }
+        ParkingLot again = new ParkingLot(10);
+        ParkingJournal.open(path, again, 1, 0).close();
+        assertFalse(again.isParked("A1"));
+        assertTrue(again.isParked("B2"));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("parking.journal")).count();
+        }
+    }
+
+    @Test
+    void segmentsRotateAndCheckpointDropsOldDays() throws IOException {
+        Path path = dir.resolve("parking.journal");
+        ParkingLot lot = new ParkingLot(100);
+        try (ParkingJournal journal = ParkingJournal.open(path, lot, 8, 0, 4096)) {
+            for (int i = 0; i < 300; i++) {
+                lot.enterVehicle(new Car("R" + i, START.plusMinutes(i)));
+                if (i >= 60) {
+                    lot.exitVehicle("R" + (i - 60), START.plusMinutes(i).plusSeconds(30));
+                }
+            }
+        }
+        assertTrue(segmentCount() > 3, "dziennik nie został podzielony na segmenty");
+
+        ParkingLot restored = new ParkingLot(100);
+        try (ParkingJournal journal = ParkingJournal.open(path, restored, 8, 0, 4096)) {
+            assertEquals(300 + 240, journal.getReplayedEvents());
+            assertEquals(lot.listParkedVehicles(), restored.listParkedVehicles());
+            assertEquals(lot.generateDailyReport(), restored.generateDailyReport());
+            restored.clearDailyReport(); // koniec dnia: punkt kontrolny zastępuje wszystkie segmenty
+            assertEquals(1, segmentCount());
+            restored.exitVehicle("R250", START.plusHours(8));
+        }
+
+        ParkingLot again = new ParkingLot(100);
+        try (ParkingJournal journal = ParkingJournal.open(path, again, 8, 0, 4096)) {
+            assertEquals(1 + 60 + 1, journal.getReplayedEvents());
+            assertEquals(START.plusHours(8), journal.getLastEventTime());
+        }
+        assertEquals(59, again.listParkedVehicles().size());
+        assertFalse(again.isParked("R250"));
+        assertEquals(restored.findSpot("R299").getSpotNumber(), again.findSpot("R299").getSpotNumber());
+        assertEquals(1, again.getDailyTotals().getVehicleCount());
+    }
+
+    @Test
+    void interruptedCheckpointFallsBackToOldSegments() throws IOException {
+        Path path = dir.resolve("parking.journal");
+        ParkingLot lot = new ParkingLot(10);
+        try (ParkingJournal journal = ParkingJournal.open(path, lot, 1, 0)) {
+            lot.enterVehicle(new Car("A1", START));
+            lot.enterVehicle(new Car("B2", START));
+        }
+        // awaria przed atomową podmianą: niedokończony plik tymczasowy punktu kontrolnego
+        Path temp = dir.resolve("parking.journal.1.tmp");
+        Files.write(temp, new byte[]{0x50, 0x4A, 0x52});
+
+        ParkingLot restored = new ParkingLot(10);
+        try (ParkingJournal journal = ParkingJournal.open(path, restored, 1, 0)) {
+            assertEquals(2, journal.getReplayedEvents());
+        }
+        assertFalse(Files.exists(temp));
+        assertTrue(restored.isParked("A1"));
+        assertTrue(restored.isParked("B2"));
+    }
+}
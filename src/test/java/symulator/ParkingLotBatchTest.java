@@ -0,0 +1,96 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ParkingLot.EntryStatus;
+import symulator.ParkingSimulator.ParkingLotListener;
+import symulator.ParkingSimulator.ParkingMetrics;
+import symulator.ParkingSimulator.Vehicle;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingLotBatchTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    private static String prometheus(ParkingMetrics metrics) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        metrics.writePrometheus(sb);
+        return sb.toString();
+    }
+
+    @Test
+    void batchEntriesReportEachVehicle() {
+        ParkingLot lot = new ParkingLot(3);
+        int[] batches = new int[1];
+        lot.addListener(new ParkingLotListener() {
+            @Override
+            public void onBatchCompleted() {
+                batches[0]++;
+            }
+        });
+        List<Vehicle> vehicles = Arrays.asList(new Car("B1", START), new DeliveryVan("B2", START), null,
+                new Car("b1", START), new Car("B3", START), new Car("B4", START));
+        assertArrayEquals(new EntryStatus[]{EntryStatus.PARKED, EntryStatus.PARKED, EntryStatus.FAILED,
+                EntryStatus.ALREADY_PARKED, EntryStatus.PARKED, EntryStatus.LOT_FULL}, lot.enterVehicles(vehicles));
+        assertEquals(1, batches[0]);
+        assertEquals(0, lot.getAvailableSpots());
+        assertEquals(1, lot.findSpot("B1").getSpotNumber());
+        assertEquals(3, lot.findSpot("B3").getSpotNumber());
+    }
+
+    @Test
+    void batchExitsPayAndCountMissingPlates() throws IOException {
+        ParkingLot lot = new ParkingLot(3);
+        ParkingMetrics metrics = new ParkingMetrics(lot.getCapacity());
+        lot.setMetrics(metrics);
+        lot.enterVehicles(Arrays.asList(new Car("C1", START), new Car("C2", START)));
+        ParkingLot.ParkingPayment[] payments = lot.exitVehicles(Arrays.asList("c1", "NIEMA", null, "C2"),
+                Arrays.asList(START.plusHours(2), START, START, START.plusMinutes(30)));
+
+        assertEquals(10.0, payments[0].getFee());
+        assertNull(payments[1]);
+        assertNull(payments[2]);
+        assertEquals(1.0, payments[3].getHoursParked());
+        assertEquals(3, lot.getAvailableSpots());
+        String text = prometheus(metrics);
+        assertTrue(text.contains("parking_exits_total 2\n"), text);
+        assertTrue(text.contains("parking_exits_not_found_total 2\n"), text);
+    }
+
+    @Test
+    void listenerErrorAfterReleaseStillReturnsThePayment() {
+        ParkingLot lot = new ParkingLot(2);
+        lot.enterVehicles(Arrays.asList(new Car("D1", START), new Car("D2", START.plusNanos(900_000_000))));
+        lot.addListener(new ParkingLotListener() {
+            @Override
+            public void onVehicleExited(ParkingLot.ParkingRecord record, int spotNumber) {
+                if (record.getLicensePlate().equals("D2")) {
+                    throw new IllegalStateException("awaria dziennika");
+                }
+            }
+        });
+        LocalDateTime exit = START.plusHours(1).plusMinutes(1).plusNanos(500_000_000);
+        ParkingLot.ParkingPayment[] payments = lot.exitVehicles(Arrays.asList("D1", "D2"), exit);
+
+        assertNotNull(payments[1]);
+        assertEquals("D2", payments[1].getRecord().getLicensePlate());
+        assertEquals(exit, payments[1].getRecord().getExitTime());
+        assertEquals(1.0, payments[1].getHoursParked());
+        assertEquals(5.0, payments[1].getFee());
+        assertEquals(2.0, payments[0].getHoursParked());
+        assertFalse(lot.isParked("D2"));
+        assertEquals(2, lot.getDailyRecords().size());
+    }
+}
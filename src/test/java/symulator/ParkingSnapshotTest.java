@@ -0,0 +1,89 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ParkingSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingSnapshotTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @TempDir
+    Path dir;
+
+    private static ParkingLot busyLot() {
+        ParkingLot lot = new ParkingLot(200);
+        for (int i = 0; i < 150; i++) {
+            LocalDateTime entry = START.plusMinutes(i).plusNanos(i * 1000);
+            lot.enterVehicle(i % 5 == 0 ? new DeliveryVan("S" + i, entry) : new Car("S" + i, entry));
+        }
+        for (int i = 0; i < 150; i += 2) {
+            lot.exitVehicle("S" + i, START.plusHours(4));
+        }
+        return lot;
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        ParkingLot lot = busyLot();
+        Path path = dir.resolve("parking.snap");
+        ParkingSnapshot snapshot = ParkingSnapshot.capture(lot);
+        // zmiany po pobraniu migawki nie trafiają do pliku
+        lot.enterVehicle(new Car("PO-MIGAWCE", START.plusHours(5)));
+        snapshot.write(path);
+        lot.exitVehicle("PO-MIGAWCE", START.plusHours(6));
+        lot.getDailyRecords().clear();
+        ParkingLot expected = busyLot();
+
+        ParkingLot restored = ParkingSnapshot.load(path);
+        assertEquals(expected.getCapacity(), restored.getCapacity());
+        assertEquals(expected.getAvailableSpots(), restored.getAvailableSpots());
+        assertEquals(expected.listParkedVehicles(), restored.listParkedVehicles());
+        assertEquals(expected.generateDailyReport(), restored.generateDailyReport());
+        assertTrue(restored.isParked("s1"));
+        assertEquals(START.plusMinutes(1).plusNanos(1000), restored.findSpot("S1").getParkedVehicle().getEntryTime());
+    }
+
+    @Test
+    void sharedColumnsSurviveClearAndNewSessions() throws IOException {
+        ParkingLot lot = busyLot();
+        ParkingSnapshot snapshot = ParkingSnapshot.capture(lot);
+        // nowy dzień po pobraniu migawki: wiersze nie mogą nadpisać kolumn współdzielonych z migawką
+        lot.clearDailyReport();
+        for (int i = 0; i < 300; i++) {
+            lot.enterVehicle(new Car("NOWY" + i, START.plusDays(1).plusMinutes(i)));
+            lot.exitVehicle("NOWY" + i, START.plusDays(1).plusMinutes(i + 30));
+        }
+        Path path = dir.resolve("parking.snap");
+        snapshot.write(path);
+
+        ParkingLot expected = busyLot();
+        ParkingLot restored = ParkingSnapshot.load(path);
+        assertEquals(expected.listParkedVehicles(), restored.listParkedVehicles());
+        assertEquals(expected.generateDailyReport(), restored.generateDailyReport());
+        assertEquals(300, lot.getDailyRecords().size());
+    }
+
+    @Test
+    void corruptedSnapshotIsRejected() throws IOException {
+        Path path = dir.resolve("parking.snap");
+        ParkingSnapshot.capture(busyLot()).write(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 40);
+        }
+        assertThrows(IOException.class, () -> ParkingSnapshot.load(path));
+    }
+}
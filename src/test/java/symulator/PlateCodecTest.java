@@ -0,0 +1,122 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.LastVisitCache;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.PlateCodec;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlateCodecTest {
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Test
+    void packRoundTripsAndKeepsLexicographicOrder() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int n = 1 + random.nextInt(10); n > 0; n--) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            plates.add(sb.toString());
+        }
+        for (String plate : plates) {
+            long code = PlateCodec.pack(plate);
+            assertTrue(code >= 0);
+            assertEquals(plate, PlateCodec.unpack(code));
+            assertEquals(code, PlateCodec.pack(plate.toLowerCase()));
+        }
+        for (int i = 1; i < plates.size(); i++) {
+            String a = plates.get(i - 1);
+            String b = plates.get(i);
+            assertEquals(Integer.signum(a.compareTo(b)),
+                    Integer.signum(Long.compare(PlateCodec.pack(a), PlateCodec.pack(b))), a + " / " + b);
+        }
+    }
+
+    @Test
+    void unusualPlatesAreInterned() {
+        PlateCodec codec = new PlateCodec();
+        assertEquals(PlateCodec.INVALID, PlateCodec.pack("ŁÓD-12345"));
+        long code = codec.encode("łód-12345");
+        assertTrue(code < 0);
+        assertEquals(code, codec.find("ŁÓD-12345"));
+        assertEquals("ŁÓD-12345", codec.decode(code));
+        assertEquals(PlateCodec.INVALID, codec.find("INNY-NUMER-1"));
+        assertEquals(1, codec.internedCount());
+    }
+
+    @Test
+    void spacesAreIgnored() {
+        assertEquals(PlateCodec.pack("WA12345"), PlateCodec.pack("WA 12345"));
+        assertEquals(PlateCodec.pack("WA12345"), PlateCodec.pack(" wa 123 45 "));
+        assertEquals(PlateCodec.pack("ABCDE12345"), PlateCodec.pack("ABCDE 12345"));
+        assertEquals(PlateCodec.INVALID, PlateCodec.pack("   "));
+        assertEquals(PlateCodec.INVALID, PlateCodec.pack("ABCDE 123456"));
+        assertEquals("WA12345", ParkingLot.canonicalPlate("wa 12345"));
+    }
+
+    @Test
+    void internedIdsAreFreedWithTheLastReference() {
+        PlateCodec codec = new PlateCodec();
+        long code = codec.encode("ŁÓD-1");
+        assertEquals(code, codec.encode("łód-1"));
+        codec.release(code);
+        assertEquals("ŁÓD-1", codec.decode(code));
+        codec.release(code);
+        assertEquals(0, codec.internedCount());
+        assertEquals(PlateCodec.INVALID, codec.find("ŁÓD-1"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(code));
+        assertThrows(IllegalStateException.class, () -> codec.release(code));
+        // zwolniony identyfikator trafia do kolejnego numeru
+        assertEquals(code, codec.encode("GDA-2"));
+        assertEquals("GDA-2", codec.decode(code));
+    }
+
+    @Test
+    void lastVisitCacheReleasesEvictedPlates() {
+        PlateCodec codec = new PlateCodec();
+        LastVisitCache cache = new LastVisitCache(2, codec);
+        for (int i = 0; i < 5; i++) {
+            cache.put(codec.encode("ŁÓD-" + i), "ŁÓD-" + i, Car.TYPE, 0, 0, 60, 0, 500);
+        }
+        assertEquals(2, codec.internedCount());
+        assertNull(cache.get(codec.find("ŁÓD-2")));
+        // ponowny wyjazd zwalnia poprzedni wpis numeru, a kolejna pozycja wypiera ŁÓD-3
+        cache.put(codec.encode("ŁÓD-4"), "ŁÓD-4", Car.TYPE, 0, 0, 120, 0, 500);
+        assertEquals(1, cache.size());
+        assertEquals(1, codec.internedCount());
+        assertEquals(LocalDateTime.ofEpochSecond(120, 0, ZoneOffset.UTC), cache.get(codec.find("łód-4")).getExitTime());
+    }
+
+    @Test
+    void parkingLotReleasesPlatesItNoLongerHolds() {
+        ParkingLot lot = new ParkingLot(1);
+        LocalDateTime entry = LocalDateTime.of(2024, 6, 1, 8, 0);
+        assertTrue(lot.enterVehicle(new Car("ŁÓD-1", entry)));
+        for (int i = 0; i < 100; i++) {
+            // odmowy (zajęte miejsce, numer już na parkingu) nie zostawiają wpisów w tablicy internowania
+            lot.enterVehicle(new Car("GDA-" + i, entry));
+            lot.enterVehicle(new Car("łód-1", entry));
+        }
+        assertEquals(1, lot.internedPlateCount());
+        assertNotNull(lot.exitVehicle("łód-1", entry.plusHours(1)));
+        assertTrue(lot.enterVehicle(new Car("WA 12345", entry)));
+        assertTrue(lot.isParked("wa12345"));
+        // numer nietypowy pozostaje w pamięci ostatnich wizyt
+        assertEquals(1, lot.internedPlateCount());
+        assertEquals("ŁÓD-1", lot.getLastVisit("ŁÓD-1").getLicensePlate());
+    }
+}
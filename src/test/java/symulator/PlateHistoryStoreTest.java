@@ -0,0 +1,117 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.PlateHistoryStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlateHistoryStoreTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void historySurvivesReopen() throws IOException {
+        Path path = dir.resolve("history.bin");
+        ParkingLot lot = new ParkingLot(10);
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 4)) {
+            lot.addListener(store);
+            for (int day = 0; day < 30; day++) {
+                for (int p = 0; p < 5; p++) {
+                    LocalDateTime entry = START.plusDays(day).plusMinutes(p);
+                    lot.enterVehicle(new Car("H" + p, entry));
+                    lot.exitVehicle("H" + p, entry.plusHours(2));
+                }
+            }
+            assertEquals(5, store.getPlateCount());
+            assertEquals(30, store.history("h3").size());
+            assertTrue(store.getCachedVisits() <= 4);
+        }
+
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 100)) {
+            assertEquals(5, store.getPlateCount());
+            List<ParkingLot.ParkingRecord> visits = store.history("H3");
+            assertEquals(30, visits.size());
+            for (int day = 0; day < 30; day++) {
+                ParkingLot.ParkingRecord visit = visits.get(day);
+                assertEquals("H3", visit.getLicensePlate());
+                assertEquals(Car.TYPE, visit.getVehicleType());
+                assertEquals(START.plusDays(day).plusMinutes(3), visit.getEntryTime());
+                assertEquals(START.plusDays(day).plusMinutes(3).plusHours(2), visit.getExitTime());
+                assertEquals(10.0, visit.getFee());
+            }
+            List<ParkingLot.ParkingRecord> window = store.history("H3", START.plusDays(10), START.plusDays(12));
+            assertEquals(2, window.size());
+            assertEquals(START.plusDays(10).plusMinutes(3), window.get(0).getEntryTime());
+            assertTrue(store.history("NIEZNANY").isEmpty());
+        }
+    }
+
+    @Test
+    void windowQueryStopsAtOlderVisits() throws IOException {
+        Path path = dir.resolve("history.bin");
+        ParkingLot lot = new ParkingLot(10);
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 0)) {
+            lot.addListener(store);
+            for (int day = 0; day < 30; day++) {
+                lot.enterVehicle(new Car("W1", START.plusDays(day)));
+                lot.exitVehicle("W1", START.plusDays(day).plusHours(1));
+            }
+            assertEquals(3, store.history("W1", START.plusDays(27), null).size());
+            assertTrue(store.getDiskReads() <= 4, "odczyt nie zatrzymał się na starszych wizytach");
+        }
+    }
+
+    @Test
+    void indexOnDiskKeepsOnlyASliceInMemory() throws IOException {
+        Path path = dir.resolve("history.bin");
+        ParkingLot lot = new ParkingLot(10);
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 0, 16, 64)) {
+            lot.addListener(store);
+            for (int round = 0; round < 3; round++) {
+                for (int p = 0; p < 2000; p++) {
+                    LocalDateTime entry = START.plusDays(round).plusSeconds(p);
+                    lot.enterVehicle(new Car("I" + p, entry));
+                    lot.exitVehicle("I" + p, entry.plusMinutes(30));
+                }
+            }
+            assertEquals(2000, store.getPlateCount());
+            assertTrue(store.getIndexSliceSize() <= 16);
+            assertEquals(3, store.history("I1234").size());
+        }
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 0, 16, 64)) {
+            assertEquals(2000, store.getPlateCount());
+            for (int p = 0; p < 2000; p += 97) {
+                assertEquals(3, store.history("I" + p).size(), "I" + p);
+            }
+        }
+    }
+
+    @Test
+    void indexIsRebuiltAfterCrash() throws IOException {
+        Path path = dir.resolve("history.bin");
+        ParkingLot lot = new ParkingLot(10);
+        // magazyn nie jest zamykany: symulacja awarii po ostatnim fsync
+        PlateHistoryStore crashed = PlateHistoryStore.open(path, 0, 4, 1);
+        lot.addListener(crashed);
+        for (int p = 0; p < 50; p++) {
+            lot.enterVehicle(new Car("K" + (p % 10), START.plusHours(p)));
+            lot.exitVehicle("K" + (p % 10), START.plusHours(p).plusMinutes(20));
+        }
+        try (PlateHistoryStore store = PlateHistoryStore.open(path, 100, 4, 1)) {
+            assertEquals(10, store.getPlateCount());
+            assertEquals(5, store.history("K7").size());
+            assertEquals(START.plusHours(47), store.history("K7").get(4).getEntryTime());
+        }
+    }
+}
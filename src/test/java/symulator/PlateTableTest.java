@@ -0,0 +1,52 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.PlateCodec;
+import symulator.ParkingSimulator.PlateTable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlateTableTest {
+
+    @Test
+    void removeKeepsEveryOtherKeyReachable() {
+        // mała tablica i mały zbiór kluczy: długie łańcuchy kolizji i zawijanie przez koniec tablicy
+        PlateTable table = new PlateTable(8);
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(64) * 0x1_0000_0000L + random.nextInt(4);
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? -1 : previous, table.remove(key));
+            } else {
+                int value = random.nextInt(1000);
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? -1 : previous, table.put(key, value));
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (int hi = 0; hi < 64; hi++) {
+            for (int lo = 0; lo < 4; lo++) {
+                long key = hi * 0x1_0000_0000L + lo;
+                assertEquals(expected.getOrDefault(key, -1), table.get(key));
+            }
+        }
+    }
+
+    @Test
+    void removeOfMissingKeyLeavesTableUnchanged() {
+        PlateTable table = new PlateTable(4);
+        table.put(1, 10);
+        table.put(2, 20);
+        assertEquals(-1, table.remove(3));
+        assertEquals(-1, table.remove(PlateCodec.INVALID));
+        assertEquals(2, table.size());
+        assertEquals(10, table.get(1));
+        assertEquals(20, table.get(2));
+    }
+}
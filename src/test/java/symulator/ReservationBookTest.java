@@ -0,0 +1,156 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DeliveryVan;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.ReservationBook;
+import symulator.ParkingSimulator.SpotSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationBookTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 6, 7, 0, 0);
+    private static final LocalDateTime FROM = DAY.plusHours(8);
+    private static final LocalDateTime TO = DAY.plusHours(18);
+
+    /**
+     * 4 miejsca COMPACT, 4 STANDARD i 2 VAN; samochody mieszczą się na każdym, vany tylko na VAN.
+     */
+    private static ParkingLot lot() {
+        SpotSize[] sizes = new SpotSize[10];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = i < 4 ? SpotSize.COMPACT : i < 8 ? SpotSize.STANDARD : SpotSize.VAN;
+        }
+        return new ParkingLot(sizes, null);
+    }
+
+    @Test
+    void bookingsNeverExceedCapacityOfAnyClassSet() {
+        ParkingLot lot = lot();
+        ReservationBook book = lot.enableReservations(DAY, Duration.ofHours(1), 48);
+        assertEquals(2, book.getAvailable(DeliveryVan.TYPE, FROM, TO));
+        assertEquals(10, book.getAvailable(Car.TYPE, FROM, TO));
+
+        assertNotNull(book.book("VAN1", DeliveryVan.TYPE, FROM, TO));
+        assertNotNull(book.book("VAN2", DeliveryVan.TYPE, FROM.plusHours(2), TO));
+        assertNull(book.book("VAN3", DeliveryVan.TYPE, FROM.plusHours(3), FROM.plusHours(4)));
+        assertEquals(1, book.getAvailable(DeliveryVan.TYPE, FROM, FROM.plusHours(2)));
+        // vany zajmują miejsca VAN, więc samochodom zostaje 8 z 10
+        assertEquals(8, book.getAvailable(Car.TYPE, FROM.plusHours(2), TO));
+        assertTrue(book.canBook(Car.TYPE, 8, FROM, TO));
+        assertFalse(book.canBook(Car.TYPE, 9, FROM, TO));
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(book.book("CAR" + i, Car.TYPE, FROM, TO));
+        }
+        assertNull(book.book("CAR8", Car.TYPE, FROM, TO));
+        assertEquals(10, book.getReserved(FROM.plusHours(5)));
+        assertEquals(10, book.getAvailable(Car.TYPE, TO, TO.plusHours(2)));
+
+        assertTrue(book.cancel("VAN2"));
+        assertFalse(book.cancel("VAN2"));
+        assertEquals(1, book.getAvailable(Car.TYPE, FROM.plusHours(2), TO));
+        assertEquals(1, book.getAvailable(DeliveryVan.TYPE, FROM.plusHours(2), TO));
+        assertEquals(9, book.size());
+    }
+
+    @Test
+    void walkInsCannotTakeHeldSpots() {
+        ParkingLot lot = lot();
+        ReservationBook book = lot.enableReservations(DAY, Duration.ofHours(1), 48);
+        for (int i = 0; i < 9; i++) {
+            assertNotNull(book.book("CAR" + i, Car.TYPE, FROM, TO));
+        }
+        LocalDateTime inWindow = FROM.plusHours(1);
+        assertTrue(lot.enterVehicle(new Car("WALK1", inWindow)));
+        assertFalse(lot.enterVehicle(new Car("WALK2", inWindow)));
+        assertFalse(lot.enterVehicle(new DeliveryVan("WALK3", inWindow)));
+
+        for (int i = 0; i < 9; i++) {
+            assertTrue(lot.enterVehicle(new Car("car" + i, inWindow)), "rezerwacja CAR" + i);
+        }
+        assertEquals(0, lot.getAvailableSpots());
+        assertEquals(0, book.size());
+        assertEquals(0, book.getReserved(inWindow));
+    }
+
+    @Test
+    void horizonRollsForwardAndExpiresNoShows() {
+        ParkingLot lot = lot();
+        ReservationBook book = lot.enableReservations(DAY, Duration.ofHours(1), 48);
+        assertNotNull(book.book("NOSHOW", Car.TYPE, FROM, TO));
+        assertNotNull(book.book("LATER", DeliveryVan.TYPE, DAY.plusHours(30), DAY.plusHours(40)));
+        assertThrows(IllegalArgumentException.class,
+                () -> book.book("FAR", Car.TYPE, DAY.plusHours(50), DAY.plusHours(52)));
+
+        // wjazd po oknie NOSHOW przesuwa horyzont: rezerwacja wygasa, a koniec horyzontu się oddala
+        LocalDateTime late = DAY.plusHours(20).plusMinutes(15);
+        assertTrue(lot.enterVehicle(new Car("WALK", late)));
+        assertEquals(DAY.plusHours(20), book.getHorizonStart());
+        assertNull(book.getReservation("NOSHOW"));
+        assertEquals(1, book.size());
+        assertNotNull(book.book("FAR", Car.TYPE, DAY.plusHours(50), DAY.plusHours(52)));
+        assertThrows(IllegalArgumentException.class, () -> book.book("PAST", Car.TYPE, FROM, TO));
+
+        // przedziały po zawinięciu tablicy drzew nie dziedziczą blokad starych rezerwacji
+        assertEquals(1, book.getAvailable(DeliveryVan.TYPE, DAY.plusHours(30), DAY.plusHours(67)));
+        assertEquals(2, book.getAvailable(DeliveryVan.TYPE, DAY.plusHours(56), DAY.plusHours(68)));
+        assertEquals(1, book.getReserved(DAY.plusHours(51)));
+    }
+
+    @Test
+    void failingListenerDoesNotLoseTheBooking() {
+        ParkingLot lot = lot();
+        ReservationBook book = lot.enableReservations(DAY, Duration.ofHours(1), 48);
+        assertNotNull(book.book("VAN1", DeliveryVan.TYPE, FROM, TO));
+        lot.addListener(new ParkingSimulator.ParkingLotListener() {
+            @Override
+            public void onVehicleEntered(ParkingSimulator.Vehicle vehicle, int spotNumber) {
+                throw new IllegalStateException("awaria obserwatora");
+            }
+        });
+        // pojazd zaparkował przed błędem obserwatora, więc rezerwacja została wykorzystana razem z wjazdem
+        assertThrows(IllegalStateException.class, () -> lot.enterVehicle(new DeliveryVan("VAN1", FROM)));
+        assertTrue(lot.isParked("VAN1"));
+        assertNull(book.getReservation("VAN1"));
+        assertEquals(0, book.getReserved(FROM.plusHours(1)));
+        // wjazd poza oknem nie zużywa rezerwacji
+        assertNotNull(book.book("VAN2", DeliveryVan.TYPE, FROM.plusHours(4), TO));
+        assertThrows(IllegalStateException.class, () -> lot.enterVehicle(new DeliveryVan("VAN2", FROM)));
+        assertTrue(lot.isParked("VAN2"));
+        assertNotNull(book.getReservation("VAN2"));
+    }
+
+    @Test
+    void releasedReservationsFreeTheirSlotsAndPlates() {
+        ParkingLot lot = lot();
+        ReservationBook book = lot.enableReservations(DAY, Duration.ofHours(1), 48);
+        for (int round = 0; round < 50; round++) {
+            assertNotNull(book.book("ŁÓD-" + round, Car.TYPE, FROM, TO));
+            assertTrue(book.cancel("łód-" + round));
+        }
+        assertEquals(0, lot.internedPlateCount());
+
+        assertNotNull(book.book("ŁÓD-A", Car.TYPE, FROM, TO));
+        assertNotNull(book.book("ŁÓD-B", Car.TYPE, FROM, TO));
+        assertNotNull(book.book("WA 12345", Car.TYPE, FROM, TO));
+        assertThrows(IllegalArgumentException.class, () -> book.book("wa12345", Car.TYPE, FROM, TO));
+        assertEquals(2, lot.internedPlateCount());
+        // ŁÓD-A wykorzystuje rezerwację, ŁÓD-B nie przyjeżdża i rezerwacja wygasa
+        assertTrue(lot.enterVehicle(new Car("łód-a", FROM.plusHours(1))));
+        assertTrue(lot.enterVehicle(new Car("WA12345", FROM.plusHours(1))));
+        assertEquals(2, lot.internedPlateCount());
+        assertTrue(lot.enterVehicle(new Car("WALK", TO.plusHours(1))));
+        assertEquals(0, book.size());
+        assertNull(book.getReservation("ŁÓD-B"));
+        assertEquals(1, lot.internedPlateCount());
+    }
+}
@@ -0,0 +1,45 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.ArrivalProcess;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.DwellTimeDistribution;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.SimulationEngine;
+import symulator.ParkingSimulator.SimulationResult;
+import symulator.ParkingSimulator.VehicleProfile;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SimulationEngineTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    private static SimulationEngine engine(int capacity, long seed) {
+        return new SimulationEngine(new ParkingLot(capacity), START, seed)
+                .addProfile(new VehicleProfile("C", Car::new, ArrivalProcess.poisson(60),
+                        DwellTimeDistribution.exponential(45)));
+    }
+
+    @Test
+    void sameSeedGivesSameResult() {
+        SimulationResult a = engine(30, 9).run(Duration.ofDays(2), Duration.ofMinutes(10));
+        SimulationResult b = engine(30, 9).run(Duration.ofDays(2), Duration.ofMinutes(10));
+        assertEquals(a.getTotalArrivals(), b.getTotalArrivals());
+        assertEquals(a.getTotalRejected(), b.getTotalRejected());
+        assertEquals(a.getRevenue(), b.getRevenue());
+        assertArrayEquals(a.getOccupancy(), b.getOccupancy());
+        assertEquals(2 * 24 * 6 + 1, a.getOccupancy().length);
+    }
+
+    @Test
+    void tooManySamplesAreRejectedUpFront() {
+        // milisekundowe próbkowanie przez rok wymagałoby tablicy 31,5 mld próbek
+        assertThrows(IllegalArgumentException.class,
+                () -> engine(10, 1).run(Duration.ofDays(365), Duration.ofMillis(1)));
+    }
+}
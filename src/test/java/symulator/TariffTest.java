@@ -0,0 +1,166 @@
+package symulator;
+
+import org.junit.jupiter.api.Test;
+import symulator.ParkingSimulator.Car;
+import symulator.ParkingSimulator.ParkingLot;
+import symulator.ParkingSimulator.Tariff;
+import symulator.ParkingSimulator.TariffDefinition;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Skompilowana taryfa porównywana z liczeniem minuta po minucie według tej samej definicji.
+ */
+class TariffTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 6, 3, 0, 0);
+
+    /**
+     * Definicja taryfy w postaci czytelnej dla wzorca: te same parametry trafiają do TariffDefinition.
+     */
+    private static class Spec {
+        final long base;
+        long weekend = -1;
+        final List<Object[]> bands = new ArrayList<>(); // {LocalTime od, LocalTime do, stawka, dni}
+        int free;
+        int unit = 60;
+        long cap;
+
+        Spec(long base) {
+            this.base = base;
+        }
+
+        Spec band(LocalTime from, LocalTime to, long rate, DayOfWeek... days) {
+            Set<DayOfWeek> set = days.length == 0 ? EnumSet.allOf(DayOfWeek.class) : EnumSet.of(days[0], days);
+            bands.add(new Object[]{from, to, rate, set});
+            return this;
+        }
+
+        Tariff compile() {
+            TariffDefinition definition = new TariffDefinition(base).freeMinutes(free).billingUnitMinutes(unit)
+                    .dailyCap(cap);
+            if (weekend >= 0) {
+                definition.weekendRate(weekend);
+            }
+            for (Object[] band : bands) {
+                @SuppressWarnings("unchecked")
+                Set<DayOfWeek> days = (Set<DayOfWeek>) band[3];
+                definition.band((LocalTime) band[0], (LocalTime) band[1], (Long) band[2],
+                        days.toArray(new DayOfWeek[0]));
+            }
+            return definition.compile();
+        }
+
+        /** Stawka godzinowa obowiązująca w danej minucie. */
+        long rate(LocalDateTime minute) {
+            DayOfWeek day = minute.getDayOfWeek();
+            long rate = weekend >= 0 && day.getValue() >= 6 ? weekend : base;
+            int minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+            for (Object[] band : bands) {
+                int from = ((LocalTime) band[0]).getHour() * 60 + ((LocalTime) band[0]).getMinute();
+                int to = ((LocalTime) band[1]).getHour() * 60 + ((LocalTime) band[1]).getMinute();
+                boolean crossesMidnight = from > to;
+                boolean inBand = crossesMidnight ? minuteOfDay >= from || minuteOfDay < to
+                        : minuteOfDay >= from && minuteOfDay < to;
+                DayOfWeek bandDay = crossesMidnight && minuteOfDay < to ? day.minus(1) : day;
+                @SuppressWarnings("unchecked")
+                Set<DayOfWeek> days = (Set<DayOfWeek>) band[3];
+                if (inBand && days.contains(bandDay)) {
+                    rate = (Long) band[2];
+                }
+            }
+            return rate;
+        }
+
+        /** Opłata liczona minuta po minucie, z limitem dla każdych kolejnych 24 godzin. */
+        long referenceFee(LocalDateTime entry, LocalDateTime exit) {
+            long minutes = Math.max(0, Duration.between(entry, exit).toMinutes());
+            long billable = minutes - free;
+            if (billable <= 0) {
+                return 0;
+            }
+            long billed = (billable + unit - 1) / unit * unit;
+            LocalDateTime start = entry.truncatedTo(ChronoUnit.MINUTES).plusMinutes(free);
+            long total = 0;
+            long day = 0;
+            for (long i = 0; i < billed; i++) {
+                day += rate(start.plusMinutes(i));
+                if ((i + 1) % (24 * 60) == 0 || i + 1 == billed) {
+                    total += cap > 0 ? Math.min(cap * 60, day) : day;
+                    day = 0;
+                }
+            }
+            return (total + 59) / 60;
+        }
+    }
+
+    private static List<Spec> specs() {
+        List<Spec> specs = new ArrayList<>();
+        specs.add(new Spec(500));
+        Spec nights = new Spec(600).band(LocalTime.of(22, 0), LocalTime.of(6, 0), 150)
+                .band(LocalTime.of(7, 30), LocalTime.of(9, 45), 900, DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        nights.unit = 15;
+        specs.add(nights);
+        Spec weekend = new Spec(400).band(LocalTime.of(23, 0), LocalTime.of(2, 0), 0, DayOfWeek.FRIDAY,
+                DayOfWeek.SUNDAY);
+        weekend.weekend = 250;
+        weekend.free = 15;
+        specs.add(weekend);
+        Spec capped = new Spec(700).band(LocalTime.of(18, 0), LocalTime.of(8, 0), 100);
+        capped.weekend = 300;
+        capped.cap = 4500;
+        capped.free = 10;
+        capped.unit = 30;
+        specs.add(capped);
+        return specs;
+    }
+
+    @Test
+    void compiledTariffMatchesMinuteByMinuteReference() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (Spec spec : specs()) {
+            Tariff tariff = spec.compile();
+            for (int i = 0; i < 400; i++) {
+                LocalDateTime entry = MONDAY.plusSeconds(random.nextLong(14L * 24 * 3600))
+                        .plusNanos(random.nextInt(1_000_000_000));
+                long seconds = i % 4 == 0 ? random.nextLong(3 * 3600) : random.nextLong(10L * 24 * 3600);
+                LocalDateTime exit = entry.plusSeconds(seconds).withNano(random.nextInt(1_000_000_000));
+                assertEquals(spec.referenceFee(entry, exit), tariff.feeCents(entry, exit), entry + " -> " + exit);
+            }
+        }
+    }
+
+    @Test
+    void subSecondTimesUseTheSameMinutesForHoursAndFee() {
+        LocalDateTime entry = LocalDateTime.of(2024, 6, 3, 10, 0, 0, 900_000_000);
+        LocalDateTime exit = LocalDateTime.of(2024, 6, 3, 11, 1, 0, 500_000_000);
+        assertEquals(500, Tariff.flat(5.0).feeCents(entry, exit));
+
+        ParkingLot lot = new ParkingLot(1);
+        lot.enterVehicle(new Car("NANO1", entry));
+        ParkingLot.ParkingPayment payment = lot.exitVehicle("NANO1", exit);
+        assertEquals(1.0, payment.getHoursParked());
+        assertEquals(payment.getHoursParked() * 5.0, payment.getFee());
+    }
+
+    @Test
+    void dailyCapAppliesToEachStartedDay() {
+        Spec spec = new Spec(700);
+        spec.cap = 4500;
+        Tariff tariff = spec.compile();
+        LocalDateTime entry = MONDAY.plusHours(9);
+        assertEquals(4500, tariff.feeCents(entry, entry.plusHours(23)));
+        assertEquals(4500 + 700, tariff.feeCents(entry, entry.plusHours(24).plusMinutes(1)));
+        assertEquals(3 * 4500, tariff.feeCents(entry, entry.plusDays(2).plusHours(7)));
+    }
+}